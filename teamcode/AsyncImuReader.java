@@ -0,0 +1,207 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.hardware.modernrobotics.ModernRoboticsI2cGyro;
+
+import org.firstinspires.ftc.robotcore.external.navigation.Acceleration;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+
+/**
+ * Polls a heading sensor on its own thread so the control loop never waits on I2C.
+ * <p>
+ * The sensor is read at a fixed rate and each reading is published through a
+ * sequence lock: the writer makes the sequence number odd, writes the fields and
+ * makes it even again, and a reader copies the fields and retries if the number
+ * was odd or changed underneath it. Every field is volatile, which is what makes
+ * this safe in Java. {@link #read(ImuSample)} therefore never blocks and always
+ * returns a whole sample, the newest one; use its timestamp to see how old it is.
+ * <p>
+ * Call {@link #stop()} when the OpMode ends, or the thread keeps polling.
+ */
+public class AsyncImuReader {
+    /** Reads the sensor into a sample; called only on the polling thread. */
+    public interface Source {
+        void sample(ImuSample out);
+    }
+
+    private final Source source;
+    private final NanoClock clock;
+    private final long periodNanos;
+    private final ImuSample scratch = new ImuSample();
+
+    private volatile long sequence = 0;
+    private volatile double heading;
+    private volatile double headingRate;
+    private volatile double gravityX, gravityY, gravityZ;
+    private volatile long timestampNanos;
+    private volatile long published = 0;
+
+    private volatile boolean running = false;
+    private Thread thread = null;
+
+    /**
+     * @param _source Sensor to poll
+     * @param hz      Polls per second; the BNO055 fuses at 100 Hz
+     */
+    public AsyncImuReader(Source _source, double hz) {
+        this(_source, hz, NanoClock.SYSTEM);
+    }
+
+    public AsyncImuReader(Source _source, double hz, NanoClock _clock) {
+        source = _source;
+        clock = _clock;
+        periodNanos = (long) (1e9 / hz);
+    }
+
+    /**
+     * Heading, rate and gravity from a BNO055 set up with AngleUnit RADIANS.
+     */
+    public static Source forImu(final BNO055IMU imu) {
+        return new Source() {
+            @Override
+            public void sample(ImuSample out) {
+                out.heading = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle;
+                out.headingRate = imu.getAngularVelocity().toAngleUnit(AngleUnit.RADIANS).zRotationRate;
+                final Acceleration gravity = imu.getGravity();
+                out.gravityX = gravity.xAccel;
+                out.gravityY = gravity.yAccel;
+                out.gravityZ = gravity.zAccel;
+            }
+        };
+    }
+
+    /**
+     * Integrated heading and rate from a Modern Robotics gyro. It has no
+     * accelerometer, so gravity is left at zero.
+     */
+    public static Source forGyro(final ModernRoboticsI2cGyro gyro) {
+        return new Source() {
+            @Override
+            public void sample(ImuSample out) {
+                out.heading = Math.toRadians(gyro.getIntegratedZValue());
+                out.headingRate = gyro.getAngularVelocity(AngleUnit.RADIANS).zRotationRate;
+            }
+        };
+    }
+
+    /**
+     * Start polling. Does nothing if already running.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }, "AsyncImuReader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop polling and wait for the thread to finish. The last sample stays readable.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Copy the newest sample without waiting.
+     *
+     * @param out Filled in; its sequence is 0 if nothing has been published yet
+     * @return true if the sample is newer than the one with the sequence out held before
+     */
+    public boolean read(ImuSample out) {
+        final long previous = out.sequence;
+        while (true) {
+            final long before = sequence;
+            if ((before & 1L) != 0L) {
+                Thread.yield();
+                continue;
+            }
+            final double h = heading;
+            final double rate = headingRate;
+            final double gx = gravityX;
+            final double gy = gravityY;
+            final double gz = gravityZ;
+            final long time = timestampNanos;
+            final long count = published;
+            if (sequence == before) {
+                out.heading = h;
+                out.headingRate = rate;
+                out.gravityX = gx;
+                out.gravityY = gy;
+                out.gravityZ = gz;
+                out.timestampNanos = time;
+                out.sequence = count;
+                return count != previous;
+            }
+        }
+    }
+
+    /**
+     * @return seconds since the newest sample was taken
+     */
+    public double getAgeSeconds() {
+        return (clock.nanoTime() - timestampNanos) * 1e-9;
+    }
+
+    /**
+     * @return the clock samples are stamped with
+     */
+    public NanoClock getClock() {
+        return clock;
+    }
+
+    private void poll() {
+        long next = clock.nanoTime();
+        while (running) {
+            source.sample(scratch);
+            publish(scratch, clock.nanoTime());
+
+            next += periodNanos;
+            final long wait = next - clock.nanoTime();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1000000L, (int) (wait % 1000000L));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            } else {
+                // Fell behind (slow bus); start the schedule again from now.
+                next = clock.nanoTime();
+            }
+        }
+    }
+
+    private void publish(ImuSample sample, long now) {
+        sequence = sequence + 1;
+        heading = sample.heading;
+        headingRate = sample.headingRate;
+        gravityX = sample.gravityX;
+        gravityY = sample.gravityY;
+        gravityZ = sample.gravityZ;
+        timestampNanos = now;
+        published = published + 1;
+        sequence = sequence + 1;
+    }
+}
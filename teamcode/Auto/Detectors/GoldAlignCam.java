@@ -31,7 +31,6 @@ package org.firstinspires.ftc.teamcode;
 
 import com.disnodeteam.dogecv.CameraViewDisplay;
 import com.disnodeteam.dogecv.DogeCV;
-import com.disnodeteam.dogecv.detectors.roverrukus.GoldAlignDetector;
 import com.disnodeteam.dogecv.detectors.roverrukus.SamplingOrderDetector;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
@@ -42,7 +41,10 @@ import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 public class GoldAlignCam extends OpMode
 {
     // Detector object
-    private GoldAlignDetector detector;
+    private RoiGoldAlignDetector detector;
+
+    static final double VISION_ROI_TOP = 0.4;        // Fraction of the frame above the sample minerals
+    static final int    VISION_FRAME_DIVISOR = 2;    // Process every other camera frame
 
 
     @Override
@@ -50,7 +52,7 @@ public class GoldAlignCam extends OpMode
         telemetry.addData("Status", "DogeCV 2019.1 - Gold Align Example");
 
         // Set up detector
-        detector = new GoldAlignDetector(); // Create detector
+        detector = new RoiGoldAlignDetector(); // Create detector
         detector.init(hardwareMap.appContext, CameraViewDisplay.getInstance()); // Initialize it with the app context and camera
         detector.useDefaults(); // Set detector to use default settings
 
@@ -58,6 +60,8 @@ public class GoldAlignCam extends OpMode
         detector.alignSize = 100; // How wide (in pixels) is the range in which the gold object will be aligned. (Represented by green bars in the preview)
         detector.alignPosOffset = 0; // How far from center frame to offset this alignment zone.
         detector.downscale = 0.4; // How much to downscale the input frames
+        detector.setRegionOfInterest(VISION_ROI_TOP, 1.0); // Only the rows the sample minerals can be in
+        detector.setFrameDivisor(VISION_FRAME_DIVISOR); // Skip frames the robot is too slow to need
 
         detector.areaScoringMethod = DogeCV.AreaScoringMethod.MAX_AREA; // Can also be PERFECT_AREA
         //detector.perfectAreaScorer.perfectArea = 10000; // if using PERFECT_AREA scoring
@@ -93,6 +97,8 @@ public class GoldAlignCam extends OpMode
     public void loop() {
         telemetry.addData("IsAligned" , detector.getAligned()); // Is the bot aligned with the gold mineral?
         telemetry.addData("X Pos" , detector.getXPosition()); // Gold X position.
+        telemetry.addData("Vision ms", "%.1f avg %.1f max", detector.getAverageProcessMs(), detector.getMaxProcessMs());
+        telemetry.addData("Frames", "%d processed %d skipped", detector.getProcessedFrames(), detector.getSkippedFrames());
     }
 
     /*
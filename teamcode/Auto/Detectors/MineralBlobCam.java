@@ -0,0 +1,75 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.robotcore.external.ClassFactory;
+import org.firstinspires.ftc.robotcore.external.navigation.VuforiaLocalizer;
+import org.firstinspires.ftc.robotcore.external.navigation.VuforiaLocalizer.CameraDirection;
+
+/**
+ * Shows what {@link MineralBlobDetector} sees through a {@link VisionPipeline},
+ * and what the pipeline costs: latency from capture to result, and how many
+ * frames the detector could not keep up with.
+ * <p>
+ * The loop only reads the pipeline's latest result, so its cycle time shows
+ * what a control loop running alongside vision would get.
+ */
+@TeleOp(name="Mineral Blob Camera", group="DogeCV")
+public class MineralBlobCam extends OpMode {
+    private static final String VUFORIA_KEY = "Ad9g5RD/////AAAAGda4OsPbykPeuG0EhWVFG9oU3hgL1Ix8WQbwpCo1KoiYlt3IgiwonNpbu6NKgDVSu4zuqOcOEPAqcT+GI+O3N4O9Nd+XtdiBI6s98/1sRq8Ocz3lfmRqo9vGJPFkoxro0s/JpQt4lg7c2GBMVZX/Ojwy9Nw09Zy7h5pVce2WQTZ8UqEOfPNjRdNFx9d2Pv9mouraYTLQtXvY/72cQok0k7RKoMI/BquzM5RkEXL/FJs3ZXDwsDruE6Th5+U3UIAP1rrvHq11zT7ApdR2RD/uzjIsd/gAYUdGCaJOMX3NpLz0Dr2FFezPy/pUDY88YBMCqWQH4JNikBQVDmANQ+NxH57ZNCISYwVoPOTupyAO8P+k";
+
+    static final int CAMERA_DECIMATION = 2;     // 1280x720 camera frames become 640x360
+    static final int RING_CAPACITY = 1;         // Always detect on the newest frame
+
+    private VuforiaLocalizer vuforia;
+    private MineralBlobDetector detector;
+    private VisionPipeline pipeline;
+    private final LoopTimer loopTimer = new LoopTimer();
+
+    @Override
+    public void init() {
+        VuforiaLocalizer.Parameters parameters = new VuforiaLocalizer.Parameters();
+        parameters.vuforiaLicenseKey = VUFORIA_KEY;
+        parameters.cameraDirection = CameraDirection.BACK;
+        vuforia = ClassFactory.getInstance().createVuforia(parameters);
+
+        detector = new MineralBlobDetector();
+        pipeline = new VisionPipeline(new VuforiaFrameSource(vuforia, CAMERA_DECIMATION), null, detector,
+                                      RING_CAPACITY);
+        pipeline.start();
+    }
+
+    @Override
+    public void init_loop() {
+        show();
+    }
+
+    @Override
+    public void loop() {
+        show();
+    }
+
+    private void show() {
+        loopTimer.tick();
+        final VisionPipeline.Result result = pipeline.getResult();
+        final long now = pipeline.getClock().nanoTime();
+        telemetry.addData("Reading", "%s (%.2f)", result.reading, result.weight);
+        telemetry.addData("Age", "%.0f ms, latency %.0f ms, detect %.1f ms",
+                          1e3 * result.ageSeconds(now), 1e3 * result.getLatencySeconds(), result.detectNanos * 1e-6);
+        telemetry.addData("Frames", "%d captured, %d detected, %d dropped, %d backpressure",
+                          pipeline.getCapturedFrames(), result.sequence,
+                          pipeline.getDroppedFrames(), pipeline.getBackpressure());
+        loopTimer.addTelemetry(telemetry);
+        if (pipeline.getErrors() > 0) {
+            telemetry.addData("Errors", "%d, last %s", pipeline.getErrors(), pipeline.getLastError());
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+}
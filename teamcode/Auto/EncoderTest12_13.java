@@ -11,6 +11,8 @@
  public class EncoderTest12_13  extends LinearOpMode {
 
      private ElapsedTime runtime = new ElapsedTime();
+     private HardwareSnapshot snapshot;
+     private MotionEngine motion;
 
      // Drive
      private DcMotor lf = null;
@@ -78,6 +80,10 @@
 
          telemetry.update();
 
+         snapshot = new HardwareSnapshot(lf, lr, rf, rr, null);
+         motion = new MotionEngine(lf, lr, rf, rr, snapshot, COUNTS_PER_INCH);
+         motion.setTurnSign(MotionEngine.turnSign(lf, rf)); // Which way turn power turns, from the reversed side
+
          waitForStart();
 
          //  **Check before testing/continuing**
@@ -113,76 +119,19 @@
      public void encoderDrive(double speed,
                               double leftFInches, double leftRInches, double rightFInches, double rightRInches,
                               double timeoutS) {
-         int newLeftFTarget;
-         int newLeftRTarget;
-         int newRightFTarget;
-         int newRightRTarget;
-
-         // Ensure that the opmode is still active
-         if (opModeIsActive()) {
-
-             // Determine new target position, and pass to motor controller
-             newLeftFTarget = lf.getCurrentPosition() + (int)(leftFInches * COUNTS_PER_INCH);
-             newLeftRTarget = lr.getCurrentPosition() + (int)(leftRInches * COUNTS_PER_INCH);
-             newRightFTarget = rf.getCurrentPosition() + (int)(rightFInches * COUNTS_PER_INCH);
-             newRightRTarget = rr.getCurrentPosition() + (int)(rightRInches * COUNTS_PER_INCH);
-
-             lf.setTargetPosition(newLeftFTarget);
-             lr.setTargetPosition(newLeftRTarget);
-             rf.setTargetPosition(newRightFTarget);
-             rr.setTargetPosition(newRightRTarget);
-
-             // Turn On RUN_TO_POSITION
-             lf.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-             lr.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-             rf.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-             rr.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-
-             // reset the timeout time and start motion.
-             runtime.reset();
-             lf.setPower(Math.abs(speed));
-             lr.setPower(Math.abs(speed));
-             rf.setPower(Math.abs(speed));
-             rr.setPower(Math.abs(speed));
-
-
-             // keep looping while we are still active, and there is time left, and both motors are running.
-             // Note: We use (isBusy() && isBusy()) in the loop test, which means that when EITHER motor hits
-             // its target position, the motion will stop.  This is "safer" in the event that the robot will
-             // always end the motion as soon as possible.
-             // However, if you require that BOTH motors have finished their moves before the robot continues
-             // onto the next step, use (isBusy() || isBusy()) in the loop test.
-             while (opModeIsActive() &&
-                   (runtime.seconds() < timeoutS) &&
-                   (lf.isBusy() && lr.isBusy() && rf.isBusy() && rr.isBusy())) {
-
-                 // Display it for the driver.
-     telemetry.addData("Path1",  "Running to %7d :%7d", newLeftFTarget, newLeftRTarget, newRightFTarget, newRightRTarget);
-     telemetry.addData("Path2",  "Running at %7d :%7d",
-                                             // lf.getCurrentPosition(),
-                                             // lr.getCurrentPosition(),
-                                             rf.getCurrentPosition());
-
-                                             // Test for right front level shifter,,, if it's working properly.
-                                             // Light turns on WITHOUT the encoder wires,,, it turns off if the encoder wire is plugged in.
-
-                                             // rr.getCurrentPosition());
-                 telemetry.update();
-             }
-
-             // Stop all motion;
-             lf.setPower(0);
-             lr.setPower(0);
-             rf.setPower(0);
-             rr.setPower(0);
-
-             // Turn off RUN_TO_POSITION
-             lf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-             lr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-             rf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-             rr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-
-             //  sleep(250);   // optional pause after each move
+         // Callers time their loops with runtime, which every move has always restarted.
+         runtime.reset();
+         motion.drive(speed, leftFInches, leftRInches, rightFInches, rightRInches, timeoutS);
+         waitForMotion();
+     }
+
+     /*
+      *  Run the MotionEngine until everything queued has finished, so the
+      *  step-by-step script above keeps its order.
+      */
+     private void waitForMotion() {
+         while (opModeIsActive() && motion.update()) {
+             idle();
          }
      }
  }
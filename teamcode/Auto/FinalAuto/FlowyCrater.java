@@ -29,6 +29,7 @@
 
 package org.firstinspires.ftc.teamcode;
 
+import com.qualcomm.hardware.bosch.BNO055IMU;
 import com.qualcomm.robotcore.eventloop.opmode.Disabled;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.hardware.DigitalChannel;
@@ -66,6 +67,10 @@ import org.firstinspires.ftc.robotcore.external.tfod.Recognition;
 public class FlowyCrater extends LinearOpMode {
   
     private ElapsedTime runtime = new ElapsedTime();
+    private MotionEngine motion;
+    private TrajectoryCache plans;
+    private Servo[] servoSlots;
+    private SamplingVoter voter;
     
     // Drive
     private DcMotor lf = null;
@@ -93,10 +98,13 @@ public class FlowyCrater extends LinearOpMode {
                                                       (WHEEL_DIAMETER_INCHES * 3.1415);
     static final double     DRIVE_SPEED             = 0.5; // Speed originally 0.9
     static final double     TURN_SPEED              = 0.2;
+    static final double     HEADING_GAIN            = 1.5; // Turn power per radian off heading
     
     private static final String TFOD_MODEL_ASSET = "RoverRuckus.tflite";
     private static final String LABEL_GOLD_MINERAL = "Gold Mineral";
     private static final String LABEL_SILVER_MINERAL = "Silver Mineral";
+    static final double SAMPLE_FALLBACK = 0.6; // Probability that will do once the 3 s are up
+    static final double PRE_START_HALF_LIFE = 2.0; // Seconds, so the init view follows the field
 
     /*
      * IMPORTANT: You need to obtain your own license key to use Vuforia. The string below with which
@@ -124,6 +132,10 @@ public class FlowyCrater extends LinearOpMode {
      */
     private TFObjectDetector tfod;
 
+    /** Reads the drive encoders and heading once per loop for encoderDrive. */
+    private HardwareSnapshot snapshot;
+    private BNO055IMU imu = null;
+
     @Override
     public void runOpMode() {
         // The TFObjectDetector uses the camera frames from the VuforiaLocalizer, so we create that
@@ -143,6 +155,10 @@ public class FlowyCrater extends LinearOpMode {
         Marker = hardwareMap.get(Servo.class, "Marker");
         AngleR = hardwareMap.get(Servo.class, "AngleR");
         AngleL = hardwareMap.get(Servo.class, "AngleL");
+
+        imu = Robot.initImu(hardwareMap);
+        snapshot = new HardwareSnapshot(lf, lr, rf, rr, imu);
+        snapshot.setReadGravity(false);
         
         lf.setDirection(DcMotor.Direction.REVERSE);
         lr.setDirection(DcMotor.Direction.REVERSE);
@@ -180,13 +196,44 @@ public class FlowyCrater extends LinearOpMode {
         /** Wait for the game to begin */
         telemetry.addData(">", "Press Play to start tracking");
         telemetry.update();
+        motion = new MotionEngine(lf, lr, rf, rr, snapshot, COUNTS_PER_INCH);
+        motion.setTurnSign(MotionEngine.turnSign(lf, rf)); // Which way turn power turns, from the reversed side
+        motion.setHeadingHold(HEADING_GAIN);
+
+        // Build (or load) every sampling path now so START only has to pick one.
+        servoSlots = new Servo[SamplingPlans.SERVO_COUNT];
+        servoSlots[SamplingPlans.MARKER] = Marker;
+        servoSlots[SamplingPlans.ANGLE_L] = AngleL;
+        servoSlots[SamplingPlans.ANGLE_R] = AngleR;
+        final ServoCalibration servoCalibration = ServoCalibration.load();
+        motion.addServoModel(servoCalibration.model("Marker", Marker, snapshot.getClock()));
+        motion.addServoModel(servoCalibration.model("AngleL", AngleL, snapshot.getClock()));
+        motion.addServoModel(servoCalibration.model("AngleR", AngleR, snapshot.getClock()));
+        plans = SamplingPlans.load();
+        voter = new SamplingVoter(LABEL_GOLD_MINERAL, snapshot.getClock());
+
+        // Sample while waiting for START so the answer is ready when the match begins.
+        if (tfod != null) {
+            tfod.activate();
+        }
+        voter.setHalfLife(PRE_START_HALF_LIFE);
+        while (!isStarted() && !isStopRequested()) {
+            if (tfod != null) {
+                List<Recognition> updatedRecognitions = tfod.getUpdatedRecognitions();
+                if (updatedRecognitions != null) {
+                    voter.addFrame(updatedRecognitions);
+                    telemetry.addData("Gold before start", "%s (%.0f%%)", voter.getLeader(),
+                                      100.0 * voter.getProbability(voter.getLeader()));
+                    telemetry.update();
+                }
+            }
+            idle();
+        }
+        final TrajectoryCache.Gold preStartGold = voter.getDecision();
+
         waitForStart();
 
         if (opModeIsActive()) {
-            /** Activate Tensor Flow Object Detection. */
-            if (tfod != null) {
-                tfod.activate();
-            }
             
           // Having this in the front delays the TF
           // Lift.setPower(-1);
@@ -198,296 +245,36 @@ public class FlowyCrater extends LinearOpMode {
           
           encoderDrive(DRIVE_SPEED, 2, 2, 2, 2, 1.0);
           
-            //              Next up is if its not visible, if it doesn't see, go down to this line... 1/13
+          // Use the answer from before START. If the view was blocked, vote over live frames
+          // for up to 3 seconds, deciding as soon as they agree.
+          TrajectoryCache.Gold gold = preStartGold;
+          voter.reset();
+          voter.setHalfLife(0.0);
           runtime.reset();
-          
-            while (opModeIsActive() && runtime.seconds() < 3.0 ) {
+
+            while (opModeIsActive() && runtime.seconds() < 3.0 && gold == TrajectoryCache.Gold.UNKNOWN) {
                 if (tfod != null) {
                     // getUpdatedRecognitions() will return null if no new information is available since
                     // the last time that call was made.
                     List<Recognition> updatedRecognitions = tfod.getUpdatedRecognitions();
                     if (updatedRecognitions != null) {
+                      voter.addFrame(updatedRecognitions);
+                      gold = voter.getDecision();
                       telemetry.addData("# Object Detected", updatedRecognitions.size());
-                      if (updatedRecognitions.size() == 2) {
-                        int goldMineralX = -1;
-                        int silverMineral1X = -1;
-                        int goldPosition = 0;
-                        
-                        for (Recognition recognition : updatedRecognitions) {
-                            
-                          if (recognition.getLabel().equals(LABEL_GOLD_MINERAL)) {
-                            goldMineralX = (int) recognition.getLeft();
-                          } 
-                          else if (silverMineral1X == -1) {
-                            silverMineral1X = (int) recognition.getLeft();
-                          } 
-                        
-                        } 
-                        // || silverMineral2X != -1
-                        if (goldMineralX != -1 && silverMineral1X != -1) {
-                          
-                          // Lowest point
-                          if (goldMineralX < silverMineral1X) {
-                            goldPosition = 2;
-                            telemetry.addData("Gold Mineral Position", "Center");
-                            // If gold is less than silver AND gold less than silver
-                            
-                            // Center
-                          }
-                          
-                          // Highest point 
-                          else if (goldMineralX > silverMineral1X) {
-                            goldPosition = 1;
-                            telemetry.addData("Gold Mineral Position", "Right");
-                            // If gold is greater than silver AND gold greater than silver
-                            // Right
-                          }
-                          
-                        }
-                        
-                        else {
-                            goldPosition = 3;
-                            telemetry.addData("Gold Mineral Position", "Left");
-                            
-                            // Left
-                          }
-                        
-                    // Wait for detection
-                    
-                    // runtime. Within 5 seconds or something then move onto this code
-        if (goldPosition == 1) {
-          telemetry.addData("Gold Mineral Position", "Right yay");
-          
-        // RIGHT //
-        Marker.setPosition(0.95);
-        
-        // Forward
-        encoderDrive(DRIVE_SPEED, 1, 1, 1, 1, 2.0);
-        sleep(50);
-        
-        // Strafe right 
-        encoderDrive(DRIVE_SPEED, 5, -5, -5, 5, 3.0);
-        sleep(50);
-        
-        // Forward
-        encoderDrive(DRIVE_SPEED, 4, 4, 4, 4, 2.0);
-        sleep(50);
-        
-        AngleL.setPosition(1.0);
-        AngleR.setPosition(0.15);
-        sleep(1000);
-        
-        // // Backward
-        // encoderDrive(DRIVE_SPEED, -2, -2, -2, -2, 1.0);
-        // sleep(50);
-        
-        // // Strafe left      to wall
-        // encoderDrive(DRIVE_SPEED, -20, 20, 20, -20, 3.0);
-        // sleep(50);
-        
-        // // Turn left
-        // encoderDrive(DRIVE_SPEED, 1.5, 1.5, -1.5, -1.5, 1.0);
-        
-        // // Strafe left      to wall
-        // encoderDrive(DRIVE_SPEED, -4, 4, 4, -4, 2.0);
-        // sleep(50);
-        
-        // // Strafe right
-        // encoderDrive(DRIVE_SPEED, 1.5, -1.5, -1.5, 1.5, 1.0);
-        
-        // // Backward  to depot
-        // encoderDrive(DRIVE_SPEED, -6, -6, -6, -6, 3.0);
-        
-        // // Strafe right
-        // encoderDrive(DRIVE_SPEED, 1.5, -1.5, -1.5, 1.5, 1.0);
-        
-        // // Turn right   for marker
-        // encoderDrive(DRIVE_SPEED, -4, -4, 4, 4, 1.0);
-        
-        // Marker
-        // Marker.setPosition(0.1);
-        // sleep(1500);
-        
-        // Marker.setPosition(0.9);
-        // sleep(1000);
-        
-                      
-                    }
-        else if (goldPosition == 2) {
-          telemetry.addData("Gold Mineral Position", "Center yay");
-        
-        // CENTER //
-        Marker.setPosition(0.95);
-        
-        // Forward  sample
-        encoderDrive(DRIVE_SPEED, 5, 5, 5, 5, 2.0);
-        sleep(50);
-        
-        AngleL.setPosition(1.0);
-        AngleR.setPosition(0.15);
-        sleep(1000);
-        
-        // // Backward
-        // encoderDrive(DRIVE_SPEED, -3, -3, -3, -3, 2.0);
-        // sleep(50);
-        
-        // // Strafe left      to wall
-        // encoderDrive(DRIVE_SPEED, -6, 6, 6, -6, 3.0);
-        // sleep(50);
-        
-        // // Turn left
-        // encoderDrive(DRIVE_SPEED, 2, 2, -2, -2, 1.0);
-        
-        // // Strafe left      to wall
-        // encoderDrive(DRIVE_SPEED, -7, 7, 7, -7, 3.0);
-        // sleep(50);
-        
-        // // Strafe right
-        // encoderDrive(DRIVE_SPEED, 1, -1, -1, 1, 1.0);
-        
-        // // Backward  to depot
-        // encoderDrive(DRIVE_SPEED, -13, -13, -13, -13, 3.0);
-        
-        // // Strafe right
-        // encoderDrive(DRIVE_SPEED, 1, -1, -1, 1, 1.0);
-        
-        // // Turn right   for marker
-        // encoderDrive(DRIVE_SPEED, -4, -4, 4, 4, 1.0);
-        
-        // // Marker
-        // Marker.setPosition(0.1);
-        // sleep(1500);
-        
-        // Marker.setPosition(0.9);
-        // sleep(1000);
-        
-        // // Turn right   for marker
-        // encoderDrive(DRIVE_SPEED, 4, 4, -4, -4, 1.0);
-        
-        
-                    }
-                    
-        else if (goldPosition == 3) {
-          telemetry.addData("Gold Mineral Position", "Left yay");
-          
-        
-        // LEFT //
-        Marker.setPosition(0.95);
-        
-        // Forward
-        encoderDrive(DRIVE_SPEED, 1, 1, 1, 1, 1.0);
-        
-        // Strafe left      to wall
-        encoderDrive(DRIVE_SPEED, -4, 4, 4, -4, 3.0);
-        sleep(50);
-        
-        // Forward
-        encoderDrive(DRIVE_SPEED, 4, 4, 4, 4, 2.0);
-        sleep(50);
-        
-        AngleL.setPosition(1.0);
-        AngleR.setPosition(0.15);
-        sleep(1000);
-        
-        // // Backward
-        // encoderDrive(DRIVE_SPEED, -2, -2, -2, -2, 1.0);
-        // sleep(50);
-        
-        // // Strafe left      to wall
-        // encoderDrive(DRIVE_SPEED, -8, 8, 8, -8, 3.0);
-        // sleep(50);
-        
-        // // Turn right
-        // encoderDrive(DRIVE_SPEED, 2, 2, -2, -2, 1.0);
-        
-        // // Strafe left      to wall
-        // encoderDrive(DRIVE_SPEED, -2, 2, 2, -2, 2.0);
-        // sleep(50);
-        
-        // // Strafe right
-        // encoderDrive(DRIVE_SPEED, 1.5, -1.5, -1.5, 1.5, 1.0);
-        
-        // // Backward  to depot
-        // encoderDrive(DRIVE_SPEED, -13, -13, -13, -13, 3.0);
-        
-        // // Strafe right
-        // encoderDrive(DRIVE_SPEED, 1.5, -1.5, -1.5, 1.5, 1.0);
-        
-        // // Turn right   for marker
-        // encoderDrive(DRIVE_SPEED, -4, -4, 4, 4, 1.0);
-        
-        // // Marker
-        // Marker.setPosition(0.1);
-        // sleep(1500);
-        
-        // Marker.setPosition(0.9);
-        // sleep(1000);
-        
-        // // Turn right   for marker
-        // encoderDrive(DRIVE_SPEED, 4, 4, -4, -4, 1.0);
-        
-      
-                     
-      }
-                  
-                    }
-                      }
-                      
+                      telemetry.addData("Frame", voter.getFrame(0));
                       telemetry.update();
                     }
-                    
-                
-                
+                }
             }
-            // If nothing is visible, will run this code instead as a safety net
-        telemetry.addData("Gold Mineral Position", "Center yay");
-        // CENTER //
-        Marker.setPosition(0.95);
-        
-        // Forward  sample
-        encoderDrive(DRIVE_SPEED, 5, 5, 5, 5, 2.0);
-        sleep(50);
-        
-        AngleL.setPosition(1.0);
-        AngleR.setPosition(0.15);
-        sleep(1000);
-        
-        // // Backward
-        // encoderDrive(DRIVE_SPEED, -2, -2, -2, -2, 1.0);
-        // sleep(50);
-        
-        // // Strafe left      to wall
-        // encoderDrive(DRIVE_SPEED, -6, 6, 6, -6, 3.0);
-        // sleep(50);
-        
-        // // Turn left
-        // encoderDrive(DRIVE_SPEED, 2, 2, -2, -2, 1.0);
-        
-        // // Strafe left      to wall
-        // encoderDrive(DRIVE_SPEED, -7, 7, 7, -7, 3.0);
-        // sleep(50);
-        
-        // // Strafe right
-        // encoderDrive(DRIVE_SPEED, 1, -1, -1, 1, 1.0);
-        
-        // // Backward  to depot
-        // encoderDrive(DRIVE_SPEED, -13, -13, -13, -13, 3.0);
-        
-        // // Strafe right
-        // encoderDrive(DRIVE_SPEED, 1, -1, -1, 1, 1.0);
-        
-        // // Turn right   for marker
-        // encoderDrive(DRIVE_SPEED, -4, -4, 4, 4, 1.0);
-        
-        // // Marker
-        // Marker.setPosition(0.1);
-        // sleep(1000);
-        
-        // Marker.setPosition(0.9);
-        // sleep(1000);
-        
-        // // Turn right   for marker
-        // encoderDrive(DRIVE_SPEED, 4, 4, -4, -4, 1.0);
+            if (gold == TrajectoryCache.Gold.UNKNOWN) {
+                // Out of time: go with a clear leader, or the UNKNOWN plan is the safety net.
+                gold = voter.getDecision(SAMPLE_FALLBACK);
+            }
+
+            // The path was built during init; all that is left is to drive it.
+            telemetry.addData("Gold Mineral Position", gold);
+            telemetry.update();
+            runPlan(plans.get(TrajectoryCache.Start.CRATER, gold));
         }
 
         if (tfod != null) {
@@ -527,72 +314,34 @@ public class FlowyCrater extends LinearOpMode {
     public void encoderDrive(double speed,
                              double leftFInches, double leftRInches, double rightFInches, double rightRInches,
                              double timeoutS) {
-        int newLeftFTarget;
-        int newLeftRTarget;
-        int newRightFTarget;
-        int newRightRTarget;
-
-        // Ensure that the opmode is still active
-        if (opModeIsActive()) {
+        // Callers time their loops with runtime, which every move has always restarted.
+        runtime.reset();
+        motion.drive(speed, leftFInches, leftRInches, rightFInches, rightRInches, timeoutS);
+        waitForMotion();
+    }
 
-            // Determine new target position, and pass to motor controller
-            newLeftFTarget = lf.getCurrentPosition() + (int)(leftFInches * COUNTS_PER_INCH);
-            newLeftRTarget = lr.getCurrentPosition() + (int)(leftRInches * COUNTS_PER_INCH);
-            newRightFTarget = rf.getCurrentPosition() + (int)(rightFInches * COUNTS_PER_INCH);
-            newRightRTarget = rr.getCurrentPosition() + (int)(rightRInches * COUNTS_PER_INCH);
-            
-            lf.setTargetPosition(newLeftFTarget);
-            lr.setTargetPosition(newLeftRTarget);
-            rf.setTargetPosition(newRightFTarget);
-            rr.setTargetPosition(newRightRTarget);
-
-            // Turn On RUN_TO_POSITION
-            lf.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-            lr.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-            rf.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-            rr.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-
-            // reset the timeout time and start motion.
-            runtime.reset();
-            lf.setPower(Math.abs(speed));
-            lr.setPower(Math.abs(speed));
-            rf.setPower(Math.abs(speed));
-            rr.setPower(Math.abs(speed));
-            
+    /*
+     *  Run the MotionEngine until everything queued has finished, so the
+     *  step-by-step script above keeps its order.
+     */
+    private void waitForMotion() {
+        while (opModeIsActive() && motion.update()) {
+            idle();
+        }
+    }
 
-            // keep looping while we are still active, and there is time left, and both motors are running.
-            // Note: We use (isBusy() && isBusy()) in the loop test, which means that when EITHER motor hits
-            // its target position, the motion will stop.  This is "safer" in the event that the robot will
-            // always end the motion as soon as possible.
-            // However, if you require that BOTH motors have finished their moves before the robot continues
-            // onto the next step, use (isBusy() || isBusy()) in the loop test.
-            while (opModeIsActive() &&
-                  (runtime.seconds() < timeoutS) &&
-                  (lf.isBusy() && lr.isBusy() && rf.isBusy() && rr.isBusy())) {
-
-                // Display it for the driver.
-    telemetry.addData("Path1",  "Running to %7d :%7d", newLeftFTarget, newLeftRTarget, newRightFTarget, newRightRTarget);
-    telemetry.addData("Path2",  "Running at %7d :%7d",
-                                            lf.getCurrentPosition(),
-                                            lr.getCurrentPosition(),
-                                            rf.getCurrentPosition(),
-                                            rr.getCurrentPosition());
-                telemetry.update();
+    /*
+     *  Drive a precomputed path one step at a time. A servo step does not hold
+     *  up the drive legs after it; the servos keep their own order and are
+     *  waited for at the end.
+     */
+    private void runPlan(TrajectoryCache.Plan plan) {
+        for (int step = 0; step < plan.size() && opModeIsActive(); ++step) {
+            plan.queue(step, motion, servoSlots);
+            while (opModeIsActive() && motion.update() && motion.isBusy(MotionEngine.Channel.DRIVE)) {
+                idle();
             }
-
-            // Stop all motion;
-            lf.setPower(0);
-            lr.setPower(0);
-            rf.setPower(0);
-            rr.setPower(0);
-
-            // Turn off RUN_TO_POSITION
-            lf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            lr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            rf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            rr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-
-            //  sleep(250);   // optional pause after each move
         }
+        waitForMotion();
     }
 }
@@ -33,8 +33,8 @@ import android.transition.Slide;
 
 import com.disnodeteam.dogecv.CameraViewDisplay;
 import com.disnodeteam.dogecv.DogeCV;
-import com.disnodeteam.dogecv.detectors.roverrukus.GoldAlignDetector;
 import com.disnodeteam.dogecv.detectors.roverrukus.SamplingOrderDetector;
+import com.qualcomm.hardware.bosch.BNO055IMU;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
@@ -48,8 +48,14 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 public class GoldAlignMineCrater extends LinearOpMode {
     // Detector object
-    private GoldAlignDetector detector;
+    private RoiGoldAlignDetector detector;
     private ElapsedTime runtime = new ElapsedTime();
+    private MotionEngine motion;
+    /** Gold reading tagged with where it was taken; pauses the detector while it holds. */
+    private VisionCache vision;
+    private Condition visionReady;
+    /** Strafes onto the gold by the camera rather than by a fixed distance. */
+    private GoldAlignServo goldServo;
 
     // Drive
     private DcMotor lf = null;
@@ -74,7 +80,28 @@ public class GoldAlignMineCrater extends LinearOpMode {
             (WHEEL_DIAMETER_INCHES * 3.1415);
     static final double DRIVE_SPEED = 0.5; // Speed originally 0.9
     static final double TURN_SPEED = 0.3;
+    static final double HEADING_GAIN = 1.5; // Turn power per radian off heading
+    static final double SETTLED_IPS = 1.0;  // Wheel speed that counts as stopped
     static final double LIFT_SPEED = 1.0;
+    static final double VISION_ROI_TOP = 0.4;        // Fraction of the frame above the sample minerals
+    static final int    VISION_FRAME_DIVISOR = 2;    // Process every other camera frame
+    static final double VISION_TIMEOUT = 1.0;        // Longest to wait for a fresh reading, seconds
+    static final double TRACK_WIDTH = 14.0;          // Inches between left and right wheels
+    static final double WHEEL_BASE = 12.0;           // Inches between front and rear wheels
+    static final double ALIGN_SPEED = 0.4;           // Most strafe power while centering on the gold
+    static final double ALIGN_SEARCH_SPEED = 0.25;   // Strafe power while the gold is out of view
+    static final double ALIGN_TIMEOUT = 3.0;         // Longest to spend centering, seconds
+    static final double CAMERA_OFFSET = -2.5;        // Strafe from camera on the gold to pusher on the gold, inches
+
+    /** Reads the drive encoders and heading once per loop for encoderDrive. */
+    private HardwareSnapshot snapshot;
+    private Waiter waiter;
+    private Condition driveStopped;
+    /** Bucket servos, timed so waits end when they arrive rather than after a guess. */
+    private ServoModel angleLModel;
+    private ServoModel angleRModel;
+    private Condition bucketArrived;
+    private BNO055IMU imu = null;
 
 
     public void runOpMode() {
@@ -91,6 +118,10 @@ public class GoldAlignMineCrater extends LinearOpMode {
         AngleR = hardwareMap.get(Servo.class, "AngleR");
         AngleL = hardwareMap.get(Servo.class, "AngleL");
 
+        imu = Robot.initImu(hardwareMap);
+        snapshot = new HardwareSnapshot(lf, lr, rf, rr, imu);
+        snapshot.setReadGravity(false);
+
         inTake.setDirection(DcMotor.Direction.FORWARD);
         Lift.setDirection(DcMotor.Direction.FORWARD);
         Slide.setDirection(DcMotor.Direction.REVERSE);
@@ -126,7 +157,7 @@ public class GoldAlignMineCrater extends LinearOpMode {
         telemetry.addData("Status", "DogeCV 2019.1 - Gold Align Example");
 
         // Set up detector
-        detector = new GoldAlignDetector(); // Create detector
+        detector = new RoiGoldAlignDetector(); // Create detector
         detector.init(hardwareMap.appContext, CameraViewDisplay.getInstance()); // Initialize it with the app context and camera
         detector.useDefaults(); // Set detector to use default settings
 
@@ -134,6 +165,8 @@ public class GoldAlignMineCrater extends LinearOpMode {
         detector.alignSize = 100; // How wide (in pixels) is the range in which the gold object will be aligned. (Represented by green bars in the preview)
         detector.alignPosOffset = 0; // How far from center frame to offset this alignment zone.
         detector.downscale = 0.4; // How much to downscale the input frames
+        detector.setRegionOfInterest(VISION_ROI_TOP, 1.0); // Only the rows the sample minerals can be in
+        detector.setFrameDivisor(VISION_FRAME_DIVISOR); // Skip frames the robot is too slow to need
 
         detector.areaScoringMethod = DogeCV.AreaScoringMethod.MAX_AREA; // Can also be PERFECT_AREA
         //detector.perfectAreaScorer.perfectArea = 10000; // if using PERFECT_AREA scoring
@@ -149,6 +182,29 @@ public class GoldAlignMineCrater extends LinearOpMode {
             }
 
 //        detector.enable(); // Start the detector!
+            motion = new MotionEngine(lf, lr, rf, rr, snapshot, COUNTS_PER_INCH);
+            motion.setTurnSign(MotionEngine.turnSign(lf, rf)); // Which way turn power turns, from the reversed side
+            motion.setHeadingHold(HEADING_GAIN);
+            final PoseTracker poseTracker = new PoseTracker(new MecanumKinematics(TRACK_WIDTH, WHEEL_BASE), COUNTS_PER_INCH);
+            motion.setPoseTracker(poseTracker, true);
+            vision = new VisionCache(detector, poseTracker, snapshot.getClock(), VISION_FRAME_DIVISOR);
+            visionReady = Conditions.visionCached(vision);
+            goldServo = new GoldAlignServo(detector, COUNTS_PER_INCH, ALIGN_SPEED, ALIGN_SEARCH_SPEED, 0.0,
+                    snapshot.getClock());
+            goldServo.setTurnSign(motion.getTurnSign());
+            waiter = new Waiter(this, snapshot.getClock(), new Runnable() {
+                @Override
+                public void run() {
+                    motion.update();
+                }
+            });
+            driveStopped = Conditions.driveStopped(snapshot, SETTLED_IPS, COUNTS_PER_INCH);
+            final ServoCalibration servoCalibration = ServoCalibration.load();
+            angleLModel = servoCalibration.model("AngleL", AngleL, snapshot.getClock());
+            angleRModel = servoCalibration.model("AngleR", AngleR, snapshot.getClock());
+            bucketArrived = Conditions.servosArrived(angleLModel, angleRModel);
+            motion.setLift(Lift, LiftController.COUNTS_PER_INCH);
+
             waitForStart();
             runtime.reset();
 
@@ -159,12 +215,12 @@ public class GoldAlignMineCrater extends LinearOpMode {
 //        // Lift stop
 //        Lift.setPower(0);
 //        sleep(50);
-//        encoderLift(LIFT_SPEED, 23, 5.0);
+//        encoderLift(LIFT_SPEED, 7.2, 5.0); // 2050 counts, the 23 in this was at the drive's counts per inch
 
         // Up
-        AngleL.setPosition(1.0);
-        AngleR.setPosition(0.15);
-        sleep(1000);
+        angleLModel.setPosition(1.0);
+        angleRModel.setPosition(0.15);
+        waitForBucket(1000);
 
         // Strafe right
 //        encoderDrive(TURN_SPEED, 3, -3, -3, 3, 2.0);
@@ -175,18 +231,20 @@ public class GoldAlignMineCrater extends LinearOpMode {
             // If its aligned == gold position MIDDLE
             // If its NOT aligned == gold position RIGHT
             // If its not found == gold position LEFT
+            // Read the minerals once from here; the detector then rests until the robot moves.
+            waiter.waitUntil("vision", visionReady, VISION_TIMEOUT, 0.0);
             while (opModeIsActive() && runtime.seconds() < 2.0) {
-                if (detector.isFound()) {
+                if (vision.isFound()) {
                 // if else, else statements
-                    if (detector.getAligned()) { // gold MID
+                    if (vision.getAligned()) { // gold MID
                         telemetry.addData("Aligned?", "YES");
-                        telemetry.addData("X Pos", detector.getXPosition()); // Gold X position.
+                        telemetry.addData("X Pos", vision.getXPosition()); // Gold X position.
 
                         // Forward
                         encoderDrive(DRIVE_SPEED, 5, 5, 5, 5, 2.0);
 
                         // Strafe left
-                        encoderDrive(TURN_SPEED, -2.5, 2.5, 2.5, -2.5, 2.0);
+                        alignOnGold(-2.5, 0.0);
 
                         // Forward
                         encoderDrive(DRIVE_SPEED, 9, 9, 9, 9, 2.0);
@@ -214,13 +272,13 @@ public class GoldAlignMineCrater extends LinearOpMode {
 
                         // Forward
                         encoderDrive(DRIVE_SPEED, 27, 27, 27, 27, 3.0);
-                        sleep(50);
+                        settle(50);
 
 
                         // Half way
-                        AngleL.setPosition(0.5);
-                        AngleR.setPosition(0.5);
-                        sleep(2000);
+                        angleLModel.setPosition(0.5);
+                        angleRModel.setPosition(0.5);
+                        waitForBucket(2000);
 
                         // inTake Out
                         inTake.setPower(1);
@@ -229,93 +287,92 @@ public class GoldAlignMineCrater extends LinearOpMode {
                         inTake.setPower(0);
                         sleep(10);
 
-                        // Up
-                        AngleL.setPosition(1.0);
-                        AngleR.setPosition(0.15);
-                        sleep(1000);
+                        // Up, while backing away
+                        angleLModel.setPosition(1.0);
+                        angleRModel.setPosition(0.15);
 
 
                         // Backward
                         encoderDrive(DRIVE_SPEED, -22, -22, -22, -22, 4.0);
-                        sleep(10);
+                        settle(10);
 
                         // Strafe right SLOW
                         encoderDrive(DRIVE_SPEED, 4, -4, -4, 4, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Strafe left
                         encoderDrive(TURN_SPEED, -6, 6, 6, -6, 2.0);
-                        sleep(10);
+                        settle(10);
 
                         // Turn left
                         encoderDrive(DRIVE_SPEED, -30, -30, 30, 30, 4.0);
-                        sleep(10);
+                        settle(10);
 
                         // Foward
                         encoderDrive(DRIVE_SPEED, 15, 15, 15, 15, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Down
-                        AngleL.setPosition(0.24);
-                        AngleR.setPosition(0.86);
-                        sleep(1000);
+                        angleLModel.setPosition(0.24);
+                        angleRModel.setPosition(0.86);
+                        waitForBucket(1000);
                         sleep(5000);
 
                     }
 
-                    if (!detector.getAligned()) { // gold RIGHT
+                    if (!vision.getAligned()) { // gold RIGHT
                         telemetry.addData("Aligned?", "NO");
-                        telemetry.addData("X Pos", detector.getXPosition()); // Gold X position.
+                        telemetry.addData("X Pos", vision.getXPosition()); // Gold X position.
 
                         // Forward
                         encoderDrive(DRIVE_SPEED, 7, 7, 7, 7, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Strafe right
-                        encoderDrive(DRIVE_SPEED, 10, -10, -10, 10, 3.0);
-                        sleep(10);
+                        alignOnGold(10, 1.0);
+                        settle(10);
 
                         // Forward
                         encoderDrive(DRIVE_SPEED, 9, 9, 9, 9, 2.0);
-                        sleep(10);
+                        settle(10);
 
                         // Backward
                         encoderDrive(DRIVE_SPEED, -7, -7, -7, -7, 2.0);
-                        sleep(10);
+                        settle(10);
 
                         // // Turn left
                         encoderDrive(DRIVE_SPEED, -12, -12, 12, 12, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Forward
                         encoderDrive(DRIVE_SPEED, 31, 31, 31, 31, 4.0);
-                        sleep(10);
+                        settle(10);
 
                         // Turn left
                         encoderDrive(DRIVE_SPEED, -8, -8, 8, 8, 2.0);
-                        sleep(10);
+                        settle(10);
 
                         // Strafe right SLOW
                         encoderDrive(TURN_SPEED, 12, -12, -12, 12, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Strafe right
                         encoderDrive(DRIVE_SPEED, 4, -4, -4, 4, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Strafe left
                         encoderDrive(TURN_SPEED, -3, 3, 3, -3, 2.0);
-                        sleep(10);
+                        settle(10);
 
                         // Forward
                         encoderDrive(DRIVE_SPEED, 26, 26, 26, 26, 3.0);
-                        sleep(50);
+                        settle(50);
 
 
                         // Half way
-                        AngleL.setPosition(0.5);
-                        AngleR.setPosition(0.5);
-                        sleep(2000);
+                        angleLModel.setPosition(0.5);
+                        angleRModel.setPosition(0.5);
+                        waitForBucket(2000);
 
                         // inTake Out
                         inTake.setPower(1);
@@ -324,36 +381,35 @@ public class GoldAlignMineCrater extends LinearOpMode {
                         inTake.setPower(0);
                         sleep(10);
 
-                        // Up
-                        AngleL.setPosition(1.0);
-                        AngleR.setPosition(0.15);
-                        sleep(1000);
+                        // Up, while backing away
+                        angleLModel.setPosition(1.0);
+                        angleRModel.setPosition(0.15);
 
 
                         // Backward
                         encoderDrive(DRIVE_SPEED, -24, -24, -24, -24, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Strafe right SLOW
                         encoderDrive(DRIVE_SPEED, 4, -4, -4, 4, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Strafe left
                         encoderDrive(TURN_SPEED, -6, 6, 6, -6, 2.0);
-                        sleep(10);
+                        settle(10);
 
                         // Turn left
                         encoderDrive(DRIVE_SPEED, -30, -30, 30, 30, 4.0);
-                        sleep(10);
+                        settle(10);
 
                         // Foward
                         encoderDrive(DRIVE_SPEED, 16, 16, 16, 16, 3.0);
-                        sleep(10);
+                        settle(10);
 
                         // Down
-                        AngleL.setPosition(0.24);
-                        AngleR.setPosition(0.86);
-                        sleep(1000);
+                        angleLModel.setPosition(0.24);
+                        angleRModel.setPosition(0.86);
+                        waitForBucket(1000);
                         sleep(5000);
 
                     }
@@ -361,13 +417,13 @@ public class GoldAlignMineCrater extends LinearOpMode {
 
                 else { // gold LEFT
                     telemetry.addData("Aligned?", "NO");
-                    telemetry.addData("X Pos", detector.getXPosition()); // Gold X position.
+                    telemetry.addData("X Pos", vision.getXPosition()); // Gold X position.
 
                     // Forward
                     encoderDrive(DRIVE_SPEED, 8, 8, 8, 8, 2.0);
 
                     // Strafe left
-                    encoderDrive(TURN_SPEED, -15, 15, 15, -15, 3.0);
+                    alignOnGold(-15, -1.0);
 
                     // Forward
                     encoderDrive(DRIVE_SPEED, 7, 7, 7, 7, 2.0);
@@ -395,13 +451,13 @@ public class GoldAlignMineCrater extends LinearOpMode {
 
                     // Forward
                     encoderDrive(DRIVE_SPEED, 27, 27, 27, 27, 3.0);
-                    sleep(50);
+                    settle(50);
 
 
                     // Half way
-                    AngleL.setPosition(0.5);
-                    AngleR.setPosition(0.5);
-                    sleep(2000);
+                    angleLModel.setPosition(0.5);
+                    angleRModel.setPosition(0.5);
+                    waitForBucket(2000);
 
                     // inTake Out
                     inTake.setPower(1);
@@ -410,36 +466,35 @@ public class GoldAlignMineCrater extends LinearOpMode {
                     inTake.setPower(0);
                     sleep(10);
 
-                    // Up
-                    AngleL.setPosition(1.0);
-                    AngleR.setPosition(0.15);
-                    sleep(1000);
+                    // Up, while backing away
+                    angleLModel.setPosition(1.0);
+                    angleRModel.setPosition(0.15);
 
 
                     // Backward
                     encoderDrive(DRIVE_SPEED, -24, -24, -24, -24, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe right SLOW
                     encoderDrive(DRIVE_SPEED, 4, -4, -4, 4, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe left
                     encoderDrive(TURN_SPEED, -6, 6, 6, -6, 2.0);
-                    sleep(10);
+                    settle(10);
 
                     // Turn left
                     encoderDrive(DRIVE_SPEED, -30, -30, 30, 30, 4.0);
-                    sleep(10);
+                    settle(10);
 
                     // Foward
                     encoderDrive(DRIVE_SPEED, 16, 16, 16, 16, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Down
-                    AngleL.setPosition(0.24);
-                    AngleR.setPosition(0.86);
-                    sleep(1000);
+                    angleLModel.setPosition(0.24);
+                    angleRModel.setPosition(0.86);
+                    waitForBucket(1000);
                     sleep(5000);
 
                 }
@@ -449,118 +504,62 @@ public class GoldAlignMineCrater extends LinearOpMode {
         }
         }
 
-        public void encoderDrive(double speed, double leftFInches, double leftRInches, double rightFInches, double rightRInches, double timeoutS) {
-            int newLeftFTarget;
-            int newLeftRTarget;
-            int newRightFTarget;
-            int newRightRTarget;
-
-            // Ensure that the opmode is still active
-            if (opModeIsActive()) {
-
-                // Determine new target position, and pass to motor controller
-                newLeftFTarget = lf.getCurrentPosition() + (int)(leftFInches * COUNTS_PER_INCH);
-                newLeftRTarget = lr.getCurrentPosition() + (int)(leftRInches * COUNTS_PER_INCH);
-                newRightFTarget = rf.getCurrentPosition() + (int)(rightFInches * COUNTS_PER_INCH);
-                newRightRTarget = rr.getCurrentPosition() + (int)(rightRInches * COUNTS_PER_INCH);
-
-                lf.setTargetPosition(newLeftFTarget);
-                lr.setTargetPosition(newLeftRTarget);
-                rf.setTargetPosition(newRightFTarget);
-                rr.setTargetPosition(newRightRTarget);
-
-                // Turn On RUN_TO_POSITION
-                lf.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-                lr.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-                rf.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-                rr.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-
-                // reset the timeout time and start motion.
-                runtime.reset();
-                lf.setPower(Math.abs(speed));
-                lr.setPower(Math.abs(speed));
-                rf.setPower(Math.abs(speed));
-                rr.setPower(Math.abs(speed));
-
-
-                // keep looping while we are still active, and there is time left, and both motors are running.
-                // Note: We use (isBusy() && isBusy()) in the loop test, which means that when EITHER motor hits
-                // its target position, the motion will stop.  This is "safer" in the event that the robot will
-                // always end the motion as soon as possible.
-                // However, if you require that BOTH motors have finished their moves before the robot continues
-                // onto the next step, use (isBusy() || isBusy()) in the loop test.
-                while (opModeIsActive() &&
-                        (runtime.seconds() < timeoutS) &&
-                        (lf.isBusy() && lr.isBusy() && rf.isBusy() && rr.isBusy())) {
-
-                    // Display it for the driver.
-//                    telemetry.addData("Path1",  "Running to %7d :%7d", newLeftFTarget, newLeftRTarget, newRightFTarget, newRightRTarget);
-//                    telemetry.addData("Path2",  "Running at %7d :%7d",
-//                            lf.getCurrentPosition(),
-//                            lr.getCurrentPosition(),
-//                            rf.getCurrentPosition(),
-//                            rr.getCurrentPosition());
-//                    telemetry.update();
-                }
-
-                // Stop all motion;
-                lf.setPower(0);
-                lr.setPower(0);
-                rf.setPower(0);
-                rr.setPower(0);
-
-                // Turn off RUN_TO_POSITION
-                lf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-                lr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-                rf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-                rr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-
-                //  sleep(250);   // optional pause after each move
+        public void encoderDrive(double speed,
+                                 double leftFInches, double leftRInches, double rightFInches, double rightRInches,
+                                 double timeoutS) {
+            // Callers time their loops with runtime, which every move has always restarted.
+            runtime.reset();
+            motion.drive(speed, leftFInches, leftRInches, rightFInches, rightRInches, timeoutS);
+            waitForMotion();
+        }
+        public void encoderLift(double speed, double liftInch, double timeoutSS) {
+            runtime.reset();
+            motion.lift(speed, liftInch, timeoutSS);
+            waitForMotion();
         }
-    }
-    public void encoderLift(double speed, double liftInch, double timeoutSS) {
-        int newLiftInch;
-
-        // Ensure that the opmode is still active
-        if (opModeIsActive()) {
-
-            // Determine new target position, and pass to motor controller
-            newLiftInch = Lift.getCurrentPosition() + (int)(liftInch * COUNTS_PER_INCH);
-
-            Lift.setTargetPosition(newLiftInch);
-
-            // Turn On RUN_TO_POSITION
-            Lift.setMode(DcMotor.RunMode.RUN_TO_POSITION);
 
-            // reset the timeout time and start motion.
+        /*
+         *  Strafe until the camera is centered on the gold, then on by the
+         *  camera's offset so the robot pushes it squarely. If the gold never
+         *  centers, finish the strafe the script used to do blind, less what
+         *  the servo already covered.
+         */
+        private void alignOnGold(double nominalInches, double searchDirection) {
             runtime.reset();
-            Lift.setPower(Math.abs(speed));
-
-            // keep looping while we are still active, and there is time left, and both motors are running.
-            // Note: We use (isBusy() && isBusy()) in the loop test, which means that when EITHER motor hits
-            // its target position, the motion will stop.  This is "safer" in the event that the robot will
-            // always end the motion as soon as possible.
-            // However, if you require that BOTH motors have finished their moves before the robot continues
-            // onto the next step, use (isBusy() || isBusy()) in the loop test.
-            while (opModeIsActive() &&
-                    (runtime.seconds() < timeoutSS) &&
-                    (Lift.isBusy())) {
-
-                // Display it for the driver.
-//                telemetry.addData("Path1",  "Running to %7d :%7d", newLiftInch);
-//                telemetry.addData("Path2",  "Running at %7d :%7d",
-//                        Lift.getCurrentPosition(),
-//                        telemetry.update());
-                telemetry.addData("Hello", "Lift is running");
-            }
+            vision.setLive(true);
+            goldServo.setSearchDirection(searchDirection);
+            motion.steer(goldServo, ALIGN_TIMEOUT);
+            waitForMotion();
+            vision.setLive(false);
+
+            final double rest = goldServo.isAligned() ? CAMERA_OFFSET : nominalInches - goldServo.getStrafeInches();
+            telemetry.addData("Gold align", goldServo.isAligned() ? "camera" : "fallback");
+            encoderDrive(TURN_SPEED, rest, -rest, -rest, rest, 2.0);
+        }
 
-            // Stop all motion;
-            Lift.setPower(0);
+        /*
+         *  Wait for the drive to stop rolling before the next leg, for no longer
+         *  than the sleep that used to sit here.
+         */
+        private void settle(long replacedMillis) {
+            waiter.waitUntil("settle", driveStopped, replacedMillis / 1000.0, replacedMillis / 1000.0);
+        }
 
-            // Turn off RUN_TO_POSITION
-            Lift.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            //  sleep(250);   // optional pause after each move
+        /*
+         *  Wait for both bucket servos to reach their positions, for no longer
+         *  than the sleep that used to sit here.
+         */
+        private void waitForBucket(long replacedMillis) {
+            waiter.waitUntil("bucket", bucketArrived, replacedMillis / 1000.0, replacedMillis / 1000.0);
+        }
 
+        /*
+         *  Run the MotionEngine until everything queued has finished, so the
+         *  step-by-step script above keeps its order.
+         */
+        private void waitForMotion() {
+            while (opModeIsActive() && motion.update()) {
+                idle();
+            }
         }
-    }
 }
\ No newline at end of file
@@ -33,8 +33,8 @@ import android.transition.Slide;
 
 import com.disnodeteam.dogecv.CameraViewDisplay;
 import com.disnodeteam.dogecv.DogeCV;
-import com.disnodeteam.dogecv.detectors.roverrukus.GoldAlignDetector;
 import com.disnodeteam.dogecv.detectors.roverrukus.SamplingOrderDetector;
+import com.qualcomm.hardware.bosch.BNO055IMU;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
@@ -48,8 +48,21 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 public class GoldAlignMineDepot extends LinearOpMode {
     // Detector object
-    private GoldAlignDetector detector;
+    private RoiGoldAlignDetector detector;
     private ElapsedTime runtime = new ElapsedTime();
+    private HardwareSnapshot snapshot;
+    private Waiter waiter;
+    private Condition driveStopped;
+    /** Bucket servos, timed so waits end when they arrive rather than after a guess. */
+    private ServoModel angleLModel;
+    private ServoModel angleRModel;
+    private Condition bucketArrived;
+    private CommandScheduler scheduler;
+    private BNO055IMU imu = null;
+    private MotionEngine motion;
+    /** Gold reading tagged with where it was taken; pauses the detector while it holds. */
+    private VisionCache vision;
+    private Condition visionReady;
 
     // Drive
     private DcMotor lf = null;
@@ -74,7 +87,14 @@ public class GoldAlignMineDepot extends LinearOpMode {
             (WHEEL_DIAMETER_INCHES * 3.1415);
     static final double DRIVE_SPEED = 0.5; // Speed originally 0.9
     static final double TURN_SPEED = 0.3;
+    static final double HEADING_GAIN = 1.5; // Turn power per radian off heading
+    static final double SETTLED_IPS = 1.0;  // Wheel speed that counts as stopped
     static final double LIFT_SPEED = 1.0;
+    static final double VISION_ROI_TOP = 0.4;        // Fraction of the frame above the sample minerals
+    static final int    VISION_FRAME_DIVISOR = 2;    // Process every other camera frame
+    static final double VISION_TIMEOUT = 1.0;        // Longest to wait for a fresh reading, seconds
+    static final double TRACK_WIDTH = 14.0;          // Inches between left and right wheels
+    static final double WHEEL_BASE = 12.0;           // Inches between front and rear wheels
     static final double  EIGHT_SPEED = 0.8;
 
 
@@ -128,7 +148,7 @@ public class GoldAlignMineDepot extends LinearOpMode {
         telemetry.addData("Status", "DogeCV 2019.1 - Gold Align Example");
 
         // Set up detector
-        detector = new GoldAlignDetector(); // Create detector
+        detector = new RoiGoldAlignDetector(); // Create detector
         detector.init(hardwareMap.appContext, CameraViewDisplay.getInstance()); // Initialize it with the app context and camera
         detector.useDefaults(); // Set detector to use default settings
 
@@ -136,6 +156,8 @@ public class GoldAlignMineDepot extends LinearOpMode {
         detector.alignSize = 100; // How wide (in pixels) is the range in which the gold object will be aligned. (Represented by green bars in the preview)
         detector.alignPosOffset = 0; // How far from center frame to offset this alignment zone.
         detector.downscale = 0.4; // How much to downscale the input frames
+        detector.setRegionOfInterest(VISION_ROI_TOP, 1.0); // Only the rows the sample minerals can be in
+        detector.setFrameDivisor(VISION_FRAME_DIVISOR); // Skip frames the robot is too slow to need
 
         detector.areaScoringMethod = DogeCV.AreaScoringMethod.MAX_AREA; // Can also be PERFECT_AREA
         //detector.perfectAreaScorer.perfectArea = 10000; // if using PERFECT_AREA scoring
@@ -151,15 +173,45 @@ public class GoldAlignMineDepot extends LinearOpMode {
         }
 
 //        detector.enable(); // Start the detector!
+        imu = Robot.initImu(hardwareMap);
+        snapshot = new HardwareSnapshot(lf, lr, rf, rr, imu);
+        snapshot.setReadGravity(false);
+        motion = new MotionEngine(lf, lr, rf, rr, snapshot, COUNTS_PER_INCH);
+        motion.setTurnSign(MotionEngine.turnSign(lf, rf)); // Which way turn power turns, from the reversed side
+        motion.setHeadingHold(HEADING_GAIN);
+        final PoseTracker poseTracker = new PoseTracker(new MecanumKinematics(TRACK_WIDTH, WHEEL_BASE), COUNTS_PER_INCH);
+        motion.setPoseTracker(poseTracker, true);
+        vision = new VisionCache(detector, poseTracker, snapshot.getClock(), VISION_FRAME_DIVISOR);
+        visionReady = Conditions.visionCached(vision);
+        waiter = new Waiter(this, snapshot.getClock(), new Runnable() {
+            @Override
+            public void run() {
+                motion.update();
+            }
+        });
+        driveStopped = Conditions.driveStopped(snapshot, SETTLED_IPS, COUNTS_PER_INCH);
+        final ServoCalibration servoCalibration = ServoCalibration.load();
+        angleLModel = servoCalibration.model("AngleL", AngleL, snapshot.getClock());
+        angleRModel = servoCalibration.model("AngleR", AngleR, snapshot.getClock());
+        bucketArrived = Conditions.servosArrived(angleLModel, angleRModel);
+        motion.setLift(Lift, LiftController.COUNTS_PER_INCH);
+        scheduler = new CommandScheduler(snapshot.getClock());
+        scheduler.addPeriodic(new Runnable() {
+            @Override
+            public void run() {
+                motion.update();
+            }
+        });
+
         waitForStart();
         runtime.reset();
 
-//        encoderLift(LIFT_SPEED, 23, 5.0);
+//        encoderLift(LIFT_SPEED, 7.2, 5.0); // 2050 counts, the 23 in this was at the drive's counts per inch
 
         // Up
-        AngleL.setPosition(1.0);
-        AngleR.setPosition(0.15);
-        sleep(1000);
+        angleLModel.setPosition(1.0);
+        angleRModel.setPosition(0.15);
+        waitForBucket(1000);
 
         // Strafe right
 //        encoderDrive(TURN_SPEED, 3, -3, -3, 3, 2.0);
@@ -169,173 +221,137 @@ public class GoldAlignMineDepot extends LinearOpMode {
         // If its aligned == gold position MIDDLE
         // If its NOT aligned == gold position RIGHT
         // If its not found == gold position LEFT
+        // Read the minerals once from here; the detector then rests until the robot moves.
+        waiter.waitUntil("vision", visionReady, VISION_TIMEOUT, 0.0);
         while (opModeIsActive() && runtime.seconds() < 2.0) {
-            if (detector.isFound()) {
+            if (vision.isFound()) {
                 // if else, else statements
-                if (detector.getAligned()) { // gold MID
+                if (vision.getAligned()) { // gold MID
                     telemetry.addData("Aligned?", "YES");
-                    telemetry.addData("X Pos", detector.getXPosition()); // Gold X position.
+                    telemetry.addData("X Pos", vision.getXPosition()); // Gold X position.
                     // Forward
                     encoderDrive(DRIVE_SPEED, 11, 11, 11, 11, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe left SLOW
                     encoderDrive(DRIVE_SPEED, -4, 4, 4, -4, 2.0);
-                    sleep(10);
+                    settle(10);
 
                     // Forward
                     encoderDrive(DRIVE_SPEED, 13, 13, 13, 13, 3.0);
-                    sleep(10);
-
-                    // Half way
-                    AngleL.setPosition(0.5);
-                    AngleR.setPosition(0.5);
-                    sleep(2000);
-
-                    // inTake Out
-                    inTake.setPower(1);
-                    sleep(1000);
+                    settle(10);
 
-                    inTake.setPower(0);
-                    sleep(10);
-
-                    // Up
-                    AngleL.setPosition(1.0);
-                    AngleR.setPosition(0.15);
-                    sleep(1000);
-
-
-                    // Backward
-                    encoderDrive(DRIVE_SPEED, -17, -17, -17, -17, 3.0);
-                    sleep(10);
+                    // Dump half way, then back up while the bucket comes up
+                    depositAndBackUp(-17, 3.0);
+                    settle(10);
 
                     // Turn right
                     encoderDrive(DRIVE_SPEED, -13, -13, 13, 13, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Forward
                     encoderDrive(DRIVE_SPEED, 23, 23, 23, 23, 5.0);
-                    sleep(10);
+                    settle(10);
 
                     // Turn right
                     encoderDrive(DRIVE_SPEED, -7, -7, 7, 7, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe right SLOW
                     encoderDrive(TURN_SPEED, 12, -12, -12, 12, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe right
                     encoderDrive(DRIVE_SPEED, 4, -4, -4, 4, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe left
                     encoderDrive(TURN_SPEED, -2, 2, 2, -2, 1.0);
-                    sleep(10);
+                    settle(10);
 
                     // Forward
                     encoderDrive(DRIVE_SPEED, 12, 12, 12, 12, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Down
-                    AngleL.setPosition(0.24);
-                    AngleR.setPosition(0.86);
-                    sleep(1000);
+                    angleLModel.setPosition(0.24);
+                    angleRModel.setPosition(0.86);
+                    waitForBucket(1000);
                     sleep(10000);
 
                 }
 
-                if (!detector.getAligned()) { // gold RIGHT
+                if (!vision.getAligned()) { // gold RIGHT
                     telemetry.addData("Aligned?", "NO");
-                    telemetry.addData("X Pos", detector.getXPosition()); // Gold X position.
+                    telemetry.addData("X Pos", vision.getXPosition()); // Gold X position.
 
                     //Forward
                     encoderDrive(DRIVE_SPEED, 8, 8, 8, 8, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe right
                     encoderDrive(DRIVE_SPEED, 8, -8, -8, 8, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Forward
                     encoderDrive(DRIVE_SPEED, 8, 8, 8, 8, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Backward
                     encoderDrive(DRIVE_SPEED, -6.5, -6.5, -6.5, -6.5, 2.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe left
                     encoderDrive(DRIVE_SPEED, -37, 37, 37, -37, 5.0);
-                    sleep(10);
+                    settle(10);
 
                     // Turn left
                     encoderDrive(DRIVE_SPEED, 6, 6, -6, -6, 3.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe left SLOW
                     encoderDrive(TURN_SPEED, -14, 14, 14, -14, 4.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe left
                     encoderDrive(DRIVE_SPEED, -3, 3, 3, -3, 2.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe right SLOW
                     encoderDrive(TURN_SPEED, 2, -2, -2, 2, 2.0);
-                    sleep(10);
+                    settle(10);
 
                     // Forward
                     encoderDrive(DRIVE_SPEED, 28, 28, 28, 28, 5.0);
-                    sleep(10);
+                    settle(10);
 
 
-                    // Half way
-                    AngleL.setPosition(0.5);
-                    AngleR.setPosition(0.5);
-                    sleep(2000);
-
-                    // inTake Out
-                    inTake.setPower(1);
-                    sleep(1000);
-
-                    inTake.setPower(0);
-                    sleep(10);
-
-                    // Up
-                    AngleL.setPosition(1.0);
-                    AngleR.setPosition(0.15);
-                    sleep(1000);
-
-
-
-
-                    // Backward
-                    encoderDrive(DRIVE_SPEED, -20, -20, -20, -20, 4.0);
-                    sleep(10);
+                    // Dump half way, then back up while the bucket comes up
+                    depositAndBackUp(-20, 4.0);
+                    settle(10);
 
                     // Turn right
                     encoderDrive(DRIVE_SPEED, -26, -26, 26, 26, 5.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe right SLOW
                     encoderDrive(TURN_SPEED, 6, -6, -6, 6, 2.0);
-                    sleep(10);
+                    settle(10);
 
                     // Strafe left
                     encoderDrive(TURN_SPEED, -3, 3, 3, -3, 2.0);
-                    sleep(10);
+                    settle(10);
 
                     // Forward
                     encoderDrive(EIGHT_SPEED, 14, 14, 14, 14, 3.0);
-                    sleep(10);
+                    settle(10);
 
 
 
                     // Down
-                    AngleL.setPosition(0.24);
-                    AngleR.setPosition(0.86);
-                    sleep(1500);
+                    angleLModel.setPosition(0.24);
+                    angleRModel.setPosition(0.86);
+                    waitForBucket(1500);
                     sleep(10000);
 
                 }
@@ -343,81 +359,63 @@ public class GoldAlignMineDepot extends LinearOpMode {
 
             else { // gold LEFT
                 telemetry.addData("Aligned?", "NO");
-                telemetry.addData("X Pos", detector.getXPosition()); // Gold X position.
+                telemetry.addData("X Pos", vision.getXPosition()); // Gold X position.
 
                 // Forward
                 encoderDrive(DRIVE_SPEED, 7, 7, 7, 7, 3.0);
-                sleep(10);
+                settle(10);
 
                 // Strafe left
                 encoderDrive(DRIVE_SPEED, -13, 13, 13, -13, 4.0);
-                sleep(10);
+                settle(10);
 
                 // Forward
                 encoderDrive(DRIVE_SPEED, 20, 20, 20, 20, 3.0);
-                sleep(10);
+                settle(10);
 
                 // Turn left
                 encoderDrive(DRIVE_SPEED, 6, 6, -6, -6, 2.0);
 
-                // Half way
-                AngleL.setPosition(0.5);
-                AngleR.setPosition(0.5);
-                sleep(2000);
-
-                // inTake Out
-                inTake.setPower(1);
-                sleep(1000);
-
-                inTake.setPower(0);
-                sleep(10);
-
-                // Up
-                AngleL.setPosition(1.0);
-                AngleR.setPosition(0.15);
-                sleep(1000);
-
-
-                // Backward
-                encoderDrive(DRIVE_SPEED, -17, -17, -17, -17, 3.0);
-                sleep(10);
+                // Dump half way, then back up while the bucket comes up
+                depositAndBackUp(-17, 3.0);
+                settle(10);
 
                 // Strafe left SLOW
                 encoderDrive(TURN_SPEED, -10, 10, 10, -10, 3.0);
-                sleep(10);
+                settle(10);
 
                 // Strafe left
                 encoderDrive(DRIVE_SPEED, -3, 3, 3, -3, 1.0);
-                sleep(10);
+                settle(10);
 
                 // Strafe right SLOW
                 encoderDrive(TURN_SPEED, 4, -4, -4, 4, 2.0);
-                sleep(10);
+                settle(10);
 
                 // Backward
                 encoderDrive(DRIVE_SPEED, -10, -10, -10, -10, 4.0);
-                sleep(10);
+                settle(10);
 
                 // Turn right
                 encoderDrive(DRIVE_SPEED, -26, -26, 26, 26, 5.0);
-                sleep(10);
+                settle(10);
 
                 // Strafe right SLOW
                 encoderDrive(TURN_SPEED, 6, -6, -6, 6, 2.0);
-                sleep(10);
+                settle(10);
 
                 // Strafe left
                 encoderDrive(TURN_SPEED, -2, 2, 2, -2, 2.0);
-                sleep(10);
+                settle(10);
 
                 // Forward
                 encoderDrive(TURN_SPEED, 12, 12, 12, 12, 3.0);
-                sleep(10);
+                settle(10);
 
                 // Down
-                AngleL.setPosition(0.24);
-                AngleR.setPosition(0.86);
-                sleep(1500);
+                angleLModel.setPosition(0.24);
+                angleRModel.setPosition(0.86);
+                waitForBucket(1500);
                 sleep(10000);
 
             }
@@ -427,119 +425,70 @@ public class GoldAlignMineDepot extends LinearOpMode {
         }
     }
 
-    public void encoderDrive(double speed, double leftFInches, double leftRInches, double rightFInches, double rightRInches, double timeoutS) {
-        int newLeftFTarget;
-        int newLeftRTarget;
-        int newRightFTarget;
-        int newRightRTarget;
-
-        // Ensure that the opmode is still active
-        if (opModeIsActive()) {
-
-            // Determine new target position, and pass to motor controller
-            newLeftFTarget = lf.getCurrentPosition() + (int)(leftFInches * COUNTS_PER_INCH);
-            newLeftRTarget = lr.getCurrentPosition() + (int)(leftRInches * COUNTS_PER_INCH);
-            newRightFTarget = rf.getCurrentPosition() + (int)(rightFInches * COUNTS_PER_INCH);
-            newRightRTarget = rr.getCurrentPosition() + (int)(rightRInches * COUNTS_PER_INCH);
-
-            lf.setTargetPosition(newLeftFTarget);
-            lr.setTargetPosition(newLeftRTarget);
-            rf.setTargetPosition(newRightFTarget);
-            rr.setTargetPosition(newRightRTarget);
-
-            // Turn On RUN_TO_POSITION
-            lf.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-            lr.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-            rf.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-            rr.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-
-            // reset the timeout time and start motion.
-            runtime.reset();
-            lf.setPower(Math.abs(speed));
-            lr.setPower(Math.abs(speed));
-            rf.setPower(Math.abs(speed));
-            rr.setPower(Math.abs(speed));
-
-
-            // keep looping while we are still active, and there is time left, and both motors are running.
-            // Note: We use (isBusy() && isBusy()) in the loop test, which means that when EITHER motor hits
-            // its target position, the motion will stop.  This is "safer" in the event that the robot will
-            // always end the motion as soon as possible.
-            // However, if you require that BOTH motors have finished their moves before the robot continues
-            // onto the next step, use (isBusy() || isBusy()) in the loop test.
-            while (opModeIsActive() &&
-                    (runtime.seconds() < timeoutS) &&
-                    (lf.isBusy() && lr.isBusy() && rf.isBusy() && rr.isBusy())) {
-
-                // Display it for the driver.
-//                telemetry.addData("Path1",  "Running to %7d :%7d", newLeftFTarget, newLeftRTarget, newRightFTarget, newRightRTarget);
-//                telemetry.addData("Path2",  "Running at %7d :%7d",
-//                        lf.getCurrentPosition(),
-//                        lr.getCurrentPosition(),
-//                        rf.getCurrentPosition(),
-//                        rr.getCurrentPosition());
-//                telemetry.update();
-            }
+    public void encoderDrive(double speed,
+                             double leftFInches, double leftRInches, double rightFInches, double rightRInches,
+                             double timeoutS) {
+        // Callers time their loops with runtime, which every move has always restarted.
+        runtime.reset();
+        motion.drive(speed, leftFInches, leftRInches, rightFInches, rightRInches, timeoutS);
+        waitForMotion();
+    }
 
-            // Stop all motion;
-            lf.setPower(0);
-            lr.setPower(0);
-            rf.setPower(0);
-            rr.setPower(0);
+    public void encoderLift(double speed, double liftInch, double timeoutSS) {
+        runtime.reset();
+        motion.lift(speed, liftInch, timeoutSS);
+        waitForMotion();
+    }
 
-            // Turn off RUN_TO_POSITION
-            lf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            lr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            rf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            rr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+    /*
+     *  Tip the bucket half way and run the intake out, then raise the bucket
+     *  while already backing away instead of waiting for it first.
+     */
+    private void depositAndBackUp(double backInches, double timeoutS) {
+        runCommand(Commands.sequence(
+                Commands.parallel(Commands.servo(angleLModel, 0.5), Commands.servo(angleRModel, 0.5)),
+                Commands.power(inTake, 1.0, 1.0),
+                Commands.parallel(Commands.servo(angleLModel, 1.0), Commands.servo(angleRModel, 0.15),
+                                  Commands.drive(motion, DRIVE_SPEED, backInches, backInches, backInches,
+                                                 backInches, timeoutS))));
+    }
 
-            //  sleep(250);   // optional pause after each move
+    /*
+     *  Run a command to the end on this thread, moves and all.
+     */
+    private void runCommand(Command command) {
+        // Callers time their loops with runtime, which every move has always restarted.
+        runtime.reset();
+        scheduler.schedule(command);
+        while (opModeIsActive() && scheduler.run()) {
+            idle();
         }
+        scheduler.cancelAll();
     }
 
-    public void encoderLift(double speed, double liftInch, double timeoutSS) {
-        int newLiftInch;
-
-        // Ensure that the opmode is still active
-        if (opModeIsActive()) {
-
-            // Determine new target position, and pass to motor controller
-            newLiftInch = Lift.getCurrentPosition() + (int)(liftInch * COUNTS_PER_INCH);
-
-            Lift.setTargetPosition(newLiftInch);
-
-            // Turn On RUN_TO_POSITION
-            Lift.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-
-            // reset the timeout time and start motion.
-            runtime.reset();
-            Lift.setPower(Math.abs(speed));
-
-            // keep looping while we are still active, and there is time left, and both motors are running.
-            // Note: We use (isBusy() && isBusy()) in the loop test, which means that when EITHER motor hits
-            // its target position, the motion will stop.  This is "safer" in the event that the robot will
-            // always end the motion as soon as possible.
-            // However, if you require that BOTH motors have finished their moves before the robot continues
-            // onto the next step, use (isBusy() || isBusy()) in the loop test.
-            while (opModeIsActive() &&
-                    (runtime.seconds() < timeoutSS) &&
-                    (Lift.isBusy())) {
-
-                // Display it for the driver.
-//                telemetry.addData("Path1",  "Running to %7d :%7d", newLiftInch);
-//                telemetry.addData("Path2",  "Running at %7d :%7d",
-//                        Lift.getCurrentPosition(),
-//                        telemetry.update());
-                telemetry.addData("Hello", "Lift is running");
-            }
-
-            // Stop all motion;
-            Lift.setPower(0);
+    /*
+     *  Wait for the drive to stop rolling before the next leg, for no longer
+     *  than the sleep that used to sit here.
+     */
+    private void settle(long replacedMillis) {
+        waiter.waitUntil("settle", driveStopped, replacedMillis / 1000.0, replacedMillis / 1000.0);
+    }
 
-            // Turn off RUN_TO_POSITION
-            Lift.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            //  sleep(250);   // optional pause after each move
+    /*
+     *  Wait for both bucket servos to reach their positions, for no longer
+     *  than the sleep that used to sit here.
+     */
+    private void waitForBucket(long replacedMillis) {
+        waiter.waitUntil("bucket", bucketArrived, replacedMillis / 1000.0, replacedMillis / 1000.0);
+    }
 
+    /*
+     *  Run the MotionEngine until everything queued has finished, so the
+     *  step-by-step script above keeps its order.
+     */
+    private void waitForMotion() {
+        while (opModeIsActive() && motion.update()) {
+            idle();
         }
     }
 }
\ No newline at end of file
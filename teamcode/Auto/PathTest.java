@@ -0,0 +1,100 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
+import com.qualcomm.robotcore.eventloop.opmode.Disabled;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+/*
+ *  Drives the "strafe left to wall, then back to the depot" part of
+ *  CraterInspection as one smooth path instead of stop-and-go legs.
+ *  Use it to tune the PurePursuitFollower and check TRACK_WIDTH/WHEEL_BASE:
+ *  the pose on telemetry should match where the robot really ends up.
+ */
+@Disabled
+@Autonomous(name = "PathTest", group = "Pushbot")
+public class PathTest extends LinearOpMode {
+
+    private HardwareSnapshot snapshot;
+    private MotionEngine motion;
+    private PoseTracker poseTracker;
+
+    // Drive
+    private DcMotor lf = null;
+    private DcMotor lr = null;
+    private DcMotor rf = null;
+    private DcMotor rr = null;
+
+    private BNO055IMU imu = null;
+
+    static final double     COUNTS_PER_MOTOR_REV    = 1440 ;    // eg: TETRIX Motor Encoder
+    static final double     DRIVE_GEAR_REDUCTION    = 2.0 ;     // This is < 1.0 if geared UP
+    static final double     WHEEL_DIAMETER_INCHES   = 4.0 ;     // For figuring circumference
+    static final double     COUNTS_PER_INCH         = (COUNTS_PER_MOTOR_REV * DRIVE_GEAR_REDUCTION) /
+                                                      (WHEEL_DIAMETER_INCHES * 3.1415);
+    static final double     TRACK_WIDTH             = 14.0;     // Inches between left and right wheels
+    static final double     WHEEL_BASE              = 12.0;     // Inches between front and rear wheels
+    static final double     DRIVE_SPEED             = 0.5;
+
+    @Override
+    public void runOpMode() {
+
+        lf = hardwareMap.get(DcMotor.class, "lf");
+        lr = hardwareMap.get(DcMotor.class, "lr");
+        rf = hardwareMap.get(DcMotor.class, "rf");
+        rr = hardwareMap.get(DcMotor.class, "rr");
+
+        rf.setDirection(DcMotor.Direction.REVERSE);
+        rr.setDirection(DcMotor.Direction.REVERSE);
+
+        imu = hardwareMap.get(BNO055IMU.class, "imu");
+        BNO055IMU.Parameters parameters = new BNO055IMU.Parameters();
+        parameters.angleUnit = BNO055IMU.AngleUnit.RADIANS;
+        imu.initialize(parameters);
+
+        lf.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        lr.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        rf.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        rr.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+
+        lf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+        lr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+        rf.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+        rr.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+
+        snapshot = new HardwareSnapshot(lf, lr, rf, rr, imu);
+        snapshot.setReadGravity(false);
+        motion = new MotionEngine(lf, lr, rf, rr, snapshot, COUNTS_PER_INCH);
+        motion.setTurnSign(MotionEngine.turnSign(lf, rf)); // Which way turn power turns, from the reversed side
+        poseTracker = new PoseTracker(new MecanumKinematics(TRACK_WIDTH, WHEEL_BASE), COUNTS_PER_INCH);
+        motion.setPoseTracker(poseTracker, true);
+
+        // Start of the path is wherever the robot is put down, facing +x.
+        final Path toDepot = new Path.Builder(0, 0)
+                .lineTo(6, 0)           // Forward, clear of the lander
+                .lineTo(6, 20)          // Strafe left to wall
+                .lineTo(-30, 24)        // Backward along the wall to depot
+                .build(Math.toRadians(45));
+
+        telemetry.addData(">", "Press Play to start");
+        telemetry.update();
+
+        waitForStart();
+
+        poseTracker.reset(0, 0, 0);
+        motion.follow(toDepot, DRIVE_SPEED, 8.0);
+        while (opModeIsActive() && motion.update()) {
+            telemetry.addData("Pose", motion.getPose());
+            telemetry.addData("Target", "%.1f, %.1f",
+                              motion.getFollower().getTargetX(), motion.getFollower().getTargetY());
+            telemetry.update();
+        }
+        motion.stop();
+
+        telemetry.addData("Path", "Complete");
+        telemetry.addData("Pose", motion.getPose());
+        telemetry.update();
+        sleep(2000);
+    }
+}
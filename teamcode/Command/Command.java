@@ -0,0 +1,136 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One action an autonomous can run alongside others, e.g. a drive leg, a lift
+ * move or a servo swing.
+ * <p>
+ * A {@link CommandScheduler} calls {@link #initialize()} once when the command is
+ * scheduled, then {@link #execute()} and {@link #isFinished()} once per
+ * {@link CommandScheduler#run()} tick, and {@link #end(boolean)} once at the end.
+ * None of these may block: a command that has to wait returns false from
+ * isFinished() until it is done.
+ * <p>
+ * A command names the subsystems it needs with {@link #requires}. A subsystem
+ * is any object standing for hardware a command must have to itself: a
+ * {@link MotionEngine.Channel}, a servo or a motor. Scheduling a command
+ * interrupts whatever is running on the same subsystems.
+ */
+public abstract class Command {
+    private final ArrayList<Object> requirements = new ArrayList<Object>();
+    private NanoClock clock = NanoClock.SYSTEM;
+    private long startNanos = 0;
+
+    /**
+     * Add subsystems this command needs to itself.
+     *
+     * @return this command, to chain
+     */
+    public Command requires(Object... subsystems) {
+        for (Object subsystem : subsystems) {
+            if (!requirements.contains(subsystem)) {
+                requirements.add(subsystem);
+            }
+        }
+        return this;
+    }
+
+    public List<Object> getRequirements() {
+        return requirements;
+    }
+
+    /**
+     * Called once when the command starts.
+     */
+    public void initialize() {
+    }
+
+    /**
+     * Called every tick while the command runs.
+     */
+    public void execute() {
+    }
+
+    /**
+     * @return true once the command has done its job
+     */
+    public boolean isFinished() {
+        return false;
+    }
+
+    /**
+     * Called once when the command stops.
+     *
+     * @param interrupted true if it was cancelled or cut short by a group,
+     *                    false if it finished by itself
+     */
+    public void end(boolean interrupted) {
+    }
+
+    /**
+     * @return seconds since this command was started
+     */
+    protected double elapsedSeconds() {
+        return (clock.nanoTime() - startNanos) * 1e-9;
+    }
+
+    /**
+     * @return the scheduler's clock, valid from initialize() on
+     */
+    protected NanoClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Start the command on a clock. Only the scheduler and groups call this.
+     */
+    void start(NanoClock _clock) {
+        clock = _clock;
+        startNanos = clock.nanoTime();
+        initialize();
+    }
+
+    /**
+     * @return this command, ended after the given time if it has not finished
+     */
+    public Command withTimeout(double seconds) {
+        return new CommandGroup.Race(this, Commands.waitSeconds(seconds));
+    }
+
+    /**
+     * @return this command followed by the others, one after another
+     */
+    public Command andThen(Command... next) {
+        return new CommandGroup.Sequence(prepend(this, next));
+    }
+
+    /**
+     * @return this command and the others at once, until all have finished
+     */
+    public Command alongWith(Command... others) {
+        return new CommandGroup.Parallel(prepend(this, others));
+    }
+
+    /**
+     * @return this command and the others at once, until any one has finished
+     */
+    public Command raceWith(Command... others) {
+        return new CommandGroup.Race(prepend(this, others));
+    }
+
+    /**
+     * @return this command and the others at once, until this one has finished
+     */
+    public Command deadlineWith(Command... others) {
+        return new CommandGroup.Deadline(this, others);
+    }
+
+    private static Command[] prepend(Command first, Command[] rest) {
+        final Command[] all = new Command[rest.length + 1];
+        all[0] = first;
+        System.arraycopy(rest, 0, all, 1, rest.length);
+        return all;
+    }
+}
@@ -0,0 +1,210 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * A command made of other commands. A group requires every subsystem its
+ * members do, so nothing else can use them while it runs. Commands in a group
+ * must not also be scheduled on their own.
+ */
+public abstract class CommandGroup extends Command {
+    protected final Command[] commands;
+
+    protected CommandGroup(boolean parallel, Command... _commands) {
+        commands = _commands;
+        for (int i = 0; i < commands.length; ++i) {
+            if (parallel) {
+                // Members that run at once may not fight over hardware.
+                for (int j = 0; j < i; ++j) {
+                    for (Object subsystem : commands[i].getRequirements()) {
+                        if (commands[j].getRequirements().contains(subsystem)) {
+                            throw new IllegalArgumentException("Parallel commands both require " + subsystem);
+                        }
+                    }
+                }
+            }
+            requires(commands[i].getRequirements().toArray());
+        }
+    }
+
+    /**
+     * Runs its commands one after another.
+     */
+    public static class Sequence extends CommandGroup {
+        private int index = 0;
+
+        public Sequence(Command... _commands) {
+            super(false, _commands);
+        }
+
+        @Override
+        public void initialize() {
+            index = 0;
+            if (commands.length > 0) {
+                commands[0].start(getClock());
+            }
+        }
+
+        @Override
+        public void execute() {
+            if (index >= commands.length) {
+                return;
+            }
+            final Command current = commands[index];
+            current.execute();
+            if (current.isFinished()) {
+                current.end(false);
+                ++index;
+                if (index < commands.length) {
+                    commands[index].start(getClock());
+                }
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return index >= commands.length;
+        }
+
+        @Override
+        public void end(boolean interrupted) {
+            if (interrupted && index < commands.length) {
+                commands[index].end(true);
+            }
+        }
+    }
+
+    /**
+     * Base for the groups that run their commands at once.
+     */
+    abstract static class Concurrent extends CommandGroup {
+        protected final boolean[] running;
+
+        Concurrent(Command... _commands) {
+            super(true, _commands);
+            running = new boolean[commands.length];
+        }
+
+        @Override
+        public void initialize() {
+            for (int i = 0; i < commands.length; ++i) {
+                commands[i].start(getClock());
+                running[i] = true;
+            }
+        }
+
+        /**
+         * Run every unfinished command once.
+         *
+         * @return true if any of them finished on this tick
+         */
+        protected boolean executeAll() {
+            boolean anyFinished = false;
+            for (int i = 0; i < commands.length; ++i) {
+                if (running[i]) {
+                    commands[i].execute();
+                    if (commands[i].isFinished()) {
+                        commands[i].end(false);
+                        running[i] = false;
+                        anyFinished = true;
+                    }
+                }
+            }
+            return anyFinished;
+        }
+
+        protected boolean anyRunning() {
+            for (int i = 0; i < commands.length; ++i) {
+                if (running[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void end(boolean interrupted) {
+            // Whoever is still running lost the race or the deadline.
+            for (int i = 0; i < commands.length; ++i) {
+                if (running[i]) {
+                    commands[i].end(true);
+                    running[i] = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs its commands at once and finishes when all of them have.
+     */
+    public static class Parallel extends Concurrent {
+        public Parallel(Command... _commands) {
+            super(_commands);
+        }
+
+        @Override
+        public void execute() {
+            executeAll();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return !anyRunning();
+        }
+    }
+
+    /**
+     * Runs its commands at once and finishes when any one has, interrupting
+     * the rest.
+     */
+    public static class Race extends Concurrent {
+        private boolean done = false;
+
+        public Race(Command... _commands) {
+            super(_commands);
+        }
+
+        @Override
+        public void initialize() {
+            done = false;
+            super.initialize();
+        }
+
+        @Override
+        public void execute() {
+            if (executeAll()) {
+                done = true;
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return done || !anyRunning();
+        }
+    }
+
+    /**
+     * Runs its commands at once and finishes when the first one, the deadline,
+     * has, interrupting the rest. The others may finish earlier.
+     */
+    public static class Deadline extends Concurrent {
+        public Deadline(Command deadline, Command... others) {
+            super(prependDeadline(deadline, others));
+        }
+
+        @Override
+        public void execute() {
+            executeAll();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return !running[0];
+        }
+
+        private static Command[] prependDeadline(Command deadline, Command[] others) {
+            final Command[] all = new Command[others.length + 1];
+            all[0] = deadline;
+            System.arraycopy(others, 0, all, 1, others.length);
+            return all;
+        }
+    }
+}
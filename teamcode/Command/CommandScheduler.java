@@ -0,0 +1,111 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayList;
+
+/**
+ * Runs {@link Command}s side by side on the OpMode thread.
+ * <p>
+ * Each {@link #run()} is one tick: the periodic tasks first (typically
+ * MotionEngine.update(), which reads the hardware snapshot), then one step of
+ * every scheduled command. A LinearOpMode runs a whole script as
+ * <pre>
+ *     scheduler.schedule(Commands.sequence(...));
+ *     while (opModeIsActive() &amp;&amp; scheduler.run()) {
+ *         idle();
+ *     }
+ *     scheduler.cancelAll();
+ * </pre>
+ * Nothing is allocated per tick.
+ */
+public class CommandScheduler {
+    private final NanoClock clock;
+    private final ArrayList<Command> scheduled = new ArrayList<Command>();
+    private final ArrayList<Runnable> periodic = new ArrayList<Runnable>();
+
+    public CommandScheduler() {
+        this(NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param _clock Time source for command timing; pass the snapshot's clock so
+     *               simulated runs stay in step
+     */
+    public CommandScheduler(NanoClock _clock) {
+        clock = _clock;
+    }
+
+    /**
+     * Run a task at the start of every tick, before any command.
+     */
+    public void addPeriodic(Runnable task) {
+        periodic.add(task);
+    }
+
+    /**
+     * Start commands. Anything already running on a subsystem they require is
+     * interrupted first. A command that is already scheduled is left alone.
+     */
+    public void schedule(Command... commands) {
+        for (Command command : commands) {
+            if (scheduled.contains(command)) {
+                continue;
+            }
+            for (int i = scheduled.size() - 1; i >= 0; --i) {
+                if (sharesRequirement(scheduled.get(i), command)) {
+                    scheduled.remove(i).end(true);
+                }
+            }
+            scheduled.add(command);
+            command.start(clock);
+        }
+    }
+
+    /**
+     * Advance everything by one tick.
+     *
+     * @return true while any command is still scheduled
+     */
+    public boolean run() {
+        for (int i = 0; i < periodic.size(); ++i) {
+            periodic.get(i).run();
+        }
+        for (int i = 0; i < scheduled.size(); ++i) {
+            final Command command = scheduled.get(i);
+            command.execute();
+            if (command.isFinished()) {
+                command.end(false);
+                scheduled.remove(i--);
+            }
+        }
+        return !scheduled.isEmpty();
+    }
+
+    public boolean isScheduled(Command command) {
+        return scheduled.contains(command);
+    }
+
+    public boolean isIdle() {
+        return scheduled.isEmpty();
+    }
+
+    public void cancel(Command command) {
+        if (scheduled.remove(command)) {
+            command.end(true);
+        }
+    }
+
+    public void cancelAll() {
+        while (!scheduled.isEmpty()) {
+            scheduled.remove(scheduled.size() - 1).end(true);
+        }
+    }
+
+    private static boolean sharesRequirement(Command a, Command b) {
+        for (Object subsystem : b.getRequirements()) {
+            if (a.getRequirements().contains(subsystem)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
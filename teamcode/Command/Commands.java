@@ -0,0 +1,227 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.Servo;
+
+/**
+ * Ready-made commands for the moves the autonomous scripts make, and the group
+ * constructors, so a script reads as
+ * <pre>
+ *     sequence(drive(motion, 0.5, 10, 10, 10, 10, 3.0),
+ *              parallel(lift(motion, 1.0, -23, 5.0),
+ *                       drive(motion, 0.3, 12, -12, -12, 12, 3.0)))
+ * </pre>
+ */
+public final class Commands {
+    private Commands() {
+    }
+
+    public static Command sequence(Command... commands) {
+        return new CommandGroup.Sequence(commands);
+    }
+
+    public static Command parallel(Command... commands) {
+        return new CommandGroup.Parallel(commands);
+    }
+
+    public static Command race(Command... commands) {
+        return new CommandGroup.Race(commands);
+    }
+
+    public static Command deadline(Command deadline, Command... others) {
+        return new CommandGroup.Deadline(deadline, others);
+    }
+
+    /**
+     * Do nothing for a while, e.g. inside a sequence.
+     */
+    public static Command waitSeconds(final double seconds) {
+        return new Command() {
+            @Override
+            public boolean isFinished() {
+                return elapsedSeconds() >= seconds;
+            }
+        };
+    }
+
+    /**
+     * Wait until a condition holds, or the timeout runs out.
+     */
+    public static Command waitUntil(final Condition condition, final double timeoutS) {
+        return new Command() {
+            @Override
+            public boolean isFinished() {
+                return condition.isMet() || elapsedSeconds() >= timeoutS;
+            }
+        };
+    }
+
+    /**
+     * Do something once and finish straight away.
+     */
+    public static Command instant(final Runnable action) {
+        return new Command() {
+            @Override
+            public void initialize() {
+                action.run();
+            }
+
+            @Override
+            public boolean isFinished() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * A relative drive move, as MotionEngine.drive().
+     */
+    public static Command drive(final MotionEngine motion, final double speed, final double lfInches,
+                                final double lrInches, final double rfInches, final double rrInches,
+                                final double timeoutS) {
+        return new ChannelCommand(motion, MotionEngine.Channel.DRIVE) {
+            @Override
+            public void initialize() {
+                motion.drive(speed, lfInches, lrInches, rfInches, rrInches, timeoutS);
+            }
+        };
+    }
+
+    /**
+     * A turn in place to a heading, as MotionEngine.turnTo().
+     */
+    public static Command turnTo(final MotionEngine motion, final double heading, final double speed,
+                                 final double timeoutS) {
+        return new ChannelCommand(motion, MotionEngine.Channel.DRIVE) {
+            @Override
+            public void initialize() {
+                motion.turnTo(heading, speed, timeoutS);
+            }
+        };
+    }
+
+    /**
+     * A path drive, as MotionEngine.follow().
+     */
+    public static Command follow(final MotionEngine motion, final Path path, final double speed,
+                                 final double timeoutS) {
+        return new ChannelCommand(motion, MotionEngine.Channel.DRIVE) {
+            @Override
+            public void initialize() {
+                motion.follow(path, speed, timeoutS);
+            }
+        };
+    }
+
+    /**
+     * A relative lift move, as MotionEngine.lift().
+     */
+    public static Command lift(final MotionEngine motion, final double speed, final double inches,
+                               final double timeoutS) {
+        return new ChannelCommand(motion, MotionEngine.Channel.LIFT) {
+            @Override
+            public void initialize() {
+                motion.lift(speed, inches, timeoutS);
+            }
+        };
+    }
+
+    /**
+     * A landing, as MotionEngine.land(): a lift move that ends once the lift stalls.
+     */
+    public static Command land(final MotionEngine motion, final double speed, final double inches,
+                               final double timeoutS) {
+        return new ChannelCommand(motion, MotionEngine.Channel.LIFT) {
+            @Override
+            public void initialize() {
+                motion.land(speed, inches, timeoutS);
+            }
+        };
+    }
+
+    /**
+     * Send a servo to a position and give it time to get there. The servo is
+     * set directly rather than through the MotionEngine's servo queue, so
+     * different servos can move at once.
+     */
+    public static Command servo(final Servo servo, final double position, final double settleS) {
+        return new Command() {
+            @Override
+            public void initialize() {
+                servo.setPosition(position);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return elapsedSeconds() >= settleS;
+            }
+        }.requires(servo);
+    }
+
+    /**
+     * Send a servo to a position and finish once its model says it has got
+     * there, however far it had to go.
+     */
+    public static Command servo(final ServoModel servo, final double position) {
+        return new Command() {
+            @Override
+            public void initialize() {
+                servo.setPosition(position);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return servo.isAtTarget();
+            }
+        }.requires(servo.getServo());
+    }
+
+    /**
+     * Run a motor or CR servo at a power for a while, then stop it.
+     */
+    public static Command power(final DcMotorSimple motor, final double power, final double seconds) {
+        return new Command() {
+            @Override
+            public void initialize() {
+                motor.setPower(power);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return elapsedSeconds() >= seconds;
+            }
+
+            @Override
+            public void end(boolean interrupted) {
+                motor.setPower(0.0);
+            }
+        }.requires(motor);
+    }
+
+    /**
+     * A move queued on one MotionEngine channel, done when the channel is idle
+     * again. Interrupting it cancels the channel.
+     */
+    private abstract static class ChannelCommand extends Command {
+        private final MotionEngine motion;
+        private final MotionEngine.Channel channel;
+
+        ChannelCommand(MotionEngine _motion, MotionEngine.Channel _channel) {
+            motion = _motion;
+            channel = _channel;
+            requires(channel);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return !motion.isBusy(channel);
+        }
+
+        @Override
+        public void end(boolean interrupted) {
+            if (interrupted) {
+                motion.cancel(channel);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Something a script can wait for instead of sleeping a fixed time.
+ * See {@link Conditions} for the usual ones and {@link Waiter} to wait on them.
+ */
+public interface Condition {
+    /**
+     * Called once per loop after the hardware has been read; must not block.
+     *
+     * @return true once the wait can end
+     */
+    boolean isMet();
+}
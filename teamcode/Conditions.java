@@ -0,0 +1,128 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+/**
+ * Conditions for the waits the autonomous scripts make. They read what the
+ * loop has already fetched, e.g. the {@link HardwareSnapshot}'s state, so
+ * checking one costs no hub transactions of its own unless it says otherwise.
+ */
+public final class Conditions {
+    private Conditions() {
+    }
+
+    /**
+     * Met once every drive wheel is turning slower than the given speed, i.e. the
+     * robot has stopped rolling after a move. Reads the snapshot's velocities,
+     * so something in the loop must call {@link HardwareSnapshot#read()}.
+     *
+     * @param maxInchesPerSecond Wheel speed that counts as stopped
+     * @param countsPerInch      Drive encoder counts per inch
+     */
+    public static Condition driveStopped(final HardwareSnapshot snapshot, final double maxInchesPerSecond,
+                                         final double countsPerInch) {
+        final double maxCountsPerSecond = maxInchesPerSecond * countsPerInch;
+        return new Condition() {
+            @Override
+            public boolean isMet() {
+                final RobotState state = snapshot.getState();
+                return state.dtSeconds > 0.0
+                        && Math.abs(state.lfVelocity) < maxCountsPerSecond
+                        && Math.abs(state.lrVelocity) < maxCountsPerSecond
+                        && Math.abs(state.rfVelocity) < maxCountsPerSecond
+                        && Math.abs(state.rrVelocity) < maxCountsPerSecond;
+            }
+        };
+    }
+
+    /**
+     * Met once a MotionEngine channel has nothing left to do.
+     */
+    public static Condition idle(final MotionEngine motion, final MotionEngine.Channel channel) {
+        return new Condition() {
+            @Override
+            public boolean isMet() {
+                return !motion.isBusy(channel);
+            }
+        };
+    }
+
+    /**
+     * Met once a motor's encoder is within a tolerance of a position. Reads the
+     * encoder, one transaction per check.
+     */
+    public static Condition atPosition(final DcMotor motor, final int target, final int tolerance) {
+        return new Condition() {
+            @Override
+            public boolean isMet() {
+                return Math.abs(motor.getCurrentPosition() - target) <= tolerance;
+            }
+        };
+    }
+
+    /**
+     * Met once every servo has had time to reach its last commanded position,
+     * as its {@link ServoModel} estimates.
+     */
+    public static Condition servosArrived(final ServoModel... servos) {
+        return new Condition() {
+            @Override
+            public boolean isMet() {
+                for (ServoModel servo : servos) {
+                    if (!servo.isAtTarget()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Met once the cache holds a reading that fits the robot's pose. Keeps the
+     * cache's detector running until then, and paused after.
+     */
+    public static Condition visionCached(final VisionCache cache) {
+        return new Condition() {
+            @Override
+            public boolean isMet() {
+                cache.update();
+                return cache.isValid();
+            }
+        };
+    }
+
+    /**
+     * Met when every one of the conditions is.
+     */
+    public static Condition all(final Condition... conditions) {
+        return new Condition() {
+            @Override
+            public boolean isMet() {
+                for (Condition condition : conditions) {
+                    if (!condition.isMet()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Met when any one of the conditions is.
+     */
+    public static Condition any(final Condition... conditions) {
+        return new Condition() {
+            @Override
+            public boolean isMet() {
+                for (Condition condition : conditions) {
+                    if (condition.isMet()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
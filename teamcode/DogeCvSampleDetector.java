@@ -0,0 +1,95 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.disnodeteam.dogecv.DogeCV;
+import com.disnodeteam.dogecv.detectors.roverrukus.GoldAlignDetector;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * A DogeCV {@link GoldAlignDetector} as a {@link SampleDetector}, read the way
+ * GoldAlignMineCrater reads it: aligned gold is CENTER, gold seen off to the
+ * side is RIGHT, and no gold is LEFT.
+ * <p>
+ * Each frame is copied into an RGBA Mat and handed to the detector as the
+ * camera would hand it, so the detector's own tuning (downscale, scorers,
+ * region of interest) applies. This needs OpenCV's native library, i.e. the
+ * robot controller or a desktop with OpenCV for Java installed.
+ */
+public class DogeCvSampleDetector implements SampleDetector {
+    /** Weight of a reading that saw the gold. */
+    static final double FOUND_WEIGHT = 1.0;
+    /** Weight of a LEFT reading, which rests only on not seeing the gold. */
+    static final double MISSING_WEIGHT = 0.5;
+
+    private final GoldAlignDetector detector;
+    private final String name;
+    private Mat rgb = null;
+    private final Mat rgba = new Mat();
+    private final Mat gray = new Mat();
+    private double weight = 0.0;
+
+    /**
+     * A GoldAlignDetector tuned as the GoldAlign autos tune theirs.
+     */
+    public DogeCvSampleDetector() {
+        this(autoTuned());
+    }
+
+    /**
+     * @param _detector A detector with its tuning set; its camera need not be started
+     */
+    public DogeCvSampleDetector(GoldAlignDetector _detector) {
+        detector = _detector;
+        name = "DogeCV " + _detector.getClass().getSimpleName();
+    }
+
+    private static GoldAlignDetector autoTuned() {
+        final GoldAlignDetector detector = new GoldAlignDetector();
+        detector.useDefaults();
+        detector.alignSize = 100;
+        detector.alignPosOffset = 0;
+        detector.downscale = 0.4;
+        detector.areaScoringMethod = DogeCV.AreaScoringMethod.MAX_AREA;
+        detector.maxAreaScorer.weight = 0.005;
+        detector.ratioScorer.weight = 5;
+        detector.ratioScorer.perfectRatio = 1.0;
+        return detector;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void reset() {
+        weight = 0.0;
+    }
+
+    @Override
+    public TrajectoryCache.Gold detect(RgbFrame frame) {
+        if (rgb == null || rgb.rows() != frame.height || rgb.cols() != frame.width) {
+            if (rgb != null) {
+                rgb.release();
+            }
+            rgb = new Mat(frame.height, frame.width, CvType.CV_8UC3);
+        }
+        rgb.put(0, 0, frame.pixels);
+        Imgproc.cvtColor(rgb, rgba, Imgproc.COLOR_RGB2RGBA);
+        detector.processFrame(rgba, gray);
+
+        if (!detector.isFound()) {
+            weight = MISSING_WEIGHT;
+            return TrajectoryCache.Gold.LEFT;
+        }
+        weight = FOUND_WEIGHT;
+        return detector.getAligned() ? TrajectoryCache.Gold.CENTER : TrajectoryCache.Gold.RIGHT;
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,127 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * A bounded queue of frames between two vision threads that never blocks the
+ * producer: when it is full the oldest frame is pushed out to make room.
+ * <p>
+ * Vision only cares about the newest picture, so a slow consumer should skip
+ * frames rather than hold the camera up or work through a backlog of stale
+ * ones. {@link #offer} hands back whatever it pushed out so the frame's buffer
+ * can be reused.
+ * <p>
+ * Two counts show how far behind the consumer is: backpressure, the offers that
+ * found a frame still waiting, and dropped, the frames pushed out unread. The
+ * first climbs before the second does.
+ */
+public class FrameRing {
+    private final RgbFrame[] slots;
+    private int head = 0;
+    private int count = 0;
+    private boolean closed = false;
+
+    private long offered = 0;
+    private long dropped = 0;
+    private long backpressure = 0;
+    private int maxDepth = 0;
+
+    /**
+     * @param capacity Frames held before the oldest is dropped; 1 keeps only the latest
+     */
+    public FrameRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        slots = new RgbFrame[capacity];
+    }
+
+    /**
+     * Add a frame without waiting.
+     *
+     * @return the frame pushed out to make room, or the frame itself if the ring
+     * is closed; null if nothing was pushed out
+     */
+    public synchronized RgbFrame offer(RgbFrame frame) {
+        if (closed) {
+            return frame;
+        }
+        ++offered;
+        if (count > 0) {
+            ++backpressure;
+        }
+        RgbFrame evicted = null;
+        if (count == slots.length) {
+            evicted = slots[head];
+            slots[head] = null;
+            head = (head + 1) % slots.length;
+            --count;
+            ++dropped;
+        }
+        slots[(head + count) % slots.length] = frame;
+        ++count;
+        maxDepth = Math.max(maxDepth, count);
+        notifyAll();
+        return evicted;
+    }
+
+    /**
+     * Remove the oldest frame, waiting for one if the ring is empty.
+     *
+     * @return the frame, or null once the ring is closed and empty
+     */
+    public synchronized RgbFrame take() throws InterruptedException {
+        while (count == 0 && !closed) {
+            wait();
+        }
+        return poll();
+    }
+
+    /**
+     * @return the oldest frame, or null if there is none
+     */
+    public synchronized RgbFrame poll() {
+        if (count == 0) {
+            return null;
+        }
+        final RgbFrame frame = slots[head];
+        slots[head] = null;
+        head = (head + 1) % slots.length;
+        --count;
+        return frame;
+    }
+
+    /**
+     * Refuse further frames and wake any thread waiting in {@link #take()}.
+     * Frames already in the ring can still be taken.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public synchronized long getOffered() {
+        return offered;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public synchronized long getBackpressure() {
+        return backpressure;
+    }
+
+    /**
+     * @return the most frames that have waited at once
+     */
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+}
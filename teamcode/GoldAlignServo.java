@@ -0,0 +1,217 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Strafes the robot until the camera is centered on the gold mineral, closing
+ * the loop on the detector instead of on a fixed distance.
+ * <p>
+ * Every new frame gives the gold's offset from the alignment point, as a
+ * fraction of the frame width. A PD loop turns that into strafe power: full
+ * speed while the gold is far off, easing in as it centers. The loop only
+ * updates on new frames, since between them there is nothing new to act on,
+ * and the derivative damps the lag of the camera. The heading the move
+ * started on is held with a P loop on the IMU, turning the way
+ * {@link #setTurnSign} says.
+ * <p>
+ * The move is done once the offset has been inside {@link #TOLERANCE} on
+ * {@link #SETTLE_FRAMES} frames in a row with the robot no longer sliding
+ * sideways. If the gold is not in view it searches toward the side it is
+ * expected on; if it is lost after being seen it holds still for a few frames
+ * and then searches toward where it was last seen.
+ * <p>
+ * Run it with {@link MotionEngine#steer}. Afterwards {@link #isAligned()} says
+ * whether it got there and {@link #getStrafeInches()} how far it went, so a
+ * script can fall back to a fixed strafe for the rest.
+ */
+public class GoldAlignServo implements MotionEngine.Steering {
+    /**
+     * What the servo aims at, e.g. {@link RoiGoldAlignDetector}.
+     */
+    public interface Target {
+        /**
+         * @return frames fully processed so far, to tell a new reading from an old one
+         */
+        int getProcessedFrames();
+
+        boolean isFound();
+
+        /**
+         * @return the gold's offset from the alignment point as a fraction of the
+         * frame width, positive to the right
+         */
+        double getAlignmentError();
+    }
+
+    /** Strafe power per frame width of offset. */
+    public static final double STRAFE_KP = 2.5;
+    /** Strafe power per frame width per second the offset is closing at. */
+    public static final double STRAFE_KD = 0.15;
+    /** Least strafe power that moves the robot sideways. */
+    public static final double STRAFE_KSTATIC = 0.08;
+    /** Turn power per radian off the starting heading. */
+    public static final double HEADING_KP = 1.0;
+    public static final double MAX_HEADING_CORRECTION = 0.3;
+    /** Offset, as a fraction of frame width, that counts as centered. */
+    public static final double TOLERANCE = 0.04;
+    /** Frames in a row that must be centered before the move ends. */
+    public static final int SETTLE_FRAMES = 2;
+    /** Sideways speed, inches per second, below which the robot counts as stopped. */
+    public static final double SETTLED_IPS = 2.0;
+    /** Frames without the gold, after it was seen, before searching for it again. */
+    public static final int LOST_FRAMES = 4;
+
+    private final Target target;
+    private final double countsPerInch;
+    private final double speed;
+    private final double searchSpeed;
+    private final NanoClock clock;
+    private final PIDFController controller;
+
+    private double searchDirection;
+    private double turnSign = 1.0;
+    private double heading;
+    private int startStrafeCounts;
+    private int lastFrames;
+    private long lastFrameNanos;
+    private boolean seen;
+    private int lostFrames;
+    private int centeredFrames;
+    private double lastError;
+    private double strafe;
+    private double strafeInches;
+    private boolean aligned;
+
+    /**
+     * @param _target          The detector, running
+     * @param _countsPerInch   Drive encoder counts per inch of wheel travel
+     * @param _speed           Most strafe power while aligning
+     * @param _searchSpeed     Strafe power while the gold is out of view
+     * @param _searchDirection +1 to search right, -1 left, 0 to wait in place
+     * @param _clock           Time source for the loop
+     */
+    public GoldAlignServo(Target _target, double _countsPerInch, double _speed, double _searchSpeed,
+                          double _searchDirection, NanoClock _clock) {
+        target = _target;
+        countsPerInch = _countsPerInch;
+        speed = Math.abs(_speed);
+        searchSpeed = Math.abs(_searchSpeed);
+        searchDirection = Math.signum(_searchDirection);
+        clock = _clock;
+        controller = new PIDFController(STRAFE_KP, 0.0, STRAFE_KD, clock);
+        controller.setFeedforward(0.0, 0.0, STRAFE_KSTATIC);
+        controller.setTolerance(TOLERANCE, Double.POSITIVE_INFINITY);
+        controller.setDerivativeFilter(0.05);
+    }
+
+    /**
+     * @param direction +1 to search right, -1 left, 0 to wait in place, for the next run
+     */
+    public void setSearchDirection(double direction) {
+        searchDirection = Math.signum(direction);
+    }
+
+    /**
+     * @param sign +1 if turn power (-, -, +, +) turns the robot counter-clockwise,
+     *             -1 if it turns it clockwise; see {@link MotionEngine#setTurnSign}
+     */
+    public void setTurnSign(double sign) {
+        turnSign = sign;
+    }
+
+    @Override
+    public void start(RobotState state) {
+        heading = state.heading;
+        startStrafeCounts = strafeCounts(state);
+        lastFrames = target.getProcessedFrames();
+        lastFrameNanos = clock.nanoTime();
+        seen = false;
+        lostFrames = 0;
+        centeredFrames = 0;
+        lastError = 0.0;
+        strafe = 0.0;
+        strafeInches = 0.0;
+        aligned = false;
+        controller.reset();
+        controller.setOutputLimits(-speed, speed);
+    }
+
+    @Override
+    public boolean update(RobotState state, double[] wheelPowers) {
+        strafeInches = (strafeCounts(state) - startStrafeCounts) / (4.0 * countsPerInch);
+
+        final int frames = target.getProcessedFrames();
+        if (frames != lastFrames) {
+            final long now = clock.nanoTime();
+            final double dt = (now - lastFrameNanos) * 1e-9;
+            lastFrames = frames;
+            lastFrameNanos = now;
+            onFrame(dt);
+        }
+        if (aligned && Math.abs(strafeVelocity(state)) < SETTLED_IPS) {
+            return false;
+        }
+
+        final double turn = turnSign * Math.max(-MAX_HEADING_CORRECTION, Math.min(MAX_HEADING_CORRECTION,
+                HEADING_KP * Pose.wrapAngle(heading - state.heading)));
+        MecanumKinematics.powers(0.0, aligned ? 0.0 : strafe, turn, wheelPowers);
+        return true;
+    }
+
+    private void onFrame(double dt) {
+        if (!target.isFound()) {
+            centeredFrames = 0;
+            aligned = false;
+            if (!seen) {
+                strafe = searchSpeed * searchDirection;
+            } else if (++lostFrames > LOST_FRAMES) {
+                strafe = searchSpeed * Math.signum(lastError);
+            } else {
+                strafe = 0.0;
+            }
+            return;
+        }
+        if (!seen) {
+            // Coming out of the search: start the loop afresh on this frame.
+            controller.reset();
+            seen = true;
+        }
+        lostFrames = 0;
+        lastError = target.getAlignmentError();
+        // Target 0 offset; the loop's output opposes the offset, and a positive offset needs a right strafe.
+        strafe = -controller.update(lastError, dt);
+        if (Math.abs(lastError) <= TOLERANCE) {
+            ++centeredFrames;
+        } else {
+            centeredFrames = 0;
+        }
+        aligned = centeredFrames >= SETTLE_FRAMES;
+    }
+
+    private static int strafeCounts(RobotState state) {
+        return state.lfPosition - state.lrPosition - state.rfPosition + state.rrPosition;
+    }
+
+    private double strafeVelocity(RobotState state) {
+        return (state.lfVelocity - state.lrVelocity - state.rfVelocity + state.rrVelocity) / (4.0 * countsPerInch);
+    }
+
+    /**
+     * @return true if the last run ended centered on the gold
+     */
+    public boolean isAligned() {
+        return aligned;
+    }
+
+    /**
+     * @return inches strafed in the last run, positive to the right
+     */
+    public double getStrafeInches() {
+        return strafeInches;
+    }
+
+    /**
+     * @return the gold's offset on the last frame it was seen, fraction of frame width
+     */
+    public double getLastError() {
+        return lastError;
+    }
+}
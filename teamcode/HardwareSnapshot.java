@@ -0,0 +1,171 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.robotcore.external.navigation.Acceleration;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+
+/**
+ * Reads the drive encoders, busy flags and IMU once per control cycle into a
+ * {@link RobotState}.
+ * <p>
+ * Every getCurrentPosition()/isBusy()/IMU call is a separate hub transaction, so
+ * this is the only place that should make them; the IMU can instead be polled on
+ * its own thread by an {@link AsyncImuReader}. Velocities are differenced from
+ * consecutive encoder counts rather than read, which costs nothing extra; so is
+ * the turn rate when the IMU is read inline.
+ * <p>
+ * This SDK has no bulk-read command, so a cycle is still one transaction per value.
+ * Should the hubs gain bulk caching, {@link #read()} is the only place to change.
+ */
+public class HardwareSnapshot {
+    private final DcMotor lf, lr, rf, rr;
+    private final BNO055IMU imu;
+    private final NanoClock clock;
+    private final RobotState state = new RobotState();
+    private AsyncImuReader imuReader = null;
+    private final ImuSample imuSample = new ImuSample();
+
+    private boolean readBusy = true;
+    private boolean readGravity = true;
+    private boolean primed = false;
+
+    /**
+     * @param _lf  Left front motor
+     * @param _lr  Left rear motor
+     * @param _rf  Right front motor
+     * @param _rr  Right rear motor
+     * @param _imu IMU to read heading and gravity from, or null if there is none
+     */
+    public HardwareSnapshot(DcMotor _lf, DcMotor _lr, DcMotor _rf, DcMotor _rr, BNO055IMU _imu) {
+        this(_lf, _lr, _rf, _rr, _imu, clockFor(_lf));
+    }
+
+    public HardwareSnapshot(DcMotor _lf, DcMotor _lr, DcMotor _rf, DcMotor _rr, BNO055IMU _imu,
+                            NanoClock _clock) {
+        lf = _lf;
+        lr = _lr;
+        rf = _rf;
+        rr = _rr;
+        imu = _imu;
+        clock = _clock;
+    }
+
+    /**
+     * @return the device's own clock if it keeps one (simulated hardware does),
+     *         otherwise the system clock
+     */
+    public static NanoClock clockFor(Object device) {
+        return device instanceof NanoClock.Source ? ((NanoClock.Source) device).getClock() : NanoClock.SYSTEM;
+    }
+
+    /**
+     * Skip the four isBusy() reads when nothing is running to position,
+     * e.g. in teleop.
+     */
+    public void setReadBusy(boolean _readBusy) {
+        readBusy = _readBusy;
+    }
+
+    /**
+     * Take heading, turn rate and gravity from a reader polling the IMU on its
+     * own thread whenever that reader is running and has published a sample,
+     * instead of reading the IMU inline. The reader should use the same clock as
+     * this snapshot.
+     */
+    public void setImuReader(AsyncImuReader _imuReader) {
+        imuReader = _imuReader;
+    }
+
+    /**
+     * Skip the gravity read when only the heading is needed.
+     */
+    public void setReadGravity(boolean _readGravity) {
+        readGravity = _readGravity;
+    }
+
+    /**
+     * Take a new snapshot. Call once at the top of every loop iteration.
+     *
+     * @return the refreshed state (the same instance every call)
+     */
+    public RobotState read() {
+        final long now = clock.nanoTime();
+        final int lfPos = lf.getCurrentPosition();
+        final int lrPos = lr.getCurrentPosition();
+        final int rfPos = rf.getCurrentPosition();
+        final int rrPos = rr.getCurrentPosition();
+
+        if (primed && now > state.timestampNanos) {
+            final double dt = (now - state.timestampNanos) * 1e-9;
+            state.dtSeconds = dt;
+            state.lfVelocity = (lfPos - state.lfPosition) / dt;
+            state.lrVelocity = (lrPos - state.lrPosition) / dt;
+            state.rfVelocity = (rfPos - state.rfPosition) / dt;
+            state.rrVelocity = (rrPos - state.rrPosition) / dt;
+        } else {
+            state.dtSeconds = 0.0;
+            state.lfVelocity = 0.0;
+            state.lrVelocity = 0.0;
+            state.rfVelocity = 0.0;
+            state.rrVelocity = 0.0;
+        }
+        state.timestampNanos = now;
+        state.lfPosition = lfPos;
+        state.lrPosition = lrPos;
+        state.rfPosition = rfPos;
+        state.rrPosition = rrPos;
+
+        if (readBusy) {
+            state.lfBusy = lf.isBusy();
+            state.lrBusy = lr.isBusy();
+            state.rfBusy = rf.isBusy();
+            state.rrBusy = rr.isBusy();
+        }
+
+        if (imuReader != null && imuReader.isRunning()) {
+            imuReader.read(imuSample);
+        }
+        if (imuReader != null && imuReader.isRunning() && imuSample.sequence != 0) {
+            state.heading = imuSample.heading;
+            state.headingRate = imuSample.headingRate;
+            state.gravityX = imuSample.gravityX;
+            state.gravityY = imuSample.gravityY;
+            state.gravityZ = imuSample.gravityZ;
+            state.imuTimestampNanos = imuSample.timestampNanos;
+        } else if (imu != null) {
+            // Until the reader has published, read inline rather than report heading 0 from time 0.
+            final double heading = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle;
+            state.headingRate = primed && now > state.imuTimestampNanos
+                    ? Pose.wrapAngle(heading - state.heading) / ((now - state.imuTimestampNanos) * 1e-9) : 0.0;
+            state.imuTimestampNanos = now;
+            state.heading = heading;
+            if (readGravity) {
+                final Acceleration gravity = imu.getGravity();
+                state.gravityX = gravity.xAccel;
+                state.gravityY = gravity.yAccel;
+                state.gravityZ = gravity.zAccel;
+            }
+        }
+
+        primed = true;
+        return state;
+    }
+
+    /**
+     * @return the clock that timestamps each snapshot
+     */
+    public NanoClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return the most recent snapshot without touching the hardware
+     */
+    public RobotState getState() {
+        return state;
+    }
+}
@@ -0,0 +1,27 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * One reading of a heading sensor, as published by {@link AsyncImuReader}.
+ * <p>
+ * Plain fields so a control loop can keep one instance and have it refilled
+ * every cycle without allocating.
+ */
+public class ImuSample {
+    /** Heading in radians, CCW positive, as the sensor reports it. */
+    public double heading;
+    /** Turn rate in radians per second, CCW positive. */
+    public double headingRate;
+    /** Gravity vector in m/s^2; zero for sensors without an accelerometer. */
+    public double gravityX, gravityY, gravityZ;
+    /** When the sensor was read, from the reader's {@link NanoClock}. */
+    public long timestampNanos;
+    /** Counts up by one for every sample published; 0 before the first. */
+    public long sequence;
+
+    /**
+     * @return seconds between this sample and a time from the same clock
+     */
+    public double ageSeconds(long nowNanos) {
+        return (nowNanos - timestampNanos) * 1e-9;
+    }
+}
@@ -0,0 +1,241 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+/**
+ * The lift as a subsystem of its own: its own counts per inch, a profiled move
+ * tracked by a {@link PIDFController}, and stall detection for landing.
+ * <p>
+ * A move follows a trapezoidal {@link MotionProfile} rather than running flat
+ * out, so the robot is let down off the lander instead of dropped. The loop
+ * runs in RUN_USING_ENCODER on inches, with velocity feedforward along the
+ * profile.
+ * <p>
+ * A landing ({@link #land}) also ends as soon as the lift stalls, i.e. the slide
+ * has reached its stop or the robot is standing on the field and the lift
+ * cannot go further. The SDK 4 motor API reports no current, so a stall is seen
+ * as the encoder moving slower than {@link #setStallDetection stallVelocity}
+ * for a while although the loop is driving it.
+ * <p>
+ * Call {@link #update()} once per loop; it reads the encoder once. Nothing is
+ * allocated after construction.
+ */
+public class LiftController {
+    /** NeveRest 40 encoder counts per output shaft turn. */
+    public static final double MOTOR_COUNTS_PER_REV = 1120;
+    /**
+     * Spool diameter, inches. An estimate, not measured on the robot. The autos'
+     * lift moves were converted from encoder counts with it and note the counts
+     * they stand for, so if it is corrected they can be converted again.
+     */
+    public static final double SPOOL_DIAMETER_INCHES = 1.25;
+    /** Lift encoder counts per inch of travel, from the estimated spool. */
+    public static final double COUNTS_PER_INCH = MOTOR_COUNTS_PER_REV / (SPOOL_DIAMETER_INCHES * Math.PI);
+    /** Free speed of a NeveRest 40 on the estimated spool, inches per second at full power. */
+    public static final double DEFAULT_FREE_SPEED = 10.5;
+    public static final double DEFAULT_MAX_VELOCITY = 8.0;      // in/s
+    public static final double DEFAULT_MAX_ACCEL = 20.0;        // in/s^2
+    public static final double DEFAULT_KP = 1.6;                // Power per inch of error
+    public static final double DEFAULT_KI = 0.6;                // Power per inch-second, to finish against gravity
+    public static final double DEFAULT_KD = 0.06;               // Power per inch per second
+    public static final double DEFAULT_TOLERANCE = 0.1;         // Inches
+    public static final double DEFAULT_STALL_VELOCITY = 0.3;    // in/s
+    public static final double DEFAULT_STALL_SECONDS = 0.2;
+
+    /** Time after a start before a stall can count, to let the lift get moving. */
+    static final double STALL_ARM_SECONDS = 0.25;
+    /** Least loop output, either way, that counts as trying to move. */
+    static final double STALL_MIN_POWER = 0.15;
+    /** Time constant of the velocity estimate's low-pass, seconds. */
+    static final double VELOCITY_FILTER = 0.04;
+
+    private final DcMotor motor;
+    private final double countsPerInch;
+    private final NanoClock clock;
+    private final PIDFController controller;
+    private final MotionProfile profile = new MotionProfile(500);
+
+    private double maxVelocity = DEFAULT_MAX_VELOCITY;
+    private double maxAccel = DEFAULT_MAX_ACCEL;
+    private double stallVelocity = DEFAULT_STALL_VELOCITY;
+    private double stallSeconds = DEFAULT_STALL_SECONDS;
+
+    private boolean busy = false;
+    private boolean landing = false;
+    private boolean stalled = false;
+    private double direction = 0.0;
+    private double target = 0.0;
+    private double setpoint = 0.0;
+    private double position = 0.0;
+    private double lastPosition = 0.0;
+    private double velocity = 0.0;
+    private double stallTime = 0.0;
+    private long startNanos = 0;
+    private long lastNanos = 0;
+    private long deadlineNanos = 0;
+
+    /**
+     * @param _motor         The lift motor; positive power must raise the count
+     * @param _countsPerInch Encoder counts per inch of lift travel
+     * @param _clock         Time source for the profile and the loop
+     */
+    public LiftController(DcMotor _motor, double _countsPerInch, NanoClock _clock) {
+        motor = _motor;
+        countsPerInch = _countsPerInch;
+        clock = _clock;
+        controller = new PIDFController(DEFAULT_KP, DEFAULT_KI, DEFAULT_KD, clock);
+        controller.setFeedforward(1.0 / DEFAULT_FREE_SPEED, 0.0, 0.0);
+        controller.setIntegralLimit(0.3);
+        controller.setDerivativeFilter(0.05);
+        controller.setTolerance(DEFAULT_TOLERANCE, 1.0);
+    }
+
+    /**
+     * @return the position loop, to tune its gains and tolerances
+     */
+    public PIDFController getController() {
+        return controller;
+    }
+
+    public double getCountsPerInch() {
+        return countsPerInch;
+    }
+
+    /**
+     * @param _maxVelocity Cruise speed of a full-speed move, inches per second
+     * @param _maxAccel    Acceleration limit, inches per second squared
+     */
+    public void setConstraints(double _maxVelocity, double _maxAccel) {
+        maxVelocity = _maxVelocity;
+        maxAccel = _maxAccel;
+    }
+
+    /**
+     * @param _stallVelocity Speed, inches per second, below which the lift counts as stalled
+     * @param _stallSeconds  How long it must stay that slow
+     */
+    public void setStallDetection(double _stallVelocity, double _stallSeconds) {
+        stallVelocity = _stallVelocity;
+        stallSeconds = _stallSeconds;
+    }
+
+    /**
+     * Start a profiled move relative to where the lift is now. It ends on target
+     * or at the timeout.
+     *
+     * @param inches   Travel, positive to raise the count
+     * @param speed    Fraction of full speed and most power the loop may use, 0 to 1
+     * @param timeoutS Longest the move may take
+     */
+    public void moveBy(double inches, double speed, double timeoutS) {
+        start(inches, speed, timeoutS, false);
+    }
+
+    /**
+     * Start a landing: as {@link #moveBy} but it also ends as soon as the lift stalls.
+     *
+     * @param inches Full travel, the most the lift may go before touching down
+     */
+    public void land(double inches, double speed, double timeoutS) {
+        start(inches, speed, timeoutS, true);
+    }
+
+    private void start(double inches, double speed, double timeoutS, boolean _landing) {
+        speed = Math.max(0.0, Math.min(1.0, Math.abs(speed)));
+        motor.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+        final long now = clock.nanoTime();
+        position = motor.getCurrentPosition() / countsPerInch;
+        lastPosition = position;
+        velocity = 0.0;
+        setpoint = position;
+        target = position + inches;
+        direction = Math.signum(inches);
+        profile.generate(inches, maxVelocity * speed, maxAccel, 0.0);
+        controller.reset();
+        controller.setOutputLimits(-speed, speed);
+        controller.setTarget(setpoint);
+        landing = _landing;
+        stalled = false;
+        stallTime = 0.0;
+        startNanos = now;
+        lastNanos = now;
+        deadlineNanos = now + (long) (timeoutS * 1e9);
+        busy = true;
+    }
+
+    /**
+     * Advance the move by one loop: read the encoder, step the profile, run the
+     * loop and check for a stall.
+     *
+     * @return true while the move is still running
+     */
+    public boolean update() {
+        if (!busy) {
+            return false;
+        }
+        final long now = clock.nanoTime();
+        final double dt = (now - lastNanos) * 1e-9;
+        lastNanos = now;
+        position = motor.getCurrentPosition() / countsPerInch;
+        if (dt > 0.0) {
+            final double alpha = dt / (VELOCITY_FILTER + dt);
+            velocity += alpha * ((position - lastPosition) / dt - velocity);
+        }
+        lastPosition = position;
+
+        final double t = (now - startNanos) * 1e-9;
+        final boolean profileDone = t >= profile.duration();
+        final double targetVelocity = profileDone ? 0.0 : direction * profile.velocityAt(t);
+        setpoint = profileDone ? target : setpoint + targetVelocity * dt;
+        controller.setTarget(setpoint);
+        final double power = controller.update(position, targetVelocity, 0.0, dt);
+
+        if (landing && t >= STALL_ARM_SECONDS && Math.abs(power) >= STALL_MIN_POWER
+                && Math.abs(velocity) < stallVelocity) {
+            stallTime += dt;
+        } else {
+            stallTime = 0.0;
+        }
+        stalled = stallTime >= stallSeconds;
+
+        if (stalled || (profileDone && controller.isAtTarget()) || now >= deadlineNanos) {
+            stop();
+            return false;
+        }
+        motor.setPower(power);
+        return true;
+    }
+
+    /**
+     * End the move and let go of the motor.
+     */
+    public void stop() {
+        motor.setPower(0.0);
+        busy = false;
+    }
+
+    public boolean isBusy() {
+        return busy;
+    }
+
+    /**
+     * @return true if the last landing ended because the lift stalled
+     */
+    public boolean isStalled() {
+        return stalled;
+    }
+
+    /**
+     * @return lift position in inches as of the last update
+     */
+    public double getPosition() {
+        return position;
+    }
+
+    /**
+     * @return filtered lift speed in inches per second as of the last update
+     */
+    public double getVelocity() {
+        return velocity;
+    }
+}
@@ -0,0 +1,161 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.Locale;
+
+/**
+ * Measures how long each pass of a control loop takes.
+ * <p>
+ * Call {@link #tick()} once per loop iteration. Periods are kept in a fixed
+ * log-linear histogram (the HdrHistogram layout): exact to the microsecond up to
+ * 64 us and within about 3% above that, up to half an hour. Ticking never
+ * allocates, so the timer does not disturb the loop it measures.
+ */
+public class LoopTimer {
+    // 64 linear buckets, then 32 buckets per doubling.
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final long MAX_MICROS = (1L << 31) - 1;
+    private static final int BUCKETS = SUB_COUNT + (31 - SUB_BITS) * HALF_COUNT;
+
+    private final NanoClock clock;
+    private final long[] counts = new long[BUCKETS];
+
+    private long lastNanos = 0;
+    private boolean primed = false;
+    private long count = 0;
+    private long totalMicros = 0;
+    private long maxMicros = 0;
+
+    public LoopTimer() {
+        this(NanoClock.SYSTEM);
+    }
+
+    public LoopTimer(NanoClock _clock) {
+        clock = _clock;
+    }
+
+    /**
+     * Mark the start of a loop iteration, reading the time from the clock.
+     */
+    public void tick() {
+        tick(clock.nanoTime());
+    }
+
+    /**
+     * Mark the start of a loop iteration at a time already read, e.g. a
+     * {@link RobotState} timestamp, to save a clock read.
+     */
+    public void tick(long nowNanos) {
+        if (primed) {
+            record((nowNanos - lastNanos) / 1000L);
+        }
+        lastNanos = nowNanos;
+        primed = true;
+    }
+
+    /**
+     * Forget every period so far. The next tick starts a new measurement.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts[i] = 0;
+        }
+        primed = false;
+        count = 0;
+        totalMicros = 0;
+        maxMicros = 0;
+    }
+
+    /**
+     * @return number of periods measured
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return mean loop rate in Hz, 0 before the second tick
+     */
+    public double getHz() {
+        return totalMicros == 0 ? 0.0 : count * 1e6 / totalMicros;
+    }
+
+    /**
+     * @return mean period in milliseconds
+     */
+    public double getMeanMs() {
+        return count == 0 ? 0.0 : totalMicros * 1e-3 / count;
+    }
+
+    /**
+     * @return longest period in milliseconds
+     */
+    public double getMaxMs() {
+        return maxMicros * 1e-3;
+    }
+
+    /**
+     * @param percentile 0 to 100, e.g. 50 for the median or 99
+     * @return the period in milliseconds that this share of loops came in under
+     */
+    public double getPercentileMs(double percentile) {
+        if (count == 0) {
+            return 0.0;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), maxMicros) * 1e-3;
+            }
+        }
+        return getMaxMs();
+    }
+
+    /**
+     * Add one telemetry line with the loop rate and period percentiles.
+     */
+    public void addTelemetry(Telemetry telemetry) {
+        telemetry.addData("Loop", format());
+    }
+
+    /**
+     * @return the loop rate and period percentiles as one line of text
+     */
+    public String format() {
+        return String.format(Locale.US, "%.0f Hz  p50 %.1f  p99 %.1f  max %.1f ms",
+                             getHz(), getPercentileMs(50), getPercentileMs(99), getMaxMs());
+    }
+
+    private void record(long micros) {
+        micros = Math.max(0L, Math.min(MAX_MICROS, micros));
+        ++counts[bucketOf(micros)];
+        ++count;
+        totalMicros += micros;
+        if (micros > maxMicros) {
+            maxMicros = micros;
+        }
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_COUNT) {
+            return (int) micros;
+        }
+        // Shift so the value lands in [HALF_COUNT, SUB_COUNT).
+        final int shift = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BITS - 1);
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + (int) ((micros >> shift) - HALF_COUNT);
+    }
+
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        final int shift = (bucket - SUB_COUNT) / HALF_COUNT + 1;
+        final long sub = (bucket - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
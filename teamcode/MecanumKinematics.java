@@ -0,0 +1,107 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Mecanum drive math without trig or allocation.
+ * <p>
+ * Wheels are in lf, lr, rf, rr order with one side reversed, so a positive value
+ * on every wheel drives forward. Chassis motion is forward, strafe (positive to
+ * the right) and turn. Turn is counter-clockwise, the way the IMU heading grows,
+ * when the right side is reversed, as in Robot; the autos reverse the left side
+ * instead, which makes it clockwise, so callers closing a loop on the heading
+ * multiply by {@link MotionEngine#turnSign}.
+ * <p>
+ * The old hypot/atan2/cos/sin mix rotates the stick by 45 degrees, which works out
+ * to sums and differences of the stick axes scaled by {@link #STICK_SCALE}; that is
+ * all {@link #inverse} does.
+ */
+public class MecanumKinematics {
+    // Wheel array indices
+    public static final int LF = 0;
+    public static final int LR = 1;
+    public static final int RF = 2;
+    public static final int RR = 3;
+
+    // Chassis array indices
+    public static final int FORWARD = 0;
+    public static final int STRAFE = 1;
+    public static final int TURN = 2;
+
+    /** sin(45) = cos(45); what the teleop stick mix scales each axis by. */
+    public static final double STICK_SCALE = Math.sqrt(0.5);
+
+    private final double turnRadius;
+
+    /**
+     * @param _trackWidth Distance between the left and right wheels
+     * @param _wheelBase  Distance between the front and rear wheels, same unit
+     */
+    public MecanumKinematics(double _trackWidth, double _wheelBase) {
+        turnRadius = (_trackWidth + _wheelBase) / 2.0;
+    }
+
+    /**
+     * Wheel speeds for a chassis velocity, not normalized.
+     *
+     * @param forward Forward speed
+     * @param strafe  Speed to the right, same unit
+     * @param omega   Counter-clockwise turn rate in radians per the same time unit
+     * @param wheels  Filled with the four wheel surface speeds
+     */
+    public void inverse(double forward, double strafe, double omega, double[] wheels) {
+        mix(forward, strafe, omega * turnRadius, wheels);
+    }
+
+    /**
+     * Chassis displacement from the four wheel travels since the last call.
+     *
+     * @param wheels       Wheel travel, e.g. inches from encoder deltas
+     * @param displacement Filled with forward, strafe (same unit) and turn in radians
+     */
+    public void forward(double[] wheels, double[] displacement) {
+        displacement[FORWARD] = (wheels[LF] + wheels[LR] + wheels[RF] + wheels[RR]) / 4.0;
+        displacement[STRAFE] = (wheels[LF] - wheels[LR] - wheels[RF] + wheels[RR]) / 4.0;
+        displacement[TURN] = (-wheels[LF] - wheels[LR] + wheels[RF] + wheels[RR]) / (4.0 * turnRadius);
+    }
+
+    /**
+     * Motor powers for a driver command, scaled like Robot.setMotors() so no wheel
+     * is asked for more than full power and the direction of travel is kept.
+     *
+     * @param forward Forward power
+     * @param strafe  Power to the right
+     * @param turn    Counter-clockwise power, added straight onto the wheels
+     * @param powers  Filled with the four motor powers
+     */
+    public static void powers(double forward, double strafe, double turn, double[] powers) {
+        mix(forward, strafe, turn, powers);
+        normalize(powers, 1.0);
+    }
+
+    /**
+     * Scale every wheel by the same factor so none is above the limit.
+     *
+     * @return the factor the wheels were divided by, 1 if they already fit
+     */
+    public static double normalize(double[] wheels, double limit) {
+        double max = limit;
+        for (int i = 0; i < 4; ++i) {
+            if (Math.abs(wheels[i]) > max) {
+                max = Math.abs(wheels[i]);
+            }
+        }
+        final double scale = max / limit;
+        if (scale > 1.0) {
+            for (int i = 0; i < 4; ++i) {
+                wheels[i] /= scale;
+            }
+        }
+        return scale;
+    }
+
+    private static void mix(double forward, double strafe, double turn, double[] wheels) {
+        wheels[LF] = forward + strafe - turn;
+        wheels[LR] = forward - strafe - turn;
+        wheels[RF] = forward - strafe + turn;
+        wheels[RR] = forward + strafe + turn;
+    }
+}
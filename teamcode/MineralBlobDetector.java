@@ -0,0 +1,428 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Finds the gold and silver minerals by colour alone, in plain Java.
+ * <p>
+ * Pixels are sampled on a grid, every {@link #getStride()} pixels, converted
+ * to YCrCb and classed as gold (yellow: low Cb), silver (bright and grey) or
+ * neither. Neighbouring cells of the same class are joined into blobs in one
+ * two-pass connected-component sweep. Blobs too small, too long or too high in
+ * the frame (in the crater) are dropped, like {@link SamplingVoter} drops TFOD
+ * boxes.
+ * <p>
+ * The result reads like DogeCV's GoldAlignDetector: {@link #isFound()},
+ * {@link #getXPosition()} and {@link #getAligned()}, in pixels of the full
+ * frame, with the same alignSize and alignPosOffset tuning. As a
+ * {@link SampleDetector} it reads the two minerals nearest the camera the way
+ * the Flowy autos read TFOD: gold left of silver is CENTER, gold right of it
+ * RIGHT, two silvers LEFT.
+ * <p>
+ * All memory is allocated in the constructor, sized for the largest frame.
+ * A larger frame is sampled more coarsely to fit, so nothing is allocated per
+ * frame. Frames come as an {@link RgbFrame} or as packed ARGB ints, as Android
+ * bitmaps give them.
+ * <p>
+ * It has not yet been measured against {@link DogeCvSampleDetector}: that
+ * needs recorded runs and a machine with the OpenCV native library. Until the
+ * two have been put through the same runs,
+ * <pre>
+ *     java ... org.firstinspires.ftc.teamcode.VisionBenchmark dataset/ MineralBlobDetector DogeCvSampleDetector
+ * </pre>
+ * nothing says it is as accurate or faster, and the autos keep DogeCV.
+ */
+public class MineralBlobDetector implements SampleDetector {
+    public static final int NONE = 0;
+    public static final int GOLD = 1;
+    public static final int SILVER = 2;
+
+    public static final int DEFAULT_MAX_WIDTH = 1280;
+    public static final int DEFAULT_MAX_HEIGHT = 720;
+    public static final int DEFAULT_STRIDE = 4;
+
+    // Tuning, in the spirit of the DogeCV detectors' public fields.
+    /** Width, in frame pixels, of the zone in which the gold counts as aligned. */
+    public double alignSize = 250;
+    /** Offset of the alignment zone from the frame center, frame pixels. */
+    public double alignPosOffset = 0;
+    /** Highest a mineral's bottom edge can be, as a fraction of frame height from the top. */
+    public double roiTop = 0.4;
+    /** Gold is any pixel with Cb at or below this, and Y at or above {@link #goldMinY}. */
+    public int goldMaxCb = 95;
+    public int goldMinY = 60;
+    /** Silver is any pixel this bright whose Cr and Cb are within {@link #silverMaxChroma} of grey. */
+    public int silverMinY = 170;
+    public int silverMaxChroma = 18;
+    /** Smallest blob that counts, as a fraction of the grid cells. */
+    public double minAreaFraction = 0.002;
+    /** Widest height-to-width ratio, either way, a blob may have. */
+    public double maxAspect = 2.0;
+
+    /** Weight of a reading that rests on two silvers and no gold. */
+    static final double SILVER_ONLY_WEIGHT = 0.8;
+
+    private final int minStride;
+    private final int capacity;
+
+    // Workspace, one entry per grid cell or per label.
+    private final byte[] cellClass;
+    private final int[] labels;
+    private final int[] parent;
+    private final byte[] labelClass;
+    private final int[] area;
+    private final int[] sumX;
+    private final int[] minX;
+    private final int[] maxX;
+    private final int[] minY;
+    private final int[] maxY;
+
+    // Result of the last frame.
+    private int frameWidth = 0;
+    private int frameHeight = 0;
+    private int stride;
+    private int blobCount = 0;
+    private boolean found = false;
+    private double goldX = 0.0;
+    private double goldY = 0.0;
+    private double goldArea = 0.0;
+    private TrajectoryCache.Gold reading = TrajectoryCache.Gold.UNKNOWN;
+    private double weight = 0.0;
+
+    public MineralBlobDetector() {
+        this(DEFAULT_MAX_WIDTH, DEFAULT_MAX_HEIGHT, DEFAULT_STRIDE);
+    }
+
+    /**
+     * @param _maxWidth  Widest frame to sample at full stride
+     * @param _maxHeight Tallest frame to sample at full stride
+     * @param _stride    Pixels between samples, 1 to look at every pixel
+     */
+    public MineralBlobDetector(int _maxWidth, int _maxHeight, int _stride) {
+        if (_maxWidth <= 0 || _maxHeight <= 0 || _stride <= 0) {
+            throw new IllegalArgumentException("Bad workspace " + _maxWidth + "x" + _maxHeight + "/" + _stride);
+        }
+        minStride = _stride;
+        stride = _stride;
+        final int cells = ((_maxWidth + _stride - 1) / _stride) * ((_maxHeight + _stride - 1) / _stride);
+        // Worst case every cell is its own blob, plus label 0.
+        capacity = cells + 1;
+        cellClass = new byte[cells];
+        labels = new int[cells];
+        parent = new int[capacity];
+        labelClass = new byte[capacity];
+        area = new int[capacity];
+        sumX = new int[capacity];
+        minX = new int[capacity];
+        maxX = new int[capacity];
+        minY = new int[capacity];
+        maxY = new int[capacity];
+    }
+
+    @Override
+    public String getName() {
+        return "MineralBlobDetector";
+    }
+
+    @Override
+    public void reset() {
+        found = false;
+        reading = TrajectoryCache.Gold.UNKNOWN;
+        weight = 0.0;
+    }
+
+    @Override
+    public TrajectoryCache.Gold detect(RgbFrame frame) {
+        process(frame);
+        return reading;
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Find the minerals in a frame of RGB bytes.
+     */
+    public void process(RgbFrame frame) {
+        start(frame.width, frame.height);
+        final byte[] pixels = frame.pixels;
+        final int gridW = gridWidth();
+        final int gridH = gridHeight();
+        final int half = stride / 2;
+        for (int gy = 0; gy < gridH; ++gy) {
+            final int y = Math.min(gy * stride + half, frameHeight - 1);
+            for (int gx = 0; gx < gridW; ++gx) {
+                final int x = Math.min(gx * stride + half, frameWidth - 1);
+                final int p = 3 * (y * frameWidth + x);
+                cellClass[gy * gridW + gx] = classify(pixels[p] & 0xff, pixels[p + 1] & 0xff, pixels[p + 2] & 0xff);
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Find the minerals in a frame of packed ARGB ints, e.g. from Bitmap.getPixels().
+     */
+    public void process(int[] argb, int width, int height) {
+        if (argb.length < width * height) {
+            throw new IllegalArgumentException("Buffer too small for " + width + "x" + height);
+        }
+        start(width, height);
+        final int gridW = gridWidth();
+        final int gridH = gridHeight();
+        final int half = stride / 2;
+        for (int gy = 0; gy < gridH; ++gy) {
+            final int y = Math.min(gy * stride + half, frameHeight - 1);
+            for (int gx = 0; gx < gridW; ++gx) {
+                final int x = Math.min(gx * stride + half, frameWidth - 1);
+                final int c = argb[y * frameWidth + x];
+                cellClass[gy * gridW + gx] = classify((c >> 16) & 0xff, (c >> 8) & 0xff, c & 0xff);
+            }
+        }
+        finish();
+    }
+
+    private void start(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Bad frame " + width + "x" + height);
+        }
+        frameWidth = width;
+        frameHeight = height;
+        // Coarsen the grid until it fits the workspace.
+        stride = minStride;
+        while (gridWidth() * gridHeight() > cellClass.length) {
+            ++stride;
+        }
+    }
+
+    private int gridWidth() {
+        return (frameWidth + stride - 1) / stride;
+    }
+
+    private int gridHeight() {
+        return (frameHeight + stride - 1) / stride;
+    }
+
+    /**
+     * Class one pixel by its YCrCb (BT.601, full range, as OpenCV converts).
+     */
+    private byte classify(int r, int g, int b) {
+        final int y = (77 * r + 150 * g + 29 * b) >> 8;
+        final int cr = (((r - y) * 183) >> 8) + 128;
+        final int cb = (((b - y) * 144) >> 8) + 128;
+        if (cb <= goldMaxCb && y >= goldMinY) {
+            return GOLD;
+        }
+        if (y >= silverMinY && Math.abs(cr - 128) <= silverMaxChroma && Math.abs(cb - 128) <= silverMaxChroma) {
+            return SILVER;
+        }
+        return NONE;
+    }
+
+    /**
+     * Label the classed grid, measure the blobs and read the result.
+     */
+    private void finish() {
+        final int gridW = gridWidth();
+        final int gridH = gridHeight();
+
+        // Pass 1: provisional labels, joining 4-connected cells of a class.
+        int next = 1;
+        for (int gy = 0; gy < gridH; ++gy) {
+            for (int gx = 0; gx < gridW; ++gx) {
+                final int i = gy * gridW + gx;
+                final byte cls = cellClass[i];
+                if (cls == NONE) {
+                    labels[i] = 0;
+                    continue;
+                }
+                final int left = gx > 0 && cellClass[i - 1] == cls ? labels[i - 1] : 0;
+                final int up = gy > 0 && cellClass[i - gridW] == cls ? labels[i - gridW] : 0;
+                if (left == 0 && up == 0) {
+                    if (next < capacity) {
+                        parent[next] = next;
+                        labelClass[next] = cls;
+                        labels[i] = next++;
+                    } else {
+                        labels[i] = 0;
+                    }
+                } else if (left == 0 || up == 0) {
+                    labels[i] = left + up;
+                } else {
+                    final int a = find(left);
+                    final int b = find(up);
+                    final int root = Math.min(a, b);
+                    parent[a] = root;
+                    parent[b] = root;
+                    labels[i] = root;
+                }
+            }
+        }
+
+        // Pass 2: measure each blob at its root.
+        for (int l = 1; l < next; ++l) {
+            area[l] = 0;
+            sumX[l] = 0;
+            minX[l] = Integer.MAX_VALUE;
+            maxX[l] = -1;
+            minY[l] = Integer.MAX_VALUE;
+            maxY[l] = -1;
+        }
+        for (int gy = 0; gy < gridH; ++gy) {
+            for (int gx = 0; gx < gridW; ++gx) {
+                final int i = gy * gridW + gx;
+                if (labels[i] == 0) {
+                    continue;
+                }
+                final int root = find(labels[i]);
+                ++area[root];
+                sumX[root] += gx;
+                minX[root] = Math.min(minX[root], gx);
+                maxX[root] = Math.max(maxX[root], gx);
+                minY[root] = Math.min(minY[root], gy);
+                maxY[root] = Math.max(maxY[root], gy);
+            }
+        }
+
+        // Pick the best gold, and the two minerals nearest the camera.
+        final int minArea = Math.max(1, (int) (minAreaFraction * gridW * gridH));
+        final int lowestBottom = (int) (roiTop * gridH);
+        double bestScore = 0.0;
+        int best = 0;
+        int first = 0;
+        int second = 0;
+        blobCount = 0;
+        for (int l = 1; l < next; ++l) {
+            if (parent[l] != l || area[l] < minArea || maxY[l] < lowestBottom) {
+                continue;
+            }
+            final double aspect = (double) (maxY[l] - minY[l] + 1) / (maxX[l] - minX[l] + 1);
+            if (aspect > maxAspect || aspect < 1.0 / maxAspect) {
+                continue;
+            }
+            ++blobCount;
+            if (labelClass[l] == GOLD) {
+                final double score = area[l] * squareness(aspect);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = l;
+                }
+            }
+            if (first == 0 || maxY[l] > maxY[first]) {
+                second = first;
+                first = l;
+            } else if (second == 0 || maxY[l] > maxY[second]) {
+                second = l;
+            }
+        }
+
+        found = best != 0;
+        if (found) {
+            goldX = ((double) sumX[best] / area[best] + 0.5) * stride;
+            goldY = ((minY[best] + maxY[best] + 1) * 0.5) * stride;
+            goldArea = (double) area[best] * stride * stride;
+        }
+        read(first, second);
+    }
+
+    /**
+     * Read the gold position from the two nearest minerals.
+     */
+    private void read(int first, int second) {
+        reading = TrajectoryCache.Gold.UNKNOWN;
+        weight = 0.0;
+        if (second == 0) {
+            return;
+        }
+        final boolean firstGold = labelClass[first] == GOLD;
+        final boolean secondGold = labelClass[second] == GOLD;
+        if (firstGold && secondGold) {
+            return;
+        }
+        if (!firstGold && !secondGold) {
+            reading = TrajectoryCache.Gold.LEFT;
+            weight = SILVER_ONLY_WEIGHT;
+            return;
+        }
+        final int gold = firstGold ? first : second;
+        final int silver = firstGold ? second : first;
+        reading = minX[gold] < minX[silver] ? TrajectoryCache.Gold.CENTER : TrajectoryCache.Gold.RIGHT;
+        weight = squareness(gold) * squareness(silver);
+    }
+
+    private double squareness(int label) {
+        return squareness((double) (maxY[label] - minY[label] + 1) / (maxX[label] - minX[label] + 1));
+    }
+
+    /**
+     * @return 1 for a square blob, falling to 0 at maxAspect
+     */
+    private double squareness(double aspect) {
+        return Math.max(0.0, 1.0 - Math.abs(Math.log(aspect)) / Math.log(maxAspect));
+    }
+
+    private int find(int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    /**
+     * @return true if the last frame had a gold mineral in the sampling band
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * @return x of the gold's center, in pixels of the last frame
+     */
+    public double getXPosition() {
+        return goldX;
+    }
+
+    /**
+     * @return y of the gold's center, in pixels of the last frame
+     */
+    public double getYPosition() {
+        return goldY;
+    }
+
+    /**
+     * @return approximate area of the gold, in pixels of the last frame
+     */
+    public double getArea() {
+        return goldArea;
+    }
+
+    /**
+     * @return true if the gold is inside the alignment zone
+     */
+    public boolean getAligned() {
+        return found && Math.abs(goldX - (frameWidth / 2.0 + alignPosOffset)) <= alignSize / 2.0;
+    }
+
+    /**
+     * @return blobs of either colour that passed the checks in the last frame
+     */
+    public int getBlobCount() {
+        return blobCount;
+    }
+
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    /**
+     * @return pixels between samples in the last frame
+     */
+    public int getStride() {
+        return stride;
+    }
+}
@@ -0,0 +1,813 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.Servo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Non-blocking runner for autonomous moves.
+ * <p>
+ * Drive, lift and servo moves are queued on separate channels. Each call to
+ * {@link #update()} reads one {@link HardwareSnapshot} and advances every channel,
+ * so a lift or servo move runs while the drive train is still moving, and the next
+ * queued move on a channel starts on the same tick the previous one finishes.
+ * <p>
+ * Drive moves are profiled: instead of starting at full power and settling at the
+ * end, the power follows a {@link MotionProfile} ramp up to the move's speed and
+ * back down, with acceleration limits chosen by the kind of leg. RUN_TO_POSITION
+ * still owns the final position.
+ * <p>
+ * With {@link #setHeadingHold} on, forward, strafe and diagonal moves hold the
+ * IMU heading instead: they run on signed wheel powers in RUN_USING_ENCODER with
+ * a rotation correction mixed into every wheel before normalizing, and end when
+ * the wheels have covered the move. Turn moves still run to position and set the
+ * heading the following moves hold. The correction comes from a
+ * {@link PIDFController}, as does {@link #turnTo}. Which way a turn power turns
+ * the robot depends on which side the OpMode reversed; see {@link #setTurnSign}.
+ * Lift moves run on a
+ * {@link LiftController}. A {@link Steering} move hands the wheels to a
+ * closed loop of the caller's, e.g. {@link GoldAlignServo} on the camera.
+ * <p>
+ * Call update() from your while(opModeIsActive()) loop; it never sleeps or
+ * sends telemetry.
+ */
+public class MotionEngine {
+    /** The independent queues; a {@link Command} requires the ones it moves. */
+    public enum Channel { DRIVE, LIFT, SERVO }
+
+    /**
+     * Drive control worked out afresh every tick from what the robot senses,
+     * run as a move on the drive channel by {@link #steer}.
+     */
+    public interface Steering {
+        /**
+         * Called on the tick the move starts, with the motors in RUN_USING_ENCODER.
+         */
+        void start(RobotState state);
+
+        /**
+         * @param wheelPowers Filled with the LF, LR, RF, RR powers for this tick
+         * @return false once the move is done; the powers are then ignored
+         */
+        boolean update(RobotState state, double[] wheelPowers);
+    }
+
+    /** Wheel surface speed at full power, inches per second. */
+    public static final double MAX_WHEEL_IPS = 30.0;
+    /** Least power a profiled move commands, so RUN_TO_POSITION can always finish. */
+    public static final double MIN_POWER = 0.1;
+    /** Jerk limit for the S-curve, inches per second cubed. */
+    public static final double MAX_JERK = 150.0;
+    /** Most turn power heading hold may add to a wheel. */
+    public static final double MAX_HEADING_CORRECTION = 0.3;
+    /** Default turnTo() gains: power per radian, per radian per second, and to beat friction. */
+    public static final double TURN_KP = 1.2;
+    public static final double TURN_KD = 0.08;
+    public static final double TURN_KSTATIC = 0.06;
+    /** turnTo() ends within this many radians, turning slower than TURN_SETTLED_RATE. */
+    public static final double TURN_TOLERANCE = Math.toRadians(1.0);
+    public static final double TURN_SETTLED_RATE = Math.toRadians(10.0);
+
+    private final DcMotor lf, lr, rf, rr;
+    private final HardwareSnapshot snapshot;
+    private final double countsPerInch;
+
+    private LiftController lift = null;
+
+    private PoseTracker poseTracker = null;
+    private boolean poseUsesImu = false;
+    private final PurePursuitFollower follower = new PurePursuitFollower();
+    private final double[] wheelPowers = new double[4];
+
+    private final ArrayDeque<DriveMove> driveQueue = new ArrayDeque<DriveMove>();
+    private final ArrayDeque<LiftMove> liftQueue = new ArrayDeque<LiftMove>();
+    private final ArrayDeque<ServoMove> servoQueue = new ArrayDeque<ServoMove>();
+    private final ArrayList<ServoModel> servoModels = new ArrayList<ServoModel>();
+
+    private DriveMove drive = null;
+    private final MotionProfile profile = new MotionProfile(500);
+    private final double[] legAccel = { 30.0, 20.0, 25.0 };   // FORWARD, STRAFE, TURN in in/s^2
+    private boolean profiling = true;
+    private boolean driveProfiled = false;
+    private double drivePower = 0.0;
+    private boolean headingHold = false;
+    private double turnSign = 1.0;
+    private final PIDFController headingController;
+    private final PIDFController turnController;
+    private double targetHeading = 0.0;
+    private boolean targetHeadingSet = false;
+    private LiftMove liftMove = null;
+    private ServoMove servo = null;
+    private final LoopTimer loopTimer;
+
+    /**
+     * @param _lf            Left front motor
+     * @param _lr            Left rear motor
+     * @param _rf            Right front motor
+     * @param _rr            Right rear motor
+     * @param _snapshot      Snapshot over the same four motors; its clock times the moves
+     * @param _countsPerInch Drive encoder counts per inch of wheel travel
+     */
+    public MotionEngine(DcMotor _lf, DcMotor _lr, DcMotor _rf, DcMotor _rr,
+                        HardwareSnapshot _snapshot, double _countsPerInch) {
+        lf = _lf;
+        lr = _lr;
+        rf = _rf;
+        rr = _rr;
+        snapshot = _snapshot;
+        countsPerInch = _countsPerInch;
+        loopTimer = new LoopTimer(snapshot.getClock());
+
+        headingController = new PIDFController(0.0, 0.0, 0.0, snapshot.getClock());
+        headingController.setContinuous(2.0 * Math.PI);
+        headingController.setOutputLimits(-MAX_HEADING_CORRECTION, MAX_HEADING_CORRECTION);
+
+        turnController = new PIDFController(TURN_KP, 0.0, TURN_KD, snapshot.getClock());
+        turnController.setFeedforward(0.0, 0.0, TURN_KSTATIC);
+        turnController.setContinuous(2.0 * Math.PI);
+        turnController.setDerivativeFilter(0.05);
+        turnController.setTolerance(TURN_TOLERANCE, TURN_SETTLED_RATE);
+    }
+
+    /**
+     * Attach a lift motor with default tuning so {@link #lift(double, double, double)}
+     * can be used.
+     *
+     * @param _countsPerInch Lift encoder counts per inch of lift travel
+     */
+    public void setLift(DcMotor _lift, double _countsPerInch) {
+        setLift(new LiftController(_lift, _countsPerInch, snapshot.getClock()));
+    }
+
+    /**
+     * Run lift moves on a lift subsystem.
+     */
+    public void setLift(LiftController _lift) {
+        lift = _lift;
+    }
+
+    public LiftController getLift() {
+        return lift;
+    }
+
+    /**
+     * Keep a PoseTracker up to date from the snapshot taken by every {@link #update()}.
+     *
+     * @param useImu Take heading from the snapshot's IMU; pass false if the snapshot has none
+     */
+    public void setPoseTracker(PoseTracker _poseTracker, boolean useImu) {
+        poseTracker = _poseTracker;
+        poseUsesImu = useImu;
+        poseTracker.setTurnSign(turnSign);
+    }
+
+    /**
+     * Say which side of the drive the OpMode reversed, so heading corrections
+     * turn the right way. Wheel powers (-, -, +, +) turn the robot
+     * counter-clockwise, the way the IMU heading grows, when rf and rr are
+     * reversed; when lf and lr are reversed instead the robot's front is the
+     * other end and the same powers turn it clockwise. Heading hold,
+     * {@link #turnTo}, {@link #follow} and the pose tracker all follow this sign.
+     * A {@link Steering} sets its own powers, so pass it {@link #getTurnSign()}
+     * too, e.g. {@link GoldAlignServo#setTurnSign}.
+     *
+     * @param sign +1 with rf and rr reversed, -1 with lf and lr reversed; see {@link #turnSign}
+     */
+    public void setTurnSign(double sign) {
+        turnSign = sign < 0.0 ? -1.0 : 1.0;
+        follower.setTurnSign(turnSign);
+        if (poseTracker != null) {
+            poseTracker.setTurnSign(turnSign);
+        }
+    }
+
+    public double getTurnSign() {
+        return turnSign;
+    }
+
+    /**
+     * Work out the turn sign from the directions the OpMode has set. Call after
+     * setDirection().
+     *
+     * @return -1 if lf is reversed and rf is not, otherwise +1
+     */
+    public static double turnSign(DcMotor lf, DcMotor rf) {
+        return lf.getDirection() == DcMotorSimple.Direction.REVERSE
+                && rf.getDirection() != DcMotorSimple.Direction.REVERSE ? -1.0 : 1.0;
+    }
+
+    /**
+     * @return the tracked field pose, or null if no PoseTracker is attached
+     */
+    public Pose getPose() {
+        return poseTracker == null ? null : poseTracker.getPose();
+    }
+
+    /**
+     * @return the timer ticked by every {@link #update()}, i.e. the cycle time of
+     *         the loop that drives this engine
+     */
+    public LoopTimer getLoopTimer() {
+        return loopTimer;
+    }
+
+    /**
+     * @return the follower used by {@link #follow}, for tuning
+     */
+    public PurePursuitFollower getFollower() {
+        return follower;
+    }
+
+    /**
+     * Set the acceleration limit for one kind of leg.
+     *
+     * @param leg      Forward, strafe or turn
+     * @param maxAccel Wheel acceleration in inches per second squared
+     */
+    public void setLegAccel(MotionProfile.Leg leg, double maxAccel) {
+        legAccel[leg.ordinal()] = maxAccel;
+    }
+
+    /**
+     * Turn profiling off to drive every move at constant power, as encoderDrive did.
+     */
+    public void setProfiling(boolean _profiling) {
+        profiling = _profiling;
+    }
+
+    /**
+     * Hold the IMU heading through every move that does not turn. The snapshot
+     * must read an IMU. Until {@link #setTargetHeading} is called, the heading at
+     * the start of the next move is held.
+     *
+     * @param gain Turn power per radian of heading error, 0 to turn holding off
+     */
+    public void setHeadingHold(double gain) {
+        headingHold = gain > 0.0;
+        headingController.setPID(gain, 0.0, 0.0);
+    }
+
+    /**
+     * @return the loop behind heading hold, e.g. to add integral or derivative gain
+     */
+    public PIDFController getHeadingController() {
+        return headingController;
+    }
+
+    /**
+     * @return the loop behind {@link #turnTo}, for tuning
+     */
+    public PIDFController getTurnController() {
+        return turnController;
+    }
+
+    /**
+     * @param radians Heading to hold, in the snapshot's IMU frame
+     */
+    public void setTargetHeading(double radians) {
+        targetHeading = radians;
+        targetHeadingSet = true;
+    }
+
+    /**
+     * @return the heading being held, in radians
+     */
+    public double getTargetHeading() {
+        return targetHeading;
+    }
+
+    /**
+     * Queue a relative drive move, the same as the old encoderDrive().
+     *
+     * @param speed    Cruise power for the move
+     * @param lfInches Left front travel
+     * @param lrInches Left rear travel
+     * @param rfInches Right front travel
+     * @param rrInches Right rear travel
+     * @param timeoutS Give up after this many seconds
+     */
+    public void drive(double speed, double lfInches, double lrInches, double rfInches, double rrInches,
+                      double timeoutS) {
+        driveQueue.addLast(new DriveMove(false, Math.abs(speed), lfInches, lrInches, rfInches, rrInches, timeoutS));
+    }
+
+    /**
+     * Queue a drive through field waypoints, steered from the tracked pose so the
+     * robot does not stop at each corner.
+     *
+     * @param path     Waypoints in the PoseTracker's frame
+     * @param speed    Cruise power
+     * @param timeoutS Give up after this many seconds
+     * @throws IllegalStateException if no PoseTracker is attached
+     */
+    public void follow(Path path, double speed, double timeoutS) {
+        if (poseTracker == null) {
+            throw new IllegalStateException("MotionEngine needs a PoseTracker to follow a path");
+        }
+        driveQueue.addLast(new DriveMove(path, Math.abs(speed), timeoutS));
+    }
+
+    /**
+     * Queue a move steered by a closed loop of the caller's. It ends when the
+     * steering says so or at the timeout.
+     */
+    public void steer(Steering steering, double timeoutS) {
+        driveQueue.addLast(new DriveMove(steering, timeoutS));
+    }
+
+    /**
+     * Queue a turn in place to a heading, closed on the IMU rather than on wheel
+     * travel, so wheel slip does not leave the robot off heading. With heading
+     * hold on, the moves after it hold this heading.
+     *
+     * @param heading  Heading in radians, in the snapshot's IMU frame
+     * @param speed    Most turn power
+     * @param timeoutS Give up after this many seconds
+     */
+    public void turnTo(double heading, double speed, double timeoutS) {
+        driveQueue.addLast(new DriveMove(heading, Math.abs(speed), timeoutS));
+    }
+
+    /**
+     * Queue a wait on the drive channel, e.g. to let the robot settle between legs.
+     * The lift and servo channels keep running.
+     */
+    public void pause(double seconds) {
+        driveQueue.addLast(new DriveMove(true, 0.0, 0.0, 0.0, 0.0, 0.0, seconds));
+    }
+
+    /**
+     * Queue a relative lift move, the same as the old encoderLift().
+     */
+    public void lift(double speed, double inches, double timeoutS) {
+        if (lift == null) {
+            throw new IllegalStateException("MotionEngine has no lift motor");
+        }
+        liftQueue.addLast(new LiftMove(false, Math.abs(speed), inches, timeoutS));
+    }
+
+    /**
+     * Queue a landing: a lift move that also ends once the lift stalls, see
+     * {@link LiftController#land}.
+     */
+    public void land(double speed, double inches, double timeoutS) {
+        if (lift == null) {
+            throw new IllegalStateException("MotionEngine has no lift motor");
+        }
+        liftQueue.addLast(new LiftMove(true, Math.abs(speed), inches, timeoutS));
+    }
+
+    /**
+     * Time moves of a servo with its model. Servo moves then hold the channel
+     * only until every modelled servo is expected to have arrived, and never
+     * longer than their settleS, so a generous settle costs nothing.
+     */
+    public void addServoModel(ServoModel model) {
+        servoModels.add(model);
+    }
+
+    /**
+     * Queue a servo move. The channel is held for settleS seconds afterwards,
+     * or less if the servo has a {@link ServoModel}; pass 0 to command several
+     * servos on the same tick.
+     */
+    public void servo(Servo target, double position, double settleS) {
+        servoQueue.addLast(new ServoMove(target, position, settleS));
+    }
+
+    /**
+     * Advance every channel by one tick.
+     *
+     * @return true while any channel still has work to do
+     */
+    public boolean update() {
+        final RobotState state = snapshot.read();
+        final long now = state.timestampNanos;
+        loopTimer.tick(now);
+        if (poseTracker != null) {
+            if (poseUsesImu) {
+                poseTracker.update(state, state.heading);
+            } else {
+                poseTracker.update(state);
+            }
+        }
+        updateDrive(state, now);
+        updateLift();
+        updateServo(now);
+        return isBusy();
+    }
+
+    public boolean isBusy() {
+        return isDriveBusy() || isLiftBusy() || isServoBusy();
+    }
+
+    public boolean isDriveBusy() {
+        return drive != null || !driveQueue.isEmpty();
+    }
+
+    public boolean isLiftBusy() {
+        return liftMove != null || !liftQueue.isEmpty();
+    }
+
+    public boolean isServoBusy() {
+        return servo != null || !servoQueue.isEmpty();
+    }
+
+    public boolean isBusy(Channel channel) {
+        switch (channel) {
+            case DRIVE:
+                return isDriveBusy();
+            case LIFT:
+                return isLiftBusy();
+            default:
+                return isServoBusy();
+        }
+    }
+
+    /**
+     * Drop everything queued and stop the motors.
+     */
+    public void stop() {
+        cancel(Channel.DRIVE);
+        cancel(Channel.LIFT);
+        cancel(Channel.SERVO);
+    }
+
+    /**
+     * Drop what is queued on one channel and stop its motors, leaving the
+     * others running.
+     */
+    public void cancel(Channel channel) {
+        switch (channel) {
+            case DRIVE:
+                driveQueue.clear();
+                if (drive != null) {
+                    if (drive.isFollow()) {
+                        follower.cancel();
+                    }
+                    finishDrive();
+                }
+                break;
+            case LIFT:
+                liftQueue.clear();
+                if (liftMove != null) {
+                    lift.stop();
+                    liftMove = null;
+                }
+                break;
+            case SERVO:
+                servoQueue.clear();
+                servo = null;
+                break;
+        }
+    }
+
+    private void updateDrive(RobotState state, long now) {
+        if (drive != null && drive.isPause()) {
+            if (now >= drive.deadlineNanos) {
+                drive = null;
+            }
+        } else if (drive != null && drive.isFollow()) {
+            if (now >= drive.deadlineNanos || !follower.update(poseTracker.getPose(), wheelPowers)) {
+                follower.cancel();
+                finishDrive();
+            } else {
+                setDrivePowers(wheelPowers);
+            }
+        } else if (drive != null && drive.isSteer()) {
+            if (now >= drive.deadlineNanos || !drive.steering.update(state, wheelPowers)) {
+                finishDrive();
+            } else {
+                setDrivePowers(wheelPowers);
+            }
+        } else if (drive != null && drive.isTurn()) {
+            final double turn = turnController.update(state.heading, state.dtSeconds);
+            if (turnController.isAtTarget() || now >= drive.deadlineNanos) {
+                if (headingHold) {
+                    setTargetHeading(drive.heading);
+                }
+                finishDrive();
+            } else {
+                setTurnPower(turn);
+            }
+        } else if (drive != null && drive.held) {
+            if (heldProgress(state) >= 1.0 || now >= drive.deadlineNanos) {
+                finishDrive();
+            } else {
+                setHeldPowers(state, driveProfiled ? profiledPower((now - drive.startNanos) * 1e-9) : drive.speed);
+            }
+        } else if (drive != null) {
+            // Any motor reaching its target ends the move, as encoderDrive did.
+            if (now > drive.startNanos && (!state.allBusy() || now >= drive.deadlineNanos)) {
+                if (headingHold) {
+                    // A turn decides the heading the next moves hold.
+                    setTargetHeading(state.heading);
+                }
+                finishDrive();
+            } else if (driveProfiled) {
+                final double power = profiledPower((now - drive.startNanos) * 1e-9);
+                if (Math.abs(power - drivePower) > 0.005) {
+                    setDrivePower(power);
+                }
+            }
+        }
+        if (drive == null && !driveQueue.isEmpty()) {
+            drive = driveQueue.removeFirst();
+            if (drive.isPause()) {
+                drive.startNanos = now;
+                drive.deadlineNanos = now + (long) (drive.timeoutS * 1e9);
+                return;
+            }
+            if (drive.isFollow()) {
+                setDriveMode(DcMotor.RunMode.RUN_USING_ENCODER);
+                drive.startNanos = now;
+                drive.deadlineNanos = now + (long) (drive.timeoutS * 1e9);
+                follower.start(drive.path, drive.speed);
+                follower.update(poseTracker.getPose(), wheelPowers);
+                setDrivePowers(wheelPowers);
+                return;
+            }
+            if (drive.isSteer()) {
+                setDriveMode(DcMotor.RunMode.RUN_USING_ENCODER);
+                drive.startNanos = now;
+                drive.deadlineNanos = now + (long) (drive.timeoutS * 1e9);
+                drive.steering.start(state);
+                if (drive.steering.update(state, wheelPowers)) {
+                    setDrivePowers(wheelPowers);
+                } else {
+                    finishDrive();
+                }
+                return;
+            }
+            if (drive.isTurn()) {
+                setDriveMode(DcMotor.RunMode.RUN_USING_ENCODER);
+                drive.startNanos = now;
+                drive.deadlineNanos = now + (long) (drive.timeoutS * 1e9);
+                turnController.reset();
+                turnController.setTarget(drive.heading);
+                turnController.setOutputLimits(-drive.speed, drive.speed);
+                setTurnPower(turnController.update(state.heading, 0.0));
+                return;
+            }
+            if (headingHold && MotionProfile.classify(drive.lfInches, drive.lrInches, drive.rfInches,
+                                                            drive.rrInches) != MotionProfile.Leg.TURN) {
+                if (!targetHeadingSet) {
+                    setTargetHeading(state.heading);
+                }
+                drive.held = true;
+                drive.lfStart = state.lfPosition;
+                drive.lrStart = state.lrPosition;
+                drive.rfStart = state.rfPosition;
+                drive.rrStart = state.rrPosition;
+                headingController.reset();
+                setDriveMode(DcMotor.RunMode.RUN_USING_ENCODER);
+                drive.startNanos = now;
+                drive.deadlineNanos = now + (long) (drive.timeoutS * 1e9);
+                driveProfiled = profiling && generateProfile(drive);
+                setHeldPowers(state, driveProfiled ? profiledPower(0.0) : drive.speed);
+                return;
+            }
+            lf.setTargetPosition(state.lfPosition + (int) (drive.lfInches * countsPerInch));
+            lr.setTargetPosition(state.lrPosition + (int) (drive.lrInches * countsPerInch));
+            rf.setTargetPosition(state.rfPosition + (int) (drive.rfInches * countsPerInch));
+            rr.setTargetPosition(state.rrPosition + (int) (drive.rrInches * countsPerInch));
+            setDriveMode(DcMotor.RunMode.RUN_TO_POSITION);
+            drive.startNanos = now;
+            drive.deadlineNanos = now + (long) (drive.timeoutS * 1e9);
+            driveProfiled = profiling && generateProfile(drive);
+            setDrivePower(driveProfiled ? profiledPower(0.0) : drive.speed);
+        }
+    }
+
+    private boolean generateProfile(DriveMove move) {
+        final MotionProfile.Leg leg = MotionProfile.classify(move.lfInches, move.lrInches,
+                                                             move.rfInches, move.rrInches);
+        final double distance = Math.max(Math.max(Math.abs(move.lfInches), Math.abs(move.lrInches)),
+                                         Math.max(Math.abs(move.rfInches), Math.abs(move.rrInches)));
+        return profile.generate(distance, move.speed * MAX_WHEEL_IPS, legAccel[leg.ordinal()], MAX_JERK);
+    }
+
+    private double profiledPower(double t) {
+        final double power = profile.velocityAt(t) / MAX_WHEEL_IPS;
+        return Math.max(Math.min(drive.speed, MIN_POWER), Math.min(drive.speed, power));
+    }
+
+    /*
+     * Share of a held move covered so far, 1 at the end. Wheel travel is projected
+     * onto the move, so the turning done by the heading correction does not count.
+     */
+    private double heldProgress(RobotState state) {
+        final double travelled = (state.lfPosition - drive.lfStart) * drive.lfInches
+                + (state.lrPosition - drive.lrStart) * drive.lrInches
+                + (state.rfPosition - drive.rfStart) * drive.rfInches
+                + (state.rrPosition - drive.rrStart) * drive.rrInches;
+        final double planned = drive.lfInches * drive.lfInches + drive.lrInches * drive.lrInches
+                + drive.rfInches * drive.rfInches + drive.rrInches * drive.rrInches;
+        return planned == 0.0 ? 1.0 : travelled / (planned * countsPerInch);
+    }
+
+    /*
+     * Wheel powers for a held move: each wheel's share of the move at the given
+     * power, plus the heading correction, scaled down together if any is over 1.
+     */
+    private void setHeldPowers(RobotState state, double power) {
+        final double longest = Math.max(Math.max(Math.abs(drive.lfInches), Math.abs(drive.lrInches)),
+                                        Math.max(Math.abs(drive.rfInches), Math.abs(drive.rrInches)));
+        headingController.setTarget(targetHeading);
+        final double turn = turnSign * headingController.update(state.heading, state.dtSeconds);
+        final double scale = longest == 0.0 ? 0.0 : power / longest;
+        wheelPowers[MecanumKinematics.LF] = drive.lfInches * scale - turn;
+        wheelPowers[MecanumKinematics.LR] = drive.lrInches * scale - turn;
+        wheelPowers[MecanumKinematics.RF] = drive.rfInches * scale + turn;
+        wheelPowers[MecanumKinematics.RR] = drive.rrInches * scale + turn;
+        MecanumKinematics.normalize(wheelPowers, 1.0);
+        drivePower = power;
+        setDrivePowers(wheelPowers);
+    }
+
+    /*
+     * Turn in place, positive counter-clockwise whichever side is reversed.
+     */
+    private void setTurnPower(double turn) {
+        wheelPowers[MecanumKinematics.LF] = -turnSign * turn;
+        wheelPowers[MecanumKinematics.LR] = -turnSign * turn;
+        wheelPowers[MecanumKinematics.RF] = turnSign * turn;
+        wheelPowers[MecanumKinematics.RR] = turnSign * turn;
+        setDrivePowers(wheelPowers);
+    }
+
+    private void finishDrive() {
+        setDrivePower(0.0);
+        setDriveMode(DcMotor.RunMode.RUN_USING_ENCODER);
+        drive = null;
+    }
+
+    private void updateLift() {
+        if (liftMove != null && !lift.update()) {
+            liftMove = null;
+        }
+        if (liftMove == null && !liftQueue.isEmpty()) {
+            liftMove = liftQueue.removeFirst();
+            if (liftMove.landing) {
+                lift.land(liftMove.inches, liftMove.speed, liftMove.timeoutS);
+            } else {
+                lift.moveBy(liftMove.inches, liftMove.speed, liftMove.timeoutS);
+            }
+            lift.update();
+        }
+    }
+
+    private void updateServo(long now) {
+        while (true) {
+            if (servo != null) {
+                if (now < servo.doneNanos) {
+                    return;
+                }
+                servo = null;
+            }
+            if (servoQueue.isEmpty()) {
+                return;
+            }
+            servo = servoQueue.removeFirst();
+            servo.doneNanos = now + (long) (servo.settleS * 1e9);
+            final ServoModel model = findServoModel(servo.servo);
+            if (model == null) {
+                servo.servo.setPosition(servo.position);
+            } else {
+                model.setPosition(servo.position);
+            }
+            if (model != null && servo.settleS > 0.0) {
+                // Wait for the slowest modelled servo, e.g. the other half of the bucket sent on the tick before.
+                long arrival = now;
+                for (int i = 0; i < servoModels.size(); ++i) {
+                    arrival = Math.max(arrival, servoModels.get(i).expectedArrival());
+                }
+                servo.doneNanos = Math.min(servo.doneNanos, arrival);
+            }
+        }
+    }
+
+    private ServoModel findServoModel(Servo target) {
+        for (int i = 0; i < servoModels.size(); ++i) {
+            if (servoModels.get(i).getServo() == target) {
+                return servoModels.get(i);
+            }
+        }
+        return null;
+    }
+
+    private void setDriveMode(DcMotor.RunMode mode) {
+        lf.setMode(mode);
+        lr.setMode(mode);
+        rf.setMode(mode);
+        rr.setMode(mode);
+    }
+
+    private void setDrivePower(double power) {
+        drivePower = power;
+        lf.setPower(power);
+        lr.setPower(power);
+        rf.setPower(power);
+        rr.setPower(power);
+    }
+
+    private void setDrivePowers(double[] powers) {
+        lf.setPower(powers[MecanumKinematics.LF]);
+        lr.setPower(powers[MecanumKinematics.LR]);
+        rf.setPower(powers[MecanumKinematics.RF]);
+        rr.setPower(powers[MecanumKinematics.RR]);
+    }
+
+    private static class DriveMove {
+        final boolean pause;
+        final Path path;
+        final Steering steering;
+        final boolean turn;
+        final double heading;
+        final double speed;
+        final double lfInches, lrInches, rfInches, rrInches;
+        final double timeoutS;
+        long startNanos;
+        long deadlineNanos;
+        boolean held;
+        int lfStart, lrStart, rfStart, rrStart;
+
+        DriveMove(boolean _pause, double _speed, double _lf, double _lr, double _rf, double _rr,
+                  double _timeoutS) {
+            this(_pause, null, null, false, 0.0, _speed, _lf, _lr, _rf, _rr, _timeoutS);
+        }
+
+        DriveMove(Path _path, double _speed, double _timeoutS) {
+            this(false, _path, null, false, 0.0, _speed, 0.0, 0.0, 0.0, 0.0, _timeoutS);
+        }
+
+        DriveMove(Steering _steering, double _timeoutS) {
+            this(false, null, _steering, false, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, _timeoutS);
+        }
+
+        DriveMove(double _heading, double _speed, double _timeoutS) {
+            this(false, null, null, true, _heading, _speed, 0.0, 0.0, 0.0, 0.0, _timeoutS);
+        }
+
+        private DriveMove(boolean _pause, Path _path, Steering _steering, boolean _turn, double _heading,
+                          double _speed, double _lf, double _lr, double _rf, double _rr, double _timeoutS) {
+            pause = _pause;
+            path = _path;
+            steering = _steering;
+            turn = _turn;
+            heading = _heading;
+            speed = _speed;
+            lfInches = _lf;
+            lrInches = _lr;
+            rfInches = _rf;
+            rrInches = _rr;
+            timeoutS = _timeoutS;
+        }
+
+        boolean isPause() {
+            return pause;
+        }
+
+        boolean isFollow() {
+            return path != null;
+        }
+
+        boolean isSteer() {
+            return steering != null;
+        }
+
+        boolean isTurn() {
+            return turn;
+        }
+    }
+
+    private static class LiftMove {
+        final boolean landing;
+        final double speed;
+        final double inches;
+        final double timeoutS;
+
+        LiftMove(boolean _landing, double _speed, double _inches, double _timeoutS) {
+            landing = _landing;
+            speed = _speed;
+            inches = _inches;
+            timeoutS = _timeoutS;
+        }
+    }
+
+    private static class ServoMove {
+        final Servo servo;
+        final double position;
+        final double settleS;
+        long doneNanos;
+
+        ServoMove(Servo _servo, double _position, double _settleS) {
+            servo = _servo;
+            position = _position;
+            settleS = _settleS;
+        }
+    }
+}
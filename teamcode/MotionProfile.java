@@ -0,0 +1,147 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Precomputed velocity profile for a single straight leg.
+ * <p>
+ * {@link #generate} fills a preallocated table with one velocity setpoint per
+ * control tick: accelerate, cruise, decelerate. With a jerk limit the trapezoid is
+ * smoothed into an S-curve by a moving average over the ramp time, which keeps the
+ * same area (distance) and duration plus one ramp. Nothing is allocated after
+ * construction, so a new leg can be generated on the tick it starts.
+ */
+public class MotionProfile {
+    /** The kind of leg a four-wheel move is, which decides its constraints. */
+    public enum Leg { FORWARD, STRAFE, TURN }
+
+    /** Seconds between table entries. */
+    public static final double DT = 0.02;
+
+    private final double[] velocity;
+    private final double[] scratch;
+    private int length = 0;
+    private double distance = 0.0;
+
+    /**
+     * @param capacity Most ticks a profile may take; 500 covers a 10 s leg
+     */
+    public MotionProfile(int capacity) {
+        velocity = new double[capacity];
+        scratch = new double[capacity];
+    }
+
+    /**
+     * Build the table for a leg.
+     *
+     * @param _distance   Length of the leg, any unit; sign is ignored
+     * @param maxVelocity Cruise velocity in units per second
+     * @param maxAccel    Acceleration limit in units per second squared
+     * @param maxJerk     Jerk limit in units per second cubed, 0 for a plain trapezoid
+     * @return false if the profile does not fit in the table, which is left empty
+     */
+    public boolean generate(double _distance, double maxVelocity, double maxAccel, double maxJerk) {
+        length = 0;
+        distance = Math.abs(_distance);
+        if (distance == 0.0 || maxVelocity <= 0.0 || maxAccel <= 0.0) {
+            return true;
+        }
+
+        // Triangular if the leg is too short to reach cruise speed.
+        final double peak = Math.min(maxVelocity, Math.sqrt(distance * maxAccel));
+        final double rampTime = peak / maxAccel;
+        final double cruiseTime = (distance - peak * rampTime) / peak;
+        final double totalTime = 2.0 * rampTime + cruiseTime;
+
+        final int window = maxJerk > 0.0 ? Math.max(1, (int) Math.round(maxAccel / maxJerk / DT)) : 1;
+        final int ticks = (int) Math.ceil(totalTime / DT) + 1;
+        if (ticks + window - 1 > velocity.length) {
+            return false;
+        }
+
+        for (int i = 0; i < ticks; ++i) {
+            final double t = i * DT;
+            if (t < rampTime) {
+                scratch[i] = maxAccel * t;
+            } else if (t < rampTime + cruiseTime) {
+                scratch[i] = peak;
+            } else {
+                scratch[i] = Math.max(0.0, maxAccel * (totalTime - t));
+            }
+        }
+
+        length = ticks + window - 1;
+        double sum = 0.0;
+        for (int i = 0; i < length; ++i) {
+            if (i < ticks) {
+                sum += scratch[i];
+            }
+            if (i >= window) {
+                sum -= scratch[i - window];
+            }
+            velocity[i] = sum / window;
+        }
+        return true;
+    }
+
+    /**
+     * @return the velocity setpoint for time t since the start of the leg,
+     *         interpolated between ticks and 0 once the profile has finished
+     */
+    public double velocityAt(double t) {
+        if (length == 0 || t < 0.0) {
+            return 0.0;
+        }
+        final double x = t / DT;
+        final int i = (int) x;
+        if (i >= length - 1) {
+            return i == length - 1 ? velocity[i] : 0.0;
+        }
+        final double f = x - i;
+        return velocity[i] * (1.0 - f) + velocity[i + 1] * f;
+    }
+
+    /**
+     * @return the setpoint at a tick of the table
+     */
+    public double velocity(int tick) {
+        return velocity[tick];
+    }
+
+    /**
+     * @return number of ticks in the current profile
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return seconds the current profile takes
+     */
+    public double duration() {
+        return length * DT;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Decide what kind of leg a set of wheel travels is.
+     * <p>
+     * Wheels are in lf, lr, rf, rr order, with one side's motors reversed so that
+     * forward is all the same sign; which side does not matter here, as only the
+     * sizes are compared. A turn is left against right, and a strafe is each
+     * diagonal against the other.
+     */
+    public static Leg classify(double lf, double lr, double rf, double rr) {
+        final double forward = Math.abs(lf + lr + rf + rr);
+        final double turn = Math.abs(lf + lr - rf - rr);
+        final double strafe = Math.abs(lf - lr - rf + rr);
+        if (strafe > forward && strafe > turn) {
+            return Leg.STRAFE;
+        }
+        if (turn > forward) {
+            return Leg.TURN;
+        }
+        return Leg.FORWARD;
+    }
+}
@@ -0,0 +1,30 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Source of monotonic time for the control loop.
+ * <p>
+ * Anything that measures a control period reads time through a clock instead of
+ * calling System.nanoTime() directly, so the simulator can step the same code
+ * faster than real time.
+ */
+public interface NanoClock {
+    NanoClock SYSTEM = new NanoClock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * Implemented by devices that keep their own time, such as the simulator's,
+     * so code handed one of them times itself on the same clock.
+     */
+    interface Source {
+        NanoClock getClock();
+    }
+
+    /**
+     * @return the current time in nanoseconds from an arbitrary origin
+     */
+    long nanoTime();
+}
@@ -0,0 +1,230 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Position loop with velocity, acceleration and static-friction feedforward.
+ * <p>
+ * Output = kP * error + kI * integral + kD * derivative
+ *        + kV * targetVelocity + kA * targetAcceleration + kStatic * direction.
+ * <ul>
+ * <li>The derivative is taken from the measurement rather than the error, so a
+ *     new target does not kick the output, and is low-pass filtered.</li>
+ * <li>The integral stops growing while the output is saturated and its share
+ *     of the output is clamped, so it cannot wind up during a long move.</li>
+ * <li>With {@link #setContinuous} the input wraps, e.g. a heading in radians
+ *     where the shortest way round is wanted.</li>
+ * </ul>
+ * Every update uses the real time since the previous one, so gains tuned at one
+ * loop rate still hold at another. Nothing is allocated after construction.
+ */
+public class PIDFController {
+    private final NanoClock clock;
+
+    private double kP, kI, kD;
+    private double kV = 0.0, kA = 0.0, kStatic = 0.0;
+    private double integralLimit = Double.POSITIVE_INFINITY;
+    private double derivativeTau = 0.0;
+    private double outputMin = Double.NEGATIVE_INFINITY;
+    private double outputMax = Double.POSITIVE_INFINITY;
+    private double positionTolerance = 0.0;
+    private double velocityTolerance = Double.POSITIVE_INFINITY;
+    private double wrapRange = 0.0;
+
+    private double target = 0.0;
+    private double error = 0.0;
+    private double integral = 0.0;
+    private double derivative = 0.0;
+    private double lastMeasurement = 0.0;
+    private long lastNanos = 0;
+    private boolean primed = false;
+    private boolean saturated = false;
+    private double output = 0.0;
+
+    public PIDFController(double _kP, double _kI, double _kD) {
+        this(_kP, _kI, _kD, NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param _clock Time source for {@link #update(double)}
+     */
+    public PIDFController(double _kP, double _kI, double _kD, NanoClock _clock) {
+        kP = _kP;
+        kI = _kI;
+        kD = _kD;
+        clock = _clock;
+    }
+
+    public void setPID(double _kP, double _kI, double _kD) {
+        kP = _kP;
+        kI = _kI;
+        kD = _kD;
+    }
+
+    /**
+     * @param _kV      Output per unit of target velocity
+     * @param _kA      Output per unit of target acceleration
+     * @param _kStatic Output that just overcomes friction, added in the direction of travel
+     */
+    public void setFeedforward(double _kV, double _kA, double _kStatic) {
+        kV = _kV;
+        kA = _kA;
+        kStatic = _kStatic;
+    }
+
+    /**
+     * @param limit Most output the integral term may contribute, either way
+     */
+    public void setIntegralLimit(double limit) {
+        integralLimit = Math.abs(limit);
+    }
+
+    /**
+     * @param seconds Time constant of the derivative low-pass; 0 for no filtering
+     */
+    public void setDerivativeFilter(double seconds) {
+        derivativeTau = seconds;
+    }
+
+    public void setOutputLimits(double min, double max) {
+        outputMin = min;
+        outputMax = max;
+    }
+
+    /**
+     * @param position Largest error that counts as on target
+     * @param velocity Fastest the measurement may still be moving when on target
+     */
+    public void setTolerance(double position, double velocity) {
+        positionTolerance = position;
+        velocityTolerance = velocity;
+    }
+
+    /**
+     * Treat the input as wrapping, e.g. 2 * PI for radians or 360 for degrees, so
+     * the error is always the short way round.
+     *
+     * @param range Size of one full turn, 0 for an input that does not wrap
+     */
+    public void setContinuous(double range) {
+        wrapRange = range;
+    }
+
+    /**
+     * Change the target. The integral is kept, so moving the target a little at
+     * a time, as a profile does, stays smooth; call {@link #reset()} for a new move.
+     */
+    public void setTarget(double _target) {
+        target = _target;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the error as of the last update
+     */
+    public double getError() {
+        return error;
+    }
+
+    /**
+     * @return the output of the last update
+     */
+    public double getOutput() {
+        return output;
+    }
+
+    /**
+     * Forget the integral and the previous measurement. The next update has no
+     * derivative term.
+     */
+    public void reset() {
+        integral = 0.0;
+        derivative = 0.0;
+        primed = false;
+        saturated = false;
+        output = 0.0;
+    }
+
+    /**
+     * @return true if the last update was within both tolerances
+     */
+    public boolean isAtTarget() {
+        return primed && Math.abs(error) <= positionTolerance && Math.abs(derivative) <= velocityTolerance;
+    }
+
+    /**
+     * Update holding a fixed target, timing the step from the clock.
+     */
+    public double update(double measurement) {
+        final long now = clock.nanoTime();
+        final double dt = primed ? (now - lastNanos) * 1e-9 : 0.0;
+        lastNanos = now;
+        return update(measurement, 0.0, 0.0, dt);
+    }
+
+    /**
+     * Update holding a fixed target.
+     *
+     * @param dtSeconds Time since the previous update
+     */
+    public double update(double measurement, double dtSeconds) {
+        return update(measurement, 0.0, 0.0, dtSeconds);
+    }
+
+    /**
+     * Update while the target moves, e.g. along a {@link MotionProfile}.
+     *
+     * @param measurement        Current position
+     * @param targetVelocity     Velocity the target is moving at, for kV and kStatic
+     * @param targetAcceleration Acceleration of the target, for kA
+     * @param dtSeconds          Time since the previous update
+     * @return the clipped output
+     */
+    public double update(double measurement, double targetVelocity, double targetAcceleration,
+                         double dtSeconds) {
+        error = wrap(target - measurement);
+
+        if (primed && dtSeconds > 0.0) {
+            // Derivative of the measurement: the same as the error's for a fixed target, without the kick.
+            final double raw = wrap(measurement - lastMeasurement) / dtSeconds;
+            final double alpha = dtSeconds / (derivativeTau + dtSeconds);
+            derivative += alpha * (raw - derivative);
+            if (!saturated || Math.signum(error) != Math.signum(output)) {
+                integral += error * dtSeconds;
+            }
+            if (kI != 0.0) {
+                final double limit = integralLimit / Math.abs(kI);
+                integral = Math.max(-limit, Math.min(limit, integral));
+            }
+        }
+        lastMeasurement = measurement;
+
+        double out = kP * error + kI * integral - kD * derivative
+                + kV * targetVelocity + kA * targetAcceleration;
+        if (targetVelocity != 0.0) {
+            out += kStatic * Math.signum(targetVelocity);
+        } else if (Math.abs(error) > positionTolerance) {
+            out += kStatic * Math.signum(error);
+        }
+
+        saturated = out > outputMax || out < outputMin;
+        output = Math.max(outputMin, Math.min(outputMax, out));
+        primed = true;
+        return output;
+    }
+
+    private double wrap(double value) {
+        if (wrapRange <= 0.0) {
+            return value;
+        }
+        final double half = wrapRange / 2.0;
+        while (value > half) {
+            value -= wrapRange;
+        }
+        while (value <= -half) {
+            value += wrapRange;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,103 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * A list of field waypoints joined by straight lines, plus the heading to hold
+ * at the end. Coordinates are in the same frame as {@link Pose}.
+ */
+public class Path {
+    private final double[] xs;
+    private final double[] ys;
+    private final double endHeading;
+
+    private Path(double[] _xs, double[] _ys, double _endHeading) {
+        xs = _xs;
+        ys = _ys;
+        endHeading = _endHeading;
+    }
+
+    /**
+     * @return number of waypoints, including the start
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    public double x(int i) {
+        return xs[i];
+    }
+
+    public double y(int i) {
+        return ys[i];
+    }
+
+    public double endX() {
+        return xs[xs.length - 1];
+    }
+
+    public double endY() {
+        return ys[ys.length - 1];
+    }
+
+    /**
+     * @return heading in radians the robot should have when it arrives
+     */
+    public double getEndHeading() {
+        return endHeading;
+    }
+
+    /**
+     * @return length of the path in inches
+     */
+    public double length() {
+        double length = 0.0;
+        for (int i = 1; i < xs.length; ++i) {
+            length += Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+        }
+        return length;
+    }
+
+    /**
+     * Collects waypoints in the order they are driven.
+     */
+    public static class Builder {
+        private double[] xs = new double[8];
+        private double[] ys = new double[8];
+        private int size = 0;
+
+        /**
+         * Start a path at a point, usually where the robot will be when it is driven.
+         */
+        public Builder(double x, double y) {
+            lineTo(x, y);
+        }
+
+        public Builder lineTo(double x, double y) {
+            if (size == xs.length) {
+                double[] x2 = new double[size * 2];
+                double[] y2 = new double[size * 2];
+                System.arraycopy(xs, 0, x2, 0, size);
+                System.arraycopy(ys, 0, y2, 0, size);
+                xs = x2;
+                ys = y2;
+            }
+            xs[size] = x;
+            ys[size] = y;
+            ++size;
+            return this;
+        }
+
+        /**
+         * @param endHeading Heading in radians to turn to on the way and hold at the end
+         */
+        public Path build(double endHeading) {
+            if (size < 2) {
+                throw new IllegalStateException("A path needs at least two waypoints");
+            }
+            double[] x = new double[size];
+            double[] y = new double[size];
+            System.arraycopy(xs, 0, x, 0, size);
+            System.arraycopy(ys, 0, y, 0, size);
+            return new Path(x, y, endHeading);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Locale;
+
+/**
+ * A position and heading on the field.
+ * <p>
+ * x is along the robot's forward direction at the start of the OpMode and y is to
+ * its left, both in inches; heading is counter-clockwise in radians. Instances are
+ * mutable and reused so the control loop does not allocate.
+ */
+public class Pose {
+    public double x;
+    public double y;
+    public double heading;
+
+    public Pose() {
+    }
+
+    public Pose(double _x, double _y, double _heading) {
+        set(_x, _y, _heading);
+    }
+
+    public void set(double _x, double _y, double _heading) {
+        x = _x;
+        y = _y;
+        heading = _heading;
+    }
+
+    public void copyFrom(Pose other) {
+        set(other.x, other.y, other.heading);
+    }
+
+    /**
+     * @return the distance in inches to another pose, ignoring heading
+     */
+    public double distanceTo(Pose other) {
+        return Math.hypot(other.x - x, other.y - y);
+    }
+
+    /**
+     * @return an angle wrapped into (-pi, pi]
+     */
+    public static double wrapAngle(double radians) {
+        while (radians > Math.PI) {
+            radians -= 2.0 * Math.PI;
+        }
+        while (radians <= -Math.PI) {
+            radians += 2.0 * Math.PI;
+        }
+        return radians;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "x %.1f in  y %.1f in  h %.1f deg", x, y, Math.toDegrees(heading));
+    }
+}
@@ -0,0 +1,111 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Dead-reckoned field pose from the drive encoders and, when there is one, the IMU.
+ * <p>
+ * Call {@link #update} once per control cycle with the cycle's {@link RobotState}.
+ * The encoder deltas since the last call go through
+ * {@link MecanumKinematics#forward} to get how far the robot moved in its own
+ * frame, which is rotated onto the field at the midpoint heading of the cycle.
+ * The IMU heading is used in place of the encoder turn estimate when given,
+ * since mecanum rollers slip far more when turning than the gyro drifts.
+ * <p>
+ * Nothing is allocated after construction.
+ */
+public class PoseTracker {
+    private final MecanumKinematics kinematics;
+    private final double countsPerInch;
+
+    private final Pose pose = new Pose();
+    private final double[] wheels = new double[4];
+    private final double[] displacement = new double[3];
+
+    private int lfLast, lrLast, rfLast, rrLast;
+    private double imuLast;
+    private boolean primed = false;
+    private double turnSign = 1.0;
+
+    /**
+     * @param _kinematics    Geometry of the drive train
+     * @param _countsPerInch Drive encoder counts per inch of wheel travel
+     */
+    public PoseTracker(MecanumKinematics _kinematics, double _countsPerInch) {
+        kinematics = _kinematics;
+        countsPerInch = _countsPerInch;
+    }
+
+    /**
+     * @param sign +1 if wheel travel (-, -, +, +) turns the robot counter-clockwise,
+     *             -1 if it turns it clockwise; see {@link MotionEngine#setTurnSign}
+     */
+    public void setTurnSign(double sign) {
+        turnSign = sign;
+    }
+
+    /**
+     * Place the robot on the field. The next update only records the encoders.
+     */
+    public void reset(double x, double y, double heading) {
+        pose.set(x, y, heading);
+        primed = false;
+    }
+
+    /**
+     * Integrate one cycle using the encoders alone.
+     */
+    public void update(RobotState state) {
+        integrate(state, false, 0.0);
+    }
+
+    /**
+     * Integrate one cycle, taking the change in heading from the IMU.
+     *
+     * @param imuHeading Heading in radians, e.g. Robot.getHeading(); any offset is fine
+     */
+    public void update(RobotState state, double imuHeading) {
+        integrate(state, true, imuHeading);
+    }
+
+    /**
+     * @return the current pose (the same instance every call)
+     */
+    public Pose getPose() {
+        return pose;
+    }
+
+    private void integrate(RobotState state, boolean useImu, double imuHeading) {
+        if (!primed) {
+            remember(state, imuHeading);
+            primed = true;
+            return;
+        }
+
+        wheels[MecanumKinematics.LF] = (state.lfPosition - lfLast) / countsPerInch;
+        wheels[MecanumKinematics.LR] = (state.lrPosition - lrLast) / countsPerInch;
+        wheels[MecanumKinematics.RF] = (state.rfPosition - rfLast) / countsPerInch;
+        wheels[MecanumKinematics.RR] = (state.rrPosition - rrLast) / countsPerInch;
+        kinematics.forward(wheels, displacement);
+
+        final double turn = useImu ? Pose.wrapAngle(imuHeading - imuLast) : turnSign * displacement[MecanumKinematics.TURN];
+        final double mid = pose.heading + turn / 2.0;
+        final double cos = Math.cos(mid);
+        final double sin = Math.sin(mid);
+        final double forward = displacement[MecanumKinematics.FORWARD];
+        final double strafe = displacement[MecanumKinematics.STRAFE];
+
+        // Strafe is to the right, field y is to the left.
+        pose.x += forward * cos + strafe * sin;
+        pose.y += forward * sin - strafe * cos;
+        pose.heading = Pose.wrapAngle(pose.heading + turn);
+
+        remember(state, imuHeading);
+    }
+
+    private void remember(RobotState state, double imuHeading) {
+        lfLast = state.lfPosition;
+        lrLast = state.lrPosition;
+        rfLast = state.rfPosition;
+        rrLast = state.rrPosition;
+        imuLast = imuHeading;
+    }
+}
@@ -0,0 +1,216 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Drives a mecanum chassis along a {@link Path} without stopping at the waypoints.
+ * <p>
+ * Each {@link #update} looks for the point on the path one lookahead distance
+ * away from the robot and translates towards it, so corners are rounded off
+ * instead of stopped at. Speed tapers over the last few inches, and the heading
+ * is steered to the path's end heading with a proportional turn mixed into
+ * the same wheel powers. Because the robot steers from its tracked pose rather than
+ * counting wheel inches, errors from one leg are corrected on the next instead of
+ * adding up.
+ * <p>
+ * The follower only turns a pose into four wheel powers and does not touch the
+ * hardware, so the same code runs on the robot (see
+ * {@link MotionEngine#follow}) or against a simulated drive train.
+ */
+public class PurePursuitFollower {
+    private double lookahead = 6.0;          // inches
+    private double slowdownDistance = 12.0;  // inches
+    private double minPower = 0.15;
+    private double positionTolerance = 0.5;  // inches
+    private double headingTolerance = Math.toRadians(2.0);
+    private double headingGain = 1.5;        // power per radian
+    private double maxTurnPower = 0.5;
+    private double turnSign = 1.0;
+
+    private Path path = null;
+    private int segment = 0;
+    private double maxPower = 0.0;
+    private double targetX, targetY;
+
+    /**
+     * @param _lookahead How far ahead on the path to aim, in inches. Larger is
+     *                   smoother, smaller cuts corners less.
+     */
+    public void setLookahead(double _lookahead) {
+        lookahead = _lookahead;
+    }
+
+    /**
+     * @param _slowdownDistance Distance from the end, in inches, over which the power ramps down
+     * @param _minPower         Power used near the end so friction cannot stall the robot
+     */
+    public void setSlowdown(double _slowdownDistance, double _minPower) {
+        slowdownDistance = _slowdownDistance;
+        minPower = _minPower;
+    }
+
+    /**
+     * @param _positionTolerance Inches from the end that count as arrived
+     * @param _headingTolerance  Radians from the end heading that count as arrived
+     */
+    public void setTolerance(double _positionTolerance, double _headingTolerance) {
+        positionTolerance = _positionTolerance;
+        headingTolerance = _headingTolerance;
+    }
+
+    /**
+     * @param _headingGain  Turn power per radian of heading error
+     * @param _maxTurnPower Largest turn power mixed in
+     */
+    public void setHeadingGain(double _headingGain, double _maxTurnPower) {
+        headingGain = _headingGain;
+        maxTurnPower = _maxTurnPower;
+    }
+
+    /**
+     * @param sign +1 if turn power (-, -, +, +) turns the robot counter-clockwise,
+     *             -1 if it turns it clockwise; see {@link MotionEngine#setTurnSign}
+     */
+    public void setTurnSign(double sign) {
+        turnSign = sign;
+    }
+
+    /**
+     * Begin following a path.
+     *
+     * @param _path     Waypoints to drive through
+     * @param _maxPower Cruise power
+     */
+    public void start(Path _path, double _maxPower) {
+        path = _path;
+        maxPower = _maxPower;
+        segment = 0;
+    }
+
+    /**
+     * Give up on the current path.
+     */
+    public void cancel() {
+        path = null;
+    }
+
+    public boolean isFollowing() {
+        return path != null;
+    }
+
+    /**
+     * Work out the wheel powers for one control cycle.
+     *
+     * @param pose   Where the robot is now
+     * @param powers Filled with lf, lr, rf, rr powers; all zero once arrived
+     * @return true while the path is still being followed
+     */
+    public boolean update(Pose pose, double[] powers) {
+        if (path == null) {
+            stop(powers);
+            return false;
+        }
+
+        final double toEnd = Math.hypot(path.endX() - pose.x, path.endY() - pose.y);
+        final double headingError = Pose.wrapAngle(path.getEndHeading() - pose.heading);
+        if (toEnd < positionTolerance && Math.abs(headingError) < headingTolerance) {
+            path = null;
+            stop(powers);
+            return false;
+        }
+
+        findTarget(pose, toEnd);
+
+        double forward = 0.0;
+        double strafe = 0.0;
+        final double dx = targetX - pose.x;
+        final double dy = targetY - pose.y;
+        final double distance = Math.hypot(dx, dy);
+        if (toEnd >= positionTolerance && distance > 1e-6) {
+            final double power = Math.max(minPower, Math.min(maxPower, maxPower * toEnd / slowdownDistance));
+            final double cos = Math.cos(pose.heading);
+            final double sin = Math.sin(pose.heading);
+            // Field direction to the target, turned into the robot's frame. Field y
+            // is to the left and strafe is to the right.
+            forward = power * (dx * cos + dy * sin) / distance;
+            strafe = power * (dx * sin - dy * cos) / distance;
+        }
+        final double turn = turnSign * Math.max(-maxTurnPower, Math.min(maxTurnPower, headingGain * headingError));
+
+        MecanumKinematics.powers(forward, strafe, turn, powers);
+        return true;
+    }
+
+    /**
+     * @return x of the point the follower is aiming at
+     */
+    public double getTargetX() {
+        return targetX;
+    }
+
+    /**
+     * @return y of the point the follower is aiming at
+     */
+    public double getTargetY() {
+        return targetY;
+    }
+
+    private void findTarget(Pose pose, double toEnd) {
+        final int last = path.size() - 1;
+        if (toEnd <= lookahead) {
+            segment = last - 1;
+            targetX = path.endX();
+            targetY = path.endY();
+            return;
+        }
+
+        // Furthest intersection of the lookahead circle with the rest of the path.
+        boolean found = false;
+        for (int i = segment; i < last; ++i) {
+            final double ax = path.x(i);
+            final double ay = path.y(i);
+            final double sx = path.x(i + 1) - ax;
+            final double sy = path.y(i + 1) - ay;
+            final double fx = ax - pose.x;
+            final double fy = ay - pose.y;
+            final double a = sx * sx + sy * sy;
+            if (a < 1e-9) {
+                continue;
+            }
+            final double b = 2.0 * (fx * sx + fy * sy);
+            final double c = fx * fx + fy * fy - lookahead * lookahead;
+            final double discriminant = b * b - 4.0 * a * c;
+            if (discriminant < 0.0) {
+                continue;
+            }
+            final double t = (-b + Math.sqrt(discriminant)) / (2.0 * a);
+            if (t >= 0.0 && t <= 1.0) {
+                segment = i;
+                targetX = ax + t * sx;
+                targetY = ay + t * sy;
+                found = true;
+            }
+        }
+        if (found) {
+            return;
+        }
+
+        // Too far off the path to see it: head for the nearest point ahead on it.
+        final double ax = path.x(segment);
+        final double ay = path.y(segment);
+        final double sx = path.x(segment + 1) - ax;
+        final double sy = path.y(segment + 1) - ay;
+        final double a = sx * sx + sy * sy;
+        double t = a < 1e-9 ? 1.0 : ((pose.x - ax) * sx + (pose.y - ay) * sy) / a;
+        t = Math.max(0.0, Math.min(1.0, t));
+        targetX = ax + t * sx;
+        targetY = ay + t * sy;
+        if (t >= 1.0 && segment < last - 1) {
+            ++segment;
+        }
+    }
+
+    private static void stop(double[] powers) {
+        for (int i = 0; i < 4; ++i) {
+            powers[i] = 0.0;
+        }
+    }
+}
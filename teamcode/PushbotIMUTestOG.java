@@ -38,6 +38,7 @@
  import com.qualcomm.robotcore.util.Range;
 
  import org.firstinspires.ftc.robotcontroller.external.samples.HardwarePushbot;
+ import org.firstinspires.ftc.robotcore.external.Func;
 
  /**
   * This file illustrates the concept of driving a path based on Gyro heading and encoder counts.
@@ -78,6 +79,11 @@
      /* Declare OpMode members. */
      HardwarePushbot robot   = new HardwarePushbot();   // Use a Pushbot's hardware
      ModernRoboticsI2cGyro   gyro    = null;                    // Additional Gyro device
+     LoopTimer               loopTimer = new LoopTimer();       // Cycle time of the gyro loops
+     AsyncImuReader          gyroReader = null;                 // Polls the gyro off the control thread
+     ImuSample               gyroSample = new ImuSample();      // Newest gyro reading, refilled by getError
+     TelemetryBatcher        dashboard = null;                  // Sends the gyro loop telemetry at 4 Hz
+     TelemetryBatcher.Line   angleLine, steerLine, speedLine, targetLine, actualLine;
 
      static final double     COUNTS_PER_MOTOR_REV    = 1440 ;    // eg: TETRIX Motor Encoder
      static final double     DRIVE_GEAR_REDUCTION    = 2.0 ;     // This is < 1.0 if geared UP
@@ -93,6 +99,7 @@
      static final double     HEADING_THRESHOLD       = 1 ;      // As tight as we can make it with an integer gyro
      static final double     P_TURN_COEFF            = 0.1;     // Larger is more responsive, but also less stable
      static final double     P_DRIVE_COEFF           = 0.15;     // Larger is more responsive, but also less stable
+     static final double     GYRO_HZ                 = 50.0;     // Gyro polling rate
 
 
      @Override
@@ -105,6 +112,23 @@
          robot.init(hardwareMap);
          gyro = (ModernRoboticsI2cGyro)hardwareMap.gyroSensor.get("gyro");
 
+         dashboard = new TelemetryBatcher(telemetry);
+         angleLine = dashboard.add("Target", "%5.2f");
+         steerLine = dashboard.add("Err/St", "%5.2f/%5.2f");
+         speedLine = dashboard.add("Speed", "%5.2f:%5.2f");
+         targetLine = dashboard.add("Target", "%7d:%7d");
+         // Only read the encoders again when the line is actually sent.
+         actualLine = dashboard.add("Actual", new Func<String>() {
+             @Override
+             public String value() {
+                 return String.format("%7d:%7d", robot.leftDrive.getCurrentPosition(),
+                                                 robot.rightDrive.getCurrentPosition());
+             }
+         });
+         dashboard.add(loopTimer);
+         targetLine.setVisible(false);
+         actualLine.setVisible(false);
+
          // Ensure the robot it stationary, then reset the encoders and calibrate the gyro.
          robot.leftDrive.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
          robot.rightDrive.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
@@ -134,6 +158,8 @@
          }
 
          gyro.resetZAxisIntegrator();
+         gyroReader = new AsyncImuReader(AsyncImuReader.forGyro(gyro), GYRO_HZ);
+         gyroReader.start();
 
          // Step through each leg of the path,
          // Note: Reverse movement is obtained by setting a negative distance (not speed)
@@ -148,6 +174,7 @@
          gyroHold( TURN_SPEED,   0.0, 1.0);    // Hold  0 Deg heading for a 1 second
          gyroDrive(DRIVE_SPEED,-48.0, 0.0);    // Drive REV 48 inches
 
+         gyroReader.stop();
          telemetry.addData("Path", "Complete");
          telemetry.update();
      }
@@ -198,9 +225,16 @@
              robot.leftDrive.setPower(speed);
              robot.rightDrive.setPower(speed);
 
+             // The encoder targets take the Target caption while driving.
+             angleLine.setVisible(false);
+             targetLine.setInt(newLeftTarget, newRightTarget);
+             targetLine.setVisible(true);
+             actualLine.setVisible(true);
+
              // keep looping while we are still active, and BOTH motors are running.
              while (opModeIsActive() &&
                    (robot.leftDrive.isBusy() && robot.rightDrive.isBusy())) {
+                 loopTimer.tick();
 
                  // adjust relative speed based on heading error.
                  error = getError(angle);
@@ -225,13 +259,13 @@
                  robot.rightDrive.setPower(rightSpeed);
 
                  // Display drive status for the driver.
-                 telemetry.addData("Err/St",  "%5.1f/%5.1f",  error, steer);
-                 telemetry.addData("Target",  "%7d:%7d",      newLeftTarget,  newRightTarget);
-                 telemetry.addData("Actual",  "%7d:%7d",      robot.leftDrive.getCurrentPosition(),
-                                                              robot.rightDrive.getCurrentPosition());
-                 telemetry.addData("Speed",   "%5.2f:%5.2f",  leftSpeed, rightSpeed);
-                 telemetry.update();
+                 steerLine.set(error, steer);
+                 speedLine.set(leftSpeed, rightSpeed);
+                 dashboard.update();
              }
+             targetLine.setVisible(false);
+             actualLine.setVisible(false);
+             angleLine.setVisible(true);
 
              // Stop all motion;
              robot.leftDrive.setPower(0);
@@ -258,8 +292,9 @@
 
          // keep looping while we are still active, and not on heading.
          while (opModeIsActive() && !onHeading(speed, angle, P_TURN_COEFF)) {
+             loopTimer.tick();
              // Update telemetry & Allow time for other processes to run.
-             telemetry.update();
+             dashboard.update();
          }
      }
 
@@ -280,9 +315,10 @@
          // keep looping while we have time remaining.
          holdTimer.reset();
          while (opModeIsActive() && (holdTimer.time() < holdTime)) {
+             loopTimer.tick();
              // Update telemetry & Allow time for other processes to run.
              onHeading(speed, angle, P_TURN_COEFF);
-             telemetry.update();
+             dashboard.update();
          }
 
          // Stop all motion;
@@ -327,9 +363,9 @@
          robot.rightDrive.setPower(rightSpeed);
 
          // Display it for the driver.
-         telemetry.addData("Target", "%5.2f", angle);
-         telemetry.addData("Err/St", "%5.2f/%5.2f", error, steer);
-         telemetry.addData("Speed.", "%5.2f:%5.2f", leftSpeed, rightSpeed);
+         angleLine.set(angle);
+         steerLine.set(error, steer);
+         speedLine.set(leftSpeed, rightSpeed);
 
          return onTarget;
      }
@@ -345,7 +381,8 @@
          double robotError;
 
          // calculate error in -179 to +180 range  (
-         robotError = targetAngle - gyro.getIntegratedZValue();
+         gyroReader.read(gyroSample);
+         robotError = targetAngle - Math.toDegrees(gyroSample.heading);
          while (robotError > 180)  robotError -= 360;
          while (robotError <= -180) robotError += 360;
          return robotError;
@@ -0,0 +1,125 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * One camera frame as plain 8-bit RGB, row by row from the top left, with no
+ * Android or OpenCV types, so vision code can be run and timed on any JVM.
+ * <p>
+ * Frames are recorded as PPM files: binary (P6) or text (P3), maxval up to
+ * 255. Any image tool can write them, e.g. {@code convert frame.jpg frame.ppm}.
+ */
+public class RgbFrame {
+    public final int width;
+    public final int height;
+    /** Red, green, blue for each pixel; pixel (x, y) starts at 3 * (y * width + x). */
+    public final byte[] pixels;
+    /** When the frame was captured, from the capturing code's {@link NanoClock}. */
+    public long timestampNanos;
+
+    public RgbFrame(int _width, int _height) {
+        this(_width, _height, new byte[3 * _width * _height]);
+    }
+
+    public RgbFrame(int _width, int _height, byte[] _pixels) {
+        if (_width <= 0 || _height <= 0 || _pixels.length != 3 * _width * _height) {
+            throw new IllegalArgumentException("Bad frame " + _width + "x" + _height);
+        }
+        width = _width;
+        height = _height;
+        pixels = _pixels;
+    }
+
+    public int red(int x, int y) {
+        return pixels[3 * (y * width + x)] & 0xff;
+    }
+
+    public int green(int x, int y) {
+        return pixels[3 * (y * width + x) + 1] & 0xff;
+    }
+
+    public int blue(int x, int y) {
+        return pixels[3 * (y * width + x) + 2] & 0xff;
+    }
+
+    public static RgbFrame readPpm(File file) throws IOException {
+        final InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return readPpm(in);
+        } catch (IOException e) {
+            throw new IOException(file + ": " + e.getMessage());
+        } finally {
+            in.close();
+        }
+    }
+
+    public static RgbFrame readPpm(InputStream in) throws IOException {
+        final int magic1 = in.read();
+        final int magic2 = in.read();
+        if (magic1 != 'P' || (magic2 != '6' && magic2 != '3')) {
+            throw new IOException("Not a P3 or P6 PPM file");
+        }
+        final boolean binary = magic2 == '6';
+        final int width = readHeaderInt(in);
+        final int height = readHeaderInt(in);
+        final int maxval = readHeaderInt(in);
+        if (width <= 0 || height <= 0 || maxval <= 0 || maxval > 255) {
+            throw new IOException("Unsupported PPM " + width + "x" + height + " maxval " + maxval);
+        }
+        final RgbFrame frame = new RgbFrame(width, height);
+        final byte[] pixels = frame.pixels;
+        if (binary) {
+            // readHeaderInt() has consumed the one whitespace byte after maxval.
+            int read = 0;
+            while (read < pixels.length) {
+                final int n = in.read(pixels, read, pixels.length - read);
+                if (n < 0) {
+                    throw new IOException("PPM ends after " + read + " of " + pixels.length + " bytes");
+                }
+                read += n;
+            }
+        } else {
+            for (int i = 0; i < pixels.length; ++i) {
+                pixels[i] = (byte) readHeaderInt(in);
+            }
+        }
+        if (maxval != 255) {
+            for (int i = 0; i < pixels.length; ++i) {
+                pixels[i] = (byte) ((pixels[i] & 0xff) * 255 / maxval);
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Read a decimal number, skipping whitespace and # comments before it, and
+     * the single whitespace character after it.
+     */
+    private static int readHeaderInt(InputStream in) throws IOException {
+        int c = in.read();
+        while (true) {
+            if (c == '#') {
+                while (c != '\n' && c != '\r' && c >= 0) {
+                    c = in.read();
+                }
+            } else if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                c = in.read();
+            } else {
+                break;
+            }
+        }
+        if (c < '0' || c > '9') {
+            throw new IOException("Bad PPM header");
+        }
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            c = in.read();
+        }
+        return value;
+    }
+}
@@ -7,11 +7,6 @@
  import com.qualcomm.robotcore.hardware.HardwareMap;
 
  import org.firstinspires.ftc.robotcore.external.Telemetry;
- import org.firstinspires.ftc.robotcore.external.navigation.Acceleration;
- import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
- import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
- import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
- import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
 
  /**
   * Hardware definitions and access for a robot with a four-motor
@@ -19,15 +14,20 @@
   */
 
  public class Robot {
+     /** Rate the IMU thread polls at; the BNO055 fuses at 100 Hz. */
+     public static final double IMU_HZ = 100.0;
+
      private final HardwareMap hardwareMap;
      private final Telemetry telemetry;
 
      private final DcMotor lf, lr, rf, rr;
      private final BNO055IMU imu;
 
+     private final HardwareSnapshot snapshot;
+     private final AsyncImuReader imuReader;
+     private PoseTracker poseTracker = null;
+
      private double headingOffset = 0.0;
-     private Orientation angles;
-     private Acceleration gravity;
 
 
      public Robot(final HardwareMap _hardwareMap, final Telemetry _telemetry) {
@@ -42,7 +42,19 @@
          rf.setDirection(DcMotorSimple.Direction.REVERSE);
          rr.setDirection(DcMotorSimple.Direction.REVERSE);
 
-         imu = hardwareMap.get(BNO055IMU.class, "imu");
+         imu = initImu(hardwareMap);
+
+         snapshot = new HardwareSnapshot(lf, lr, rf, rr, imu);
+         imuReader = new AsyncImuReader(AsyncImuReader.forImu(imu), IMU_HZ, snapshot.getClock());
+         snapshot.setImuReader(imuReader);
+     }
+
+     /**
+      * Fetch the IMU named "imu" and start it reporting in radians, so OpModes
+      * that do not use this class read heading the same way.
+      */
+     public static BNO055IMU initImu(HardwareMap hardwareMap) {
+         final BNO055IMU imu = hardwareMap.get(BNO055IMU.class, "imu");
          BNO055IMU.Parameters parameters = new BNO055IMU.Parameters();
          parameters.angleUnit = BNO055IMU.AngleUnit.RADIANS;
          parameters.accelUnit = BNO055IMU.AccelUnit.METERS_PERSEC_PERSEC;
@@ -51,6 +63,32 @@
          parameters.loggingTag = "IMU";
          parameters.accelerationIntegrationAlgorithm = new JustLoggingAccelerationIntegrator();
          imu.initialize(parameters);
+         return imu;
+     }
+
+     /**
+      * Poll the IMU on a background thread so {@link #loop()} only reads the
+      * newest sample instead of waiting on I2C. This is opt-in: until it is
+      * called, {@link #loop()} reads the IMU inline. Call {@link #stopImuThread()}
+      * before the OpMode ends.
+      */
+     public void startImuThread() {
+         imuReader.start();
+     }
+
+     /**
+      * Stop the IMU thread; {@link #loop()} goes back to reading the IMU inline.
+      */
+     public void stopImuThread() {
+         imuReader.stop();
+     }
+
+     /**
+      * @return seconds since the IMU values in {@link #getState()} were read
+      */
+     public double getImuAgeSeconds() {
+         final RobotState state = snapshot.getState();
+         return (state.timestampNanos - state.imuTimestampNanos) * 1e-9;
      }
 
      private void setMotorMode(DcMotor.RunMode mode, DcMotor... motors) {
@@ -78,19 +116,58 @@
       * Fetch all once-per-time-slice values.
       * <p>
       * Call this either in your OpMode::loop function or in your while(opModeIsActive())
-      * loops in your autonomous. It refresh gyro and other values that are computationally
-      * expensive.
+      * loops in your autonomous. It refresh gyro, encoder and other values that are
+      * computationally expensive; read them back through {@link #getState()}.
       */
      public void loop() {
-         angles = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS);
-         gravity = imu.getGravity();
+         snapshot.read();
+         if (poseTracker != null) {
+             poseTracker.update(snapshot.getState(), getHeading());
+         }
+     }
+
+     /**
+      * Start tracking the robot's field position. From the next call to
+      * {@link #loop()} on, the pose is integrated from the drive encoders and the
+      * IMU heading.
+      *
+      * @param countsPerInch Drive encoder counts per inch of wheel travel
+      * @param trackWidth    Distance between the left and right wheels in inches
+      * @param wheelBase     Distance between the front and rear wheels in inches
+      * @return the tracker, e.g. to reset it to a starting position
+      */
+     public PoseTracker trackPose(double countsPerInch, double trackWidth, double wheelBase) {
+         poseTracker = new PoseTracker(new MecanumKinematics(trackWidth, wheelBase), countsPerInch);
+         return poseTracker;
+     }
+
+     /**
+      * @return the robot's field pose as of the last {@link #loop()}, or null if
+      *         {@link #trackPose} has not been called
+      */
+     public Pose getPose() {
+         return poseTracker == null ? null : poseTracker.getPose();
+     }
+
+     /**
+      * @return the values fetched by the last call to {@link #loop()}
+      */
+     public RobotState getState() {
+         return snapshot.getState();
+     }
+
+     /**
+      * @return the snapshot layer, for tuning which values are read each cycle
+      */
+     public HardwareSnapshot getSnapshot() {
+         return snapshot;
      }
 
      /**
       * @return the raw heading along the desired axis
       */
      private double getRawHeading() {
-         return angles.firstAngle;
+         return snapshot.getState().heading;
      }
 
      /**
@@ -128,6 +205,23 @@
          return ret;
      }
 
+     /**
+      * Drive without turning while holding a heading.
+      * <p>
+      * The rotation correction is mixed into each wheel before the powers are
+      * scaled by {@link #setMotors}, so a full-power move still corrects.
+      *
+      * @param forward Forward power
+      * @param strafe  Power to the right
+      * @param heading Heading to hold in radians, as {@link #getHeading()} reports it
+      * @param gain    Turn power per radian of heading error
+      */
+     public void driveHolding(double forward, double strafe, double heading, double gain) {
+         final double turn = Math.max(-MotionEngine.MAX_HEADING_CORRECTION,
+                 Math.min(MotionEngine.MAX_HEADING_CORRECTION, gain * Pose.wrapAngle(heading - getHeading())));
+         setMotors(forward + strafe - turn, forward - strafe - turn, forward - strafe + turn, forward + strafe + turn);
+     }
+
      /**
       * Set motor powers
       * <p>
@@ -0,0 +1,79 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Once-per-cycle snapshot of everything the control code reads from the hubs.
+ * <p>
+ * Filled by {@link HardwareSnapshot#read()}. Consumers read these fields instead of
+ * calling getCurrentPosition()/isBusy() on the motors, so each value costs exactly
+ * one hub transaction per cycle no matter how many places look at it.
+ */
+public class RobotState {
+    /** Time the snapshot was taken, from the snapshot's {@link NanoClock}. */
+    public long timestampNanos;
+    /** Seconds since the previous snapshot, 0 on the first one. */
+    public double dtSeconds;
+
+    /** Encoder counts. */
+    public int lfPosition, lrPosition, rfPosition, rrPosition;
+    /** Encoder counts per second, differenced from the previous snapshot. */
+    public double lfVelocity, lrVelocity, rfVelocity, rrVelocity;
+    /** Motor controller busy flags (only meaningful in RUN_TO_POSITION). */
+    public boolean lfBusy, lrBusy, rfBusy, rrBusy;
+
+    /** Raw IMU heading in radians, before any heading offset is applied. */
+    public double heading;
+    /** Turn rate in radians per second, CCW positive. */
+    public double headingRate;
+    /** Gravity vector in m/s^2. */
+    public double gravityX, gravityY, gravityZ;
+    /** When heading and gravity were read; earlier than timestampNanos if they came from an {@link AsyncImuReader}. */
+    public long imuTimestampNanos;
+
+    /**
+     * @return true while every drive motor is still running to its target
+     */
+    public boolean allBusy() {
+        return lfBusy && lrBusy && rfBusy && rrBusy;
+    }
+
+    /**
+     * @return true while any drive motor is still running to its target
+     */
+    public boolean anyBusy() {
+        return lfBusy || lrBusy || rfBusy || rrBusy;
+    }
+
+    /**
+     * @return the largest absolute wheel velocity in counts per second
+     */
+    public double maxAbsVelocity() {
+        return Math.max(Math.max(Math.abs(lfVelocity), Math.abs(lrVelocity)),
+                        Math.max(Math.abs(rfVelocity), Math.abs(rrVelocity)));
+    }
+
+    /**
+     * Copy every field from another snapshot.
+     */
+    public void copyFrom(RobotState other) {
+        timestampNanos = other.timestampNanos;
+        dtSeconds = other.dtSeconds;
+        lfPosition = other.lfPosition;
+        lrPosition = other.lrPosition;
+        rfPosition = other.rfPosition;
+        rrPosition = other.rrPosition;
+        lfVelocity = other.lfVelocity;
+        lrVelocity = other.lrVelocity;
+        rfVelocity = other.rfVelocity;
+        rrVelocity = other.rrVelocity;
+        lfBusy = other.lfBusy;
+        lrBusy = other.lrBusy;
+        rfBusy = other.rfBusy;
+        rrBusy = other.rrBusy;
+        heading = other.heading;
+        headingRate = other.headingRate;
+        gravityX = other.gravityX;
+        gravityY = other.gravityY;
+        gravityZ = other.gravityZ;
+        imuTimestampNanos = other.imuTimestampNanos;
+    }
+}
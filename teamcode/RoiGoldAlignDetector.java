@@ -0,0 +1,155 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.disnodeteam.dogecv.detectors.roverrukus.GoldAlignDetector;
+
+import org.opencv.core.Mat;
+
+/**
+ * DogeCV's GoldAlignDetector on a band of the frame, and on only every Nth frame.
+ * <p>
+ * The sample minerals only ever show up in a horizontal band of the picture;
+ * above it are the lander and the crater, which cost time to filter and can
+ * hold gold of their own. {@link #setRegionOfInterest} sets that band, and the
+ * detector runs on a view of just those rows, so nothing is copied. The band
+ * spans the full width, so getXPosition() and getAligned() mean what they did
+ * on the whole frame. The preview shows the band stretched to the screen.
+ * <p>
+ * {@link #setFrameDivisor} skips frames: the camera delivers about 30 a second
+ * and the autos do not move fast enough to need them all. Skipped frames cost
+ * nothing and leave the last result in place.
+ * <p>
+ * {@link #setPaused} stops the processing but not the camera, so the detector
+ * can be put back to work at once; {@link VisionCache} uses it to run the
+ * detector only when its answer could have changed.
+ * <p>
+ * {@link #getAlignmentError()} gives the gold's offset from the alignment zone
+ * as a fraction of the frame width, for {@link GoldAlignServo} to steer on.
+ * <p>
+ * The time each processed frame took is kept, so the OpMode can show what
+ * vision is costing the phone.
+ */
+public class RoiGoldAlignDetector extends GoldAlignDetector
+        implements VisionCache.Detector, GoldAlignServo.Target {
+    /** Weight of the newest frame in the average processing time. */
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    private volatile double roiTop = 0.0;
+    private volatile double roiBottom = 1.0;
+    private volatile int frameDivisor = 1;
+    private volatile boolean paused = false;
+
+    // Written on the camera thread, read on the OpMode thread.
+    private volatile long lastNanos = 0;
+    private volatile long maxNanos = 0;
+    private volatile double averageNanos = 0.0;
+    private volatile int processedFrames = 0;
+    private volatile int skippedFrames = 0;
+    private volatile int frameWidth = 0;
+
+    private int frameIndex = 0;
+    private Mat lastOutput = null;
+
+    /**
+     * @param top    Top of the band, as a fraction of the frame height from the top
+     * @param bottom Bottom of the band, as a fraction of the frame height from the top
+     */
+    public void setRegionOfInterest(double top, double bottom) {
+        if (top < 0.0 || bottom > 1.0 || top >= bottom) {
+            throw new IllegalArgumentException("Bad region " + top + " to " + bottom);
+        }
+        roiTop = top;
+        roiBottom = bottom;
+    }
+
+    /**
+     * @param divisor Process one frame in this many; 1 for every frame
+     */
+    @Override
+    public void setFrameDivisor(int divisor) {
+        if (divisor < 1) {
+            throw new IllegalArgumentException("Frame divisor must be at least 1");
+        }
+        frameDivisor = divisor;
+    }
+
+    /**
+     * @param _paused True to pass frames through untouched, keeping the last result
+     */
+    @Override
+    public void setPaused(boolean _paused) {
+        paused = _paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public Mat process(Mat input) {
+        if (paused) {
+            ++skippedFrames;
+            return input;
+        }
+        if (frameIndex++ % frameDivisor != 0 && lastOutput != null) {
+            ++skippedFrames;
+            return lastOutput;
+        }
+        final long start = System.nanoTime();
+        final int rows = input.rows();
+        final int top = (int) (roiTop * rows);
+        final int bottom = Math.max(top + 1, (int) (roiBottom * rows));
+        final Mat band = top == 0 && bottom == rows ? input : input.rowRange(top, bottom);
+        lastOutput = super.process(band);
+        frameWidth = input.cols();
+
+        final long elapsed = System.nanoTime() - start;
+        lastNanos = elapsed;
+        maxNanos = Math.max(maxNanos, elapsed);
+        averageNanos = processedFrames == 0 ? elapsed : averageNanos + AVERAGE_WEIGHT * (elapsed - averageNanos);
+        ++processedFrames;
+        return lastOutput;
+    }
+
+    /**
+     * @return milliseconds the last processed frame took
+     */
+    public double getLastProcessMs() {
+        return lastNanos * 1e-6;
+    }
+
+    /**
+     * @return running average of the processing time, milliseconds
+     */
+    public double getAverageProcessMs() {
+        return averageNanos * 1e-6;
+    }
+
+    /**
+     * @return longest a frame has taken, milliseconds
+     */
+    public double getMaxProcessMs() {
+        return maxNanos * 1e-6;
+    }
+
+    @Override
+    public int getProcessedFrames() {
+        return processedFrames;
+    }
+
+    public int getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * @return the gold's offset from the center of the alignment zone, as a
+     * fraction of the frame width, positive to the right; 0 before the first frame
+     */
+    @Override
+    public double getAlignmentError() {
+        final int width = frameWidth;
+        if (width == 0) {
+            return 0.0;
+        }
+        return (getXPosition() - (width / 2.0 + alignPosOffset)) / width;
+    }
+}
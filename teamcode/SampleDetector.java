@@ -0,0 +1,37 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Anything that can read the gold position from a single camera frame.
+ * <p>
+ * The sampling autos decide from many frames through a {@link SamplingVoter};
+ * a detector only says what one frame shows and how much that reading is
+ * worth. Putting each detector behind this interface lets {@link VisionBenchmark}
+ * run them all over the same recorded frames, and lets one with no Android
+ * dependencies run off the robot.
+ * <p>
+ * Positions are read the way the autos read them: the camera faces the center
+ * and right minerals, and gold in neither is LEFT.
+ */
+public interface SampleDetector {
+    /**
+     * @return a short name for reports
+     */
+    String getName();
+
+    /**
+     * Forget anything kept from earlier frames, before a new run.
+     */
+    void reset();
+
+    /**
+     * Read one frame. Called on one thread, one frame at a time.
+     *
+     * @return where this frame shows the gold, UNKNOWN if it cannot tell
+     */
+    TrajectoryCache.Gold detect(RgbFrame frame);
+
+    /**
+     * @return how much the last reading is worth as a vote, 0 to 1
+     */
+    double getWeight();
+}
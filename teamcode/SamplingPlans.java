@@ -0,0 +1,151 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+
+/**
+ * The sampling paths driven by FlowyCrater and FlowyDepot after the gold
+ * mineral has been located.
+ * <p>
+ * Steps are relative encoder moves in the same lf, lr, rf, rr inches the
+ * OpModes used to pass to encoderDrive. Servo steps name a slot; the OpMode maps
+ * slots to its own Servo objects. The saved file is checked against these
+ * definitions on every load, so editing a path needs no version bump.
+ */
+public class SamplingPlans {
+    public static final int VERSION = 1;
+    public static final String FILE_NAME = "SamplingPlans.bin";
+
+    // Servo slots
+    public static final int MARKER = 0;
+    public static final int ANGLE_L = 1;
+    public static final int ANGLE_R = 2;
+    public static final int SERVO_COUNT = 3;
+
+    static final double CRATER_DRIVE_SPEED = 0.5;
+    static final double DEPOT_DRIVE_SPEED = 0.9;
+    static final double TURN_SPEED = 0.2;
+
+    /**
+     * Build the plans, saving them to the controller's settings directory if
+     * the file there is missing or differs.
+     */
+    public static TrajectoryCache load() {
+        final File file = AppUtil.getInstance().getSettingsFile(FILE_NAME);
+        return TrajectoryCache.load(file, VERSION, SERVO_COUNT, new TrajectoryCache.Factory() {
+            @Override
+            public TrajectoryCache build() {
+                return SamplingPlans.build();
+            }
+        });
+    }
+
+    public static TrajectoryCache build() {
+        TrajectoryCache cache = new TrajectoryCache(VERSION);
+        final TrajectoryCache.Plan craterCenter = craterCenter();
+        cache.put(TrajectoryCache.Start.CRATER, TrajectoryCache.Gold.LEFT, craterLeft());
+        cache.put(TrajectoryCache.Start.CRATER, TrajectoryCache.Gold.CENTER, craterCenter);
+        cache.put(TrajectoryCache.Start.CRATER, TrajectoryCache.Gold.RIGHT, craterRight());
+        cache.put(TrajectoryCache.Start.CRATER, TrajectoryCache.Gold.UNKNOWN, craterCenter);
+        cache.put(TrajectoryCache.Start.DEPOT, TrajectoryCache.Gold.LEFT, depotLeft());
+        cache.put(TrajectoryCache.Start.DEPOT, TrajectoryCache.Gold.CENTER, depotCenter(false));
+        cache.put(TrajectoryCache.Start.DEPOT, TrajectoryCache.Gold.RIGHT, depotRight());
+        cache.put(TrajectoryCache.Start.DEPOT, TrajectoryCache.Gold.UNKNOWN, depotCenter(true));
+        return cache;
+    }
+
+    private static TrajectoryCache.Plan craterLeft() {
+        final double speed = CRATER_DRIVE_SPEED;
+        return new TrajectoryCache.Plan.Builder()
+                .servo(MARKER, 0.95, 0.0)
+                .drive(speed, 1, 1, 1, 1, 1.0)          // Forward
+                .drive(speed, -4, 4, 4, -4, 3.0)        // Strafe left
+                .pause(0.05)
+                .drive(speed, 4, 4, 4, 4, 2.0)          // Forward
+                .pause(0.05)
+                .servo(ANGLE_L, 1.0, 0.0)               // Bucket up
+                .servo(ANGLE_R, 0.15, 1.0)
+                .build();
+    }
+
+    private static TrajectoryCache.Plan craterCenter() {
+        final double speed = CRATER_DRIVE_SPEED;
+        return new TrajectoryCache.Plan.Builder()
+                .servo(MARKER, 0.95, 0.0)
+                .drive(speed, 5, 5, 5, 5, 2.0)          // Forward, sample
+                .pause(0.05)
+                .servo(ANGLE_L, 1.0, 0.0)               // Bucket up
+                .servo(ANGLE_R, 0.15, 1.0)
+                .build();
+    }
+
+    private static TrajectoryCache.Plan craterRight() {
+        final double speed = CRATER_DRIVE_SPEED;
+        return new TrajectoryCache.Plan.Builder()
+                .servo(MARKER, 0.95, 0.0)
+                .drive(speed, 1, 1, 1, 1, 2.0)          // Forward
+                .pause(0.05)
+                .drive(speed, 5, -5, -5, 5, 3.0)        // Strafe right
+                .pause(0.05)
+                .drive(speed, 4, 4, 4, 4, 2.0)          // Forward
+                .pause(0.05)
+                .servo(ANGLE_L, 1.0, 0.0)               // Bucket up
+                .servo(ANGLE_R, 0.15, 1.0)
+                .build();
+    }
+
+    private static TrajectoryCache.Plan depotLeft() {
+        final double speed = DEPOT_DRIVE_SPEED;
+        return new TrajectoryCache.Plan.Builder()
+                .drive(speed, 1, 1, 1, 1, 1.0)          // Forward
+                .drive(speed, -2.5, -2.5, 2.5, 2.5, 1.0) // Turn right (45)
+                .drive(speed, 8, 8, 8, 8, 2.0)          // Forward
+                .drive(speed, 5, 5, -5, -5, 2.0)        // Turn left
+                .drive(speed, 6, 6, 6, 6, 2.0)          // Forward
+                .drive(speed, -13, -13, -13, -13, 3.0)  // Backward
+                .drive(speed, -6, 6, 6, -6, 2.0)        // Strafe left
+                .pause(0.1)
+                .drive(speed, 1, -1, -1, 1, 1.0)        // Strafe right
+                .drive(speed, -5, -5, -5, -5, 3.0)      // Forward to park on crater
+                .build();
+    }
+
+    private static TrajectoryCache.Plan depotCenter(boolean unseen) {
+        final double speed = DEPOT_DRIVE_SPEED;
+        TrajectoryCache.Plan.Builder plan = new TrajectoryCache.Plan.Builder()
+                .drive(speed, 11, 11, 11, 11, 3.0)      // Forward
+                .drive(speed, 4, 4, -4, -4, 3.0)        // Turn right
+                .drive(speed, 10, 10, -10, -10, 3.0)    // Turn right
+                .drive(speed, 3.5, 3.5, 3.5, 3.5, 2.0)  // Forward
+                .drive(speed, 5, -5, -5, 5, 2.0)        // Strafe right
+                .pause(0.2)
+                .drive(speed, -1, 1, 1, -1, 1.0)        // Strafe left
+                .drive(speed, 11, 11, 11, 11, 3.0)      // Forward to park on crater
+                .drive(speed, 5, -5, -5, 5, 1.0)        // Strafe right
+                .drive(speed, -1, 1, 1, -1, 1.0)        // Strafe left
+                .drive(speed, 3, 3, 3, 3, 3.0);         // Forward to park on crater
+        if (unseen) {
+            plan.servo(ANGLE_L, 1.0, 0.0)               // Bucket up
+                .servo(ANGLE_R, 0.15, 1.0);
+        }
+        return plan.build();
+    }
+
+    private static TrajectoryCache.Plan depotRight() {
+        final double speed = DEPOT_DRIVE_SPEED;
+        return new TrajectoryCache.Plan.Builder()
+                .drive(speed, 1, 1, 1, 1, 1.0)          // Forward
+                .drive(speed, 3, 3, -3, -3, 2.0)        // Turn left (45)
+                .drive(speed, 8, 8, 8, 8, 2.0)          // Forward
+                .drive(speed, -7, 7, 7, -7, 2.0)        // Strafe left
+                .drive(speed, 2, 2, -2, -2, 1.0)        // Turn left
+                .drive(speed, -7, -7, -7, -7, 2.0)      // Backward
+                .drive(speed, -2, -2, 2, 2, 2.0)        // Turn right
+                .drive(speed, -6, -6, -6, -6, 2.0)      // Backward
+                .drive(speed, -5, 5, 5, -5, 2.0)        // Strafe left
+                .drive(TURN_SPEED, 1, -1, -1, 1, 2.0)   // Strafe right
+                .drive(speed, 6, 6, 6, 6, 2.0)          // Forward
+                .build();
+    }
+}
@@ -0,0 +1,317 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.tfod.Recognition;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides where the gold mineral is from many TFOD frames instead of the first
+ * one that looks right.
+ * <p>
+ * Each frame is read the way the Flowy autos always have: the camera sees the
+ * center and right minerals, so gold left of the silver is CENTER, gold right of
+ * it is RIGHT, and two silvers mean LEFT. Before that, boxes that cannot be a
+ * sample mineral (wrong shape, or too high in the image, i.e. in the crater)
+ * are dropped, and if more than two are left the two nearest the robot are
+ * used. The frame's vote is weighted by the two boxes' confidence and how
+ * square they are.
+ * <p>
+ * Votes are combined as independent evidence: a frame that reads a position is
+ * taken to be right {@link #FRAME_ACCURACY} of the time and otherwise to pick
+ * one of the other two. That gives a probability for each position, and the
+ * decision is made as soon as the leader's reaches {@link #DEFAULT_THRESHOLD}
+ * over at least {@link #MIN_FRAMES} frames. One bad frame cannot outvote two
+ * good ones.
+ * <p>
+ * Frames that arrive close together are not independent: TFOD sees the same
+ * glare and the same blur in both. A vote that comes less than
+ * {@link #INDEPENDENT_SECONDS} after the previous one is scaled down by the
+ * fraction of that time that has passed, so a burst of frames counts about as
+ * much as one, and evidence for a decision has to be collected over roughly
+ * {@link #INDEPENDENT_SECONDS} or more instead of two back-to-back frames.
+ * <p>
+ * With {@link #setHalfLife} older votes fade, so a voter run for a long time,
+ * e.g. through init, follows the field as it is now.
+ * <p>
+ * The last {@link #HISTORY} frames are kept as {@link Frame}s for telemetry and
+ * the log. Nothing is allocated per frame.
+ */
+public class SamplingVoter {
+    /** Probability a single full-weight frame reads the right position. */
+    public static final double FRAME_ACCURACY = 0.8;
+    /** Probability of the leading position needed to decide. */
+    public static final double DEFAULT_THRESHOLD = 0.95;
+    /** Fewest voting frames a decision may rest on. */
+    public static final int MIN_FRAMES = 2;
+    /** Time between votes after which they count as independent; closer votes are discounted. */
+    public static final double INDEPENDENT_SECONDS = 0.25;
+    /** Frames kept for {@link #getFrame}. */
+    public static final int HISTORY = 16;
+
+    /** Widest height-to-width ratio, either way, a mineral box may have. */
+    static final double MAX_ASPECT = 2.0;
+    /** Highest a sample mineral's bottom edge can be, as a fraction of image height from the top. */
+    static final double MIN_BOTTOM_FRACTION = 0.4;
+
+    private static final int POSITIONS = 3;
+    private static final double LOG_LIKELIHOOD = Math.log(FRAME_ACCURACY / ((1.0 - FRAME_ACCURACY) / 2.0));
+
+    private final String goldLabel;
+    private final NanoClock clock;
+    private final double[] logOdds = new double[POSITIONS];
+    private final double[] probability = new double[POSITIONS];
+    private final Frame[] frames = new Frame[HISTORY];
+    private int frameCount = 0;
+    private int votes = 0;
+    private long startNanos;
+    private long lastVoteNanos;
+    private double halfLife = 0.0;
+
+    /**
+     * @param _goldLabel TFOD label of the gold mineral
+     * @param _clock     Time source for the frame timestamps
+     */
+    public SamplingVoter(String _goldLabel, NanoClock _clock) {
+        goldLabel = _goldLabel;
+        clock = _clock;
+        for (int i = 0; i < HISTORY; ++i) {
+            frames[i] = new Frame();
+        }
+        reset();
+    }
+
+    /**
+     * Forget all evidence, e.g. before sampling again from a new spot.
+     */
+    public void reset() {
+        for (int i = 0; i < POSITIONS; ++i) {
+            logOdds[i] = 0.0;
+            probability[i] = 1.0 / POSITIONS;
+        }
+        frameCount = 0;
+        votes = 0;
+        startNanos = clock.nanoTime();
+        lastVoteNanos = startNanos;
+    }
+
+    /**
+     * @param seconds Time over which a vote loses half its weight, 0 to keep all evidence
+     */
+    public void setHalfLife(double seconds) {
+        halfLife = seconds;
+    }
+
+    /**
+     * Read one frame of recognitions and add its vote.
+     *
+     * @param recognitions A frame from getUpdatedRecognitions(); null adds nothing
+     * @return the position this frame voted for, UNKNOWN if it could not tell
+     */
+    public TrajectoryCache.Gold addFrame(List<Recognition> recognitions) {
+        if (recognitions == null) {
+            return TrajectoryCache.Gold.UNKNOWN;
+        }
+        // The two candidates nearest the robot, i.e. lowest in the image.
+        Recognition first = null;
+        Recognition second = null;
+        int candidates = 0;
+        for (int i = 0; i < recognitions.size(); ++i) {
+            final Recognition r = recognitions.get(i);
+            if (!isSampleMineral(r)) {
+                continue;
+            }
+            ++candidates;
+            if (first == null || r.getBottom() > first.getBottom()) {
+                second = first;
+                first = r;
+            } else if (second == null || r.getBottom() > second.getBottom()) {
+                second = r;
+            }
+        }
+
+        TrajectoryCache.Gold vote = TrajectoryCache.Gold.UNKNOWN;
+        double weight = 0.0;
+        if (second != null) {
+            final boolean firstGold = goldLabel.equals(first.getLabel());
+            final boolean secondGold = goldLabel.equals(second.getLabel());
+            if (firstGold && secondGold) {
+                vote = TrajectoryCache.Gold.UNKNOWN;
+            } else if (!firstGold && !secondGold) {
+                // Two silvers in view, so the gold is the one we can't see.
+                vote = TrajectoryCache.Gold.LEFT;
+            } else {
+                final Recognition gold = firstGold ? first : second;
+                final Recognition silver = firstGold ? second : first;
+                vote = gold.getLeft() < silver.getLeft() ? TrajectoryCache.Gold.CENTER : TrajectoryCache.Gold.RIGHT;
+            }
+            if (vote != TrajectoryCache.Gold.UNKNOWN) {
+                weight = first.getConfidence() * second.getConfidence() * squareness(first) * squareness(second);
+            }
+        }
+        addVote(vote, weight, recognitions.size(), candidates);
+        return vote;
+    }
+
+    /**
+     * Add a vote from another source, e.g. a detector other than TFOD.
+     *
+     * @param weight 0 for no evidence up to 1 for a frame as good as TFOD's best
+     */
+    public void addVote(TrajectoryCache.Gold vote, double weight) {
+        addVote(vote, weight, 0, 0);
+    }
+
+    private void addVote(TrajectoryCache.Gold vote, double weight, int recognitions, int candidates) {
+        weight = Math.max(0.0, Math.min(1.0, weight));
+        final long now = clock.nanoTime();
+        if (vote != TrajectoryCache.Gold.UNKNOWN && weight > 0.0) {
+            if (halfLife > 0.0) {
+                final double fade = Math.pow(0.5, (now - lastVoteNanos) * 1e-9 / halfLife);
+                for (int i = 0; i < POSITIONS; ++i) {
+                    logOdds[i] *= fade;
+                }
+            }
+            if (votes > 0) {
+                weight *= Math.min(1.0, (now - lastVoteNanos) * 1e-9 / INDEPENDENT_SECONDS);
+            }
+            lastVoteNanos = now;
+            logOdds[vote.ordinal()] += weight * LOG_LIKELIHOOD;
+            ++votes;
+            updateProbabilities();
+        }
+        final Frame frame = frames[frameCount % HISTORY];
+        frame.seconds = (now - startNanos) * 1e-9;
+        frame.recognitions = recognitions;
+        frame.candidates = candidates;
+        frame.vote = vote;
+        frame.weight = vote == TrajectoryCache.Gold.UNKNOWN ? 0.0 : weight;
+        ++frameCount;
+    }
+
+    private void updateProbabilities() {
+        double max = logOdds[0];
+        for (int i = 1; i < POSITIONS; ++i) {
+            max = Math.max(max, logOdds[i]);
+        }
+        double sum = 0.0;
+        for (int i = 0; i < POSITIONS; ++i) {
+            probability[i] = Math.exp(logOdds[i] - max);
+            sum += probability[i];
+        }
+        for (int i = 0; i < POSITIONS; ++i) {
+            probability[i] /= sum;
+        }
+    }
+
+    private boolean isSampleMineral(Recognition r) {
+        final double width = r.getWidth();
+        final double height = r.getHeight();
+        if (width <= 0.0 || height <= 0.0) {
+            return false;
+        }
+        final double aspect = height / width;
+        if (aspect > MAX_ASPECT || aspect < 1.0 / MAX_ASPECT) {
+            return false;
+        }
+        return r.getImageHeight() <= 0 || r.getBottom() >= MIN_BOTTOM_FRACTION * r.getImageHeight();
+    }
+
+    /**
+     * @return 1 for a square box, falling to 0 at {@link #MAX_ASPECT}
+     */
+    private static double squareness(Recognition r) {
+        final double skew = Math.abs(Math.log(r.getHeight() / r.getWidth()));
+        return Math.max(0.0, 1.0 - skew / Math.log(MAX_ASPECT));
+    }
+
+    /**
+     * @return the position decided at the default threshold, UNKNOWN until then
+     */
+    public TrajectoryCache.Gold getDecision() {
+        return getDecision(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold Probability the leader needs, e.g. lower once time is running out
+     * @return the leading position if it is that likely, UNKNOWN otherwise
+     */
+    public TrajectoryCache.Gold getDecision(double threshold) {
+        final TrajectoryCache.Gold leader = getLeader();
+        if (leader == TrajectoryCache.Gold.UNKNOWN || votes < MIN_FRAMES
+                || probability[leader.ordinal()] < threshold) {
+            return TrajectoryCache.Gold.UNKNOWN;
+        }
+        return leader;
+    }
+
+    public boolean isDecided() {
+        return getDecision() != TrajectoryCache.Gold.UNKNOWN;
+    }
+
+    /**
+     * @return the most likely position, UNKNOWN before any vote
+     */
+    public TrajectoryCache.Gold getLeader() {
+        if (votes == 0) {
+            return TrajectoryCache.Gold.UNKNOWN;
+        }
+        int best = 0;
+        for (int i = 1; i < POSITIONS; ++i) {
+            if (probability[i] > probability[best]) {
+                best = i;
+            }
+        }
+        return TrajectoryCache.Gold.values()[best];
+    }
+
+    /**
+     * @return how likely the gold is at a position given the votes so far
+     */
+    public double getProbability(TrajectoryCache.Gold position) {
+        return position == TrajectoryCache.Gold.UNKNOWN ? 0.0 : probability[position.ordinal()];
+    }
+
+    /**
+     * @return frames seen since the last reset, voting or not
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getVoteCount() {
+        return votes;
+    }
+
+    /**
+     * @param age 0 for the latest frame, up to min(getFrameCount(), HISTORY) - 1
+     * @return the evidence of a recent frame; the object is reused, copy what you keep
+     */
+    public Frame getFrame(int age) {
+        if (age < 0 || age >= Math.min(frameCount, HISTORY)) {
+            throw new IndexOutOfBoundsException("No frame " + age);
+        }
+        return frames[(frameCount - 1 - age) % HISTORY];
+    }
+
+    /**
+     * What one frame showed and how it voted.
+     */
+    public static class Frame {
+        /** Seconds since the voter was reset. */
+        public double seconds;
+        /** Boxes TFOD reported. */
+        public int recognitions;
+        /** Boxes that passed the shape and position checks. */
+        public int candidates;
+        public TrajectoryCache.Gold vote;
+        /** Weight the vote was given after the discount for closeness, 0 if it did not count. */
+        public double weight;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%.2fs %d/%d %s %.2f",
+                                 seconds, candidates, recognitions, vote, weight);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.Servo;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Measured servo speeds, kept in the controller's settings directory so they
+ * are calibrated once rather than guessed in every OpMode.
+ * <p>
+ * The file is a plain properties file, one line per servo:
+ * <pre>
+ *     AngleL.degreesPerSecond=215.0
+ * </pre>
+ * {@link ServoCalibrationOp} writes it. A servo missing from the file, or a
+ * missing file, gets {@link #DEFAULT_DEGREES_PER_SECOND}.
+ */
+public class ServoCalibration {
+    public static final String FILE_NAME = "ServoCalibration.properties";
+
+    /** A loaded standard servo, on the slow side so an uncalibrated wait is not cut short. */
+    public static final double DEFAULT_DEGREES_PER_SECOND = 180.0;
+
+    private static final String RATE_KEY = ".degreesPerSecond";
+
+    private final Properties values = new Properties();
+    private final File file;
+
+    private ServoCalibration(File _file) {
+        file = _file;
+    }
+
+    /**
+     * Read the calibration from the settings directory.
+     */
+    public static ServoCalibration load() {
+        return load(AppUtil.getInstance().getSettingsFile(FILE_NAME));
+    }
+
+    public static ServoCalibration load(File file) {
+        final ServoCalibration calibration = new ServoCalibration(file);
+        if (file == null || !file.exists()) {
+            return calibration;
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            calibration.values.load(in);
+        } catch (IOException e) {
+            // Unreadable: run on the defaults, the next calibration rewrites it.
+            calibration.values.clear();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Already read.
+                }
+            }
+        }
+        return calibration;
+    }
+
+    public void save() throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            values.store(out, "Servo speeds measured by ServoCalibrationOp");
+        } finally {
+            out.close();
+        }
+    }
+
+    public boolean isCalibrated(String name) {
+        return values.containsKey(name + RATE_KEY);
+    }
+
+    public double getDegreesPerSecond(String name) {
+        final String value = values.getProperty(name + RATE_KEY);
+        if (value == null) {
+            return DEFAULT_DEGREES_PER_SECOND;
+        }
+        try {
+            final double rate = Double.parseDouble(value);
+            return rate > 0.0 ? rate : DEFAULT_DEGREES_PER_SECOND;
+        } catch (NumberFormatException e) {
+            return DEFAULT_DEGREES_PER_SECOND;
+        }
+    }
+
+    public void setDegreesPerSecond(String name, double rate) {
+        values.setProperty(name + RATE_KEY, Double.toString(rate));
+    }
+
+    /**
+     * @return a model of the named servo with its calibrated speed
+     */
+    public ServoModel model(HardwareMap hardwareMap, String name, NanoClock clock) {
+        return model(name, hardwareMap.get(Servo.class, name), clock);
+    }
+
+    public ServoModel model(String name, Servo servo, NanoClock clock) {
+        return new ServoModel(name, servo, getDegreesPerSecond(name), ServoModel.DEFAULT_RANGE_DEGREES, clock);
+    }
+}
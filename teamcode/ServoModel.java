@@ -0,0 +1,127 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Servo;
+
+/**
+ * Estimates where a positional servo is while it travels.
+ * <p>
+ * A servo reports nothing back, so the model keeps the last commanded position
+ * and when it was sent, and assumes the horn swings at a fixed rate, measured
+ * once with {@link ServoCalibrationOp} and loaded from {@link ServoCalibration}.
+ * Send every command through {@link #setPosition} so the model stays in step.
+ * <p>
+ * Before the first command the servo could be anywhere, so the first move is
+ * timed from whichever end of the range is farther away.
+ */
+public class ServoModel {
+    /** Degrees of horn travel across positions 0 to 1 for a standard servo. */
+    public static final double DEFAULT_RANGE_DEGREES = 180.0;
+
+    private final String name;
+    private final Servo servo;
+    private final NanoClock clock;
+    private final double degreesPerSecond;
+    private final double rangeDegrees;
+
+    private boolean commanded = false;
+    private double from = 0.0;
+    private double target = 0.0;
+    private long startNanos = 0;
+    private long arrivalNanos = 0;
+
+    /**
+     * @param _name             Hardware map name, the calibration key
+     * @param _servo            The servo
+     * @param _degreesPerSecond Calibrated speed of the horn under its load
+     * @param _rangeDegrees     Horn travel from position 0 to 1
+     * @param _clock            Time source for the estimate
+     */
+    public ServoModel(String _name, Servo _servo, double _degreesPerSecond, double _rangeDegrees,
+                      NanoClock _clock) {
+        name = _name;
+        servo = _servo;
+        degreesPerSecond = _degreesPerSecond;
+        rangeDegrees = _rangeDegrees;
+        clock = _clock;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Servo getServo() {
+        return servo;
+    }
+
+    public double getDegreesPerSecond() {
+        return degreesPerSecond;
+    }
+
+    /**
+     * Command a position and start timing the move from where the servo is
+     * estimated to be now. Repeating the current target changes nothing.
+     */
+    public void setPosition(double position) {
+        final long now = clock.nanoTime();
+        if (commanded && position == target) {
+            return;
+        }
+        final double start = commanded ? getEstimatedPosition(now) : (position < 0.5 ? 1.0 : 0.0);
+        servo.setPosition(position);
+        from = start;
+        target = position;
+        startNanos = now;
+        arrivalNanos = now + (long) (travelSeconds(start, position) * 1e9);
+        commanded = true;
+    }
+
+    /**
+     * @return the last commanded position
+     */
+    public double getTargetPosition() {
+        return target;
+    }
+
+    /**
+     * @return where the servo should be now, assuming the calibrated speed
+     */
+    public double getEstimatedPosition() {
+        return getEstimatedPosition(clock.nanoTime());
+    }
+
+    private double getEstimatedPosition(long now) {
+        if (now >= arrivalNanos || arrivalNanos == startNanos) {
+            return target;
+        }
+        final double fraction = (double) (now - startNanos) / (arrivalNanos - startNanos);
+        return from + (target - from) * fraction;
+    }
+
+    /**
+     * @return the clock time, in nanoseconds, the servo should reach its target
+     */
+    public long expectedArrival() {
+        return arrivalNanos;
+    }
+
+    /**
+     * @return seconds until the servo should reach its target, 0 once it has
+     */
+    public double secondsToArrival() {
+        return Math.max(0.0, (arrivalNanos - clock.nanoTime()) * 1e-9);
+    }
+
+    /**
+     * @return true once the servo has had time to reach the last commanded position
+     */
+    public boolean isAtTarget() {
+        return commanded && clock.nanoTime() >= arrivalNanos;
+    }
+
+    /**
+     * @return seconds this servo takes to travel between two positions
+     */
+    public double travelSeconds(double fromPosition, double toPosition) {
+        return Math.abs(toPosition - fromPosition) * rangeDegrees / degreesPerSecond;
+    }
+}
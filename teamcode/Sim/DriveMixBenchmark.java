@@ -0,0 +1,162 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Times the teleop drive mix: the old hypot/atan2/cos/sin version against
+ * {@link MecanumKinematics#powers}.
+ * <p>
+ * Both run over the same table of recorded-looking stick inputs, after a
+ * warm-up long enough for the JIT to compile them, and their results are summed
+ * into a sink so neither loop can be optimised away. The old mix is followed by
+ * the per-wheel clip the motors applied to it. Each is timed over several
+ * rounds and the fastest round is reported, which hides GC and scheduling
+ * noise. The largest difference between the two mixes' directions is printed
+ * as a check that they still agree.
+ * <p>
+ * The numbers are for this machine; the phone is several times slower, but the
+ * ratio carries over.
+ * <pre>
+ *     java ... org.firstinspires.ftc.teamcode.DriveMixBenchmark [iterations]
+ * </pre>
+ */
+public class DriveMixBenchmark {
+    public static final int INPUTS = 1024;
+    public static final int DEFAULT_ITERATIONS = 20000000;
+    public static final int ROUNDS = 5;
+
+    private final double[] x = new double[INPUTS];
+    private final double[] y = new double[INPUTS];
+    private final double[] turn = new double[INPUTS];
+    private final double[] wheels = new double[4];
+
+    public DriveMixBenchmark(long seed) {
+        final Random random = new Random(seed);
+        for (int i = 0; i < INPUTS; ++i) {
+            // Sticks spend much of their time at rest or pinned to an edge.
+            x[i] = stick(random);
+            y[i] = stick(random);
+            turn[i] = stick(random);
+        }
+    }
+
+    private static double stick(Random random) {
+        final double r = random.nextDouble();
+        if (r < 0.2) {
+            return 0.0;
+        } else if (r < 0.4) {
+            return random.nextBoolean() ? 1.0 : -1.0;
+        }
+        return random.nextDouble() * 2.0 - 1.0;
+    }
+
+    /**
+     * The mix the teleops used before MecanumKinematics, LF, LR, RF, RR order.
+     */
+    static void trigMix(double stickX, double stickY, double rightX, double[] out) {
+        final double lj = Math.hypot(-stickX, -stickY);
+        final double angle = Math.atan2(-stickY, stickX) - Math.PI / 4;
+        final double vOne = lj * Math.cos(angle) + rightX;
+        final double vTwo = lj * Math.sin(angle) - rightX;
+        final double vThree = lj * Math.sin(angle) + rightX;
+        final double vFour = lj * Math.cos(angle) - rightX;
+        out[MecanumKinematics.LF] = clip(vOne);
+        out[MecanumKinematics.RF] = clip(vTwo);
+        out[MecanumKinematics.LR] = clip(vThree);
+        out[MecanumKinematics.RR] = clip(vFour);
+    }
+
+    static void kinematicsMix(double stickX, double stickY, double rightX, double[] out) {
+        MecanumKinematics.powers(-stickY * MecanumKinematics.STICK_SCALE, stickX * MecanumKinematics.STICK_SCALE,
+                -rightX, out);
+    }
+
+    private static double clip(double power) {
+        return Math.max(-1.0, Math.min(1.0, power));
+    }
+
+    /**
+     * @return nanoseconds per mix for the fastest round
+     */
+    public double timeTrig(int iterations) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < ROUNDS; ++round) {
+            double sink = 0.0;
+            final long start = System.nanoTime();
+            for (int i = 0; i < iterations; ++i) {
+                final int k = i & (INPUTS - 1);
+                trigMix(x[k], y[k], turn[k], wheels);
+                sink += wheels[0] + wheels[3];
+            }
+            best = Math.min(best, (System.nanoTime() - start) / (double) iterations);
+            consume(sink);
+        }
+        return best;
+    }
+
+    /**
+     * @return nanoseconds per mix for the fastest round
+     */
+    public double timeKinematics(int iterations) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < ROUNDS; ++round) {
+            double sink = 0.0;
+            final long start = System.nanoTime();
+            for (int i = 0; i < iterations; ++i) {
+                final int k = i & (INPUTS - 1);
+                kinematicsMix(x[k], y[k], turn[k], wheels);
+                sink += wheels[0] + wheels[3];
+            }
+            best = Math.min(best, (System.nanoTime() - start) / (double) iterations);
+            consume(sink);
+        }
+        return best;
+    }
+
+    /**
+     * @return the largest difference between the two mixes' wheel directions,
+     * each normalised to its largest wheel, over inputs that do not clip
+     */
+    public double maxDifference() {
+        final double[] a = new double[4];
+        final double[] b = new double[4];
+        double worst = 0.0;
+        for (int k = 0; k < INPUTS; ++k) {
+            // Keep within the unit circle with no turn, where the old clip did not bite.
+            final double scale = Math.max(1.0, Math.hypot(x[k], y[k]));
+            trigMix(x[k] / scale, y[k] / scale, 0.0, a);
+            kinematicsMix(x[k] / scale, y[k] / scale, 0.0, b);
+            final double maxA = Math.max(Math.max(Math.abs(a[0]), Math.abs(a[1])), Math.max(Math.abs(a[2]), Math.abs(a[3])));
+            final double maxB = Math.max(Math.max(Math.abs(b[0]), Math.abs(b[1])), Math.max(Math.abs(b[2]), Math.abs(b[3])));
+            if (maxA < 1e-9 || maxB < 1e-9) {
+                continue;
+            }
+            for (int i = 0; i < 4; ++i) {
+                worst = Math.max(worst, Math.abs(a[i] / maxA - b[i] / maxB));
+            }
+        }
+        return worst;
+    }
+
+    private static volatile double blackhole;
+
+    private static void consume(double sink) {
+        blackhole = sink;
+    }
+
+    public static void main(String[] args) {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+        final DriveMixBenchmark bench = new DriveMixBenchmark(10998);
+        // Warm-up, so both loops are compiled before they are timed.
+        bench.timeTrig(iterations / 10);
+        bench.timeKinematics(iterations / 10);
+
+        final double trig = bench.timeTrig(iterations);
+        final double kinematics = bench.timeKinematics(iterations);
+        System.out.println(String.format(Locale.US, "%-18s %7.2f ns/op", "trig mix", trig));
+        System.out.println(String.format(Locale.US, "%-18s %7.2f ns/op", "MecanumKinematics", kinematics));
+        System.out.println(String.format(Locale.US, "%-18s %7.1fx", "speed-up", trig / kinematics));
+        System.out.println(String.format(Locale.US, "%-18s %7.1e", "max difference", bench.maxDifference()));
+    }
+}
@@ -0,0 +1,94 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Rigid-body step for a mecanum chassis driven by four {@link SimDcMotor}s.
+ * <p>
+ * Each step takes how far every wheel turned, runs it through
+ * {@link MecanumKinematics#forward}, moves the true pose and sets the simulated
+ * IMU's heading to match. Wheels do not slip, so the only differences between
+ * the true pose and what odometry reports come from encoder rounding and timing,
+ * which is what we want when judging the control code.
+ * <p>
+ * Which motors are mounted mirrored comes from each {@link SimDcMotor}'s
+ * mounting, set when the map is made: the OpMode must reverse those same motors
+ * for positive power to drive forward. Reversing the wrong side drives the
+ * robot backwards and turns it the wrong way here, as it would on the field;
+ * reversing neither or both sides spins it.
+ */
+public class MecanumSimulator implements SimHub.Physics {
+    private final SimDcMotor lf, lr, rf, rr;
+    private final SimImu imu;
+    private final MecanumKinematics kinematics;
+    private final double countsPerInch;
+
+    private final Pose pose = new Pose();
+    private final double[] wheels = new double[4];
+    private final double[] displacement = new double[3];
+    private double distance = 0.0;
+
+    /**
+     * Build a chassis over the lf, lr, rf, rr motors and imu of a map, and have its
+     * hub step it.
+     *
+     * @param map           Map made by {@link SimHardwareMap#driveBase} or with the same names
+     * @param trackWidth    Inches between the left and right wheels
+     * @param wheelBase     Inches between the front and rear wheels
+     * @param _countsPerInch Encoder counts per inch of wheel travel
+     */
+    public MecanumSimulator(SimHardwareMap map, double trackWidth, double wheelBase, double _countsPerInch) {
+        lf = map.getMotor("lf");
+        lr = map.getMotor("lr");
+        rf = map.getMotor("rf");
+        rr = map.getMotor("rr");
+        imu = map.getImu("imu");
+        kinematics = new MecanumKinematics(trackWidth, wheelBase);
+        countsPerInch = _countsPerInch;
+        map.getHub().addPhysics(this);
+    }
+
+    /**
+     * Put the robot somewhere on the field.
+     */
+    public void setPose(double x, double y, double heading) {
+        pose.set(x, y, heading);
+        if (imu != null) {
+            imu.setHeading(Pose.wrapAngle(heading), 0.0);
+        }
+    }
+
+    /**
+     * @return where the robot really is (the same instance every call)
+     */
+    public Pose getPose() {
+        return pose;
+    }
+
+    /**
+     * @return inches the chassis centre has travelled
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public void step(double dt) {
+        wheels[MecanumKinematics.LF] = lf.getWheelVelocity() * dt / countsPerInch;
+        wheels[MecanumKinematics.LR] = lr.getWheelVelocity() * dt / countsPerInch;
+        wheels[MecanumKinematics.RF] = rf.getWheelVelocity() * dt / countsPerInch;
+        wheels[MecanumKinematics.RR] = rr.getWheelVelocity() * dt / countsPerInch;
+        kinematics.forward(wheels, displacement);
+
+        final double forward = displacement[MecanumKinematics.FORWARD];
+        final double strafe = displacement[MecanumKinematics.STRAFE];
+        final double turn = displacement[MecanumKinematics.TURN];
+        final double mid = pose.heading + turn / 2.0;
+        pose.x += forward * Math.cos(mid) + strafe * Math.sin(mid);
+        pose.y += forward * Math.sin(mid) - strafe * Math.cos(mid);
+        pose.heading = Pose.wrapAngle(pose.heading + turn);
+        distance += Math.hypot(forward, strafe);
+
+        if (imu != null) {
+            imu.setHeading(pose.heading, turn / dt);
+        }
+    }
+}
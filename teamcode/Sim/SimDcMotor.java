@@ -0,0 +1,265 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+
+/**
+ * Fake {@link DcMotor} for running robot code off the robot.
+ * <p>
+ * Holds the state a real motor controller would (mode, power, target, encoder
+ * count) and charges one {@link SimHub} transaction for each call that would
+ * talk to the hub.
+ * <p>
+ * As simulated time passes the shaft speed follows the commanded power with a
+ * first-order lag and the encoder counts up. RUN_TO_POSITION drives towards the
+ * target at the set power, slowing over the last {@link #RUN_TO_POSITION_RAMP}
+ * counts and stopping inside {@link #BUSY_TOLERANCE}, roughly as the hub's own
+ * position loop does. {@link #setCurrentPosition(int)} still moves the encoder
+ * directly.
+ * <p>
+ * {@link #setMounting} says which way the motor sits on the robot: the
+ * direction the OpMode must set for positive power to drive its wheel forward.
+ * {@link #getWheelVelocity()} goes through the mounting and not through the
+ * OpMode's setting, so an OpMode that reverses the wrong side drives wrong.
+ */
+public class SimDcMotor implements DcMotor, SimHub.Physics, NanoClock.Source {
+    /** Counts from target at which RUN_TO_POSITION reports not busy. */
+    public static final int BUSY_TOLERANCE = 10;
+    /** Counts from target over which RUN_TO_POSITION slows down. */
+    public static final int RUN_TO_POSITION_RAMP = 200;
+    /** Free speed of a NeveRest 40 at the encoder, counts per second. */
+    public static final double DEFAULT_MAX_COUNTS_PER_SECOND = 2800.0;
+    /** Time constant of the speed response, seconds. */
+    public static final double DEFAULT_LAG_SECONDS = 0.08;
+
+    private final SimHub hub;
+    private final String name;
+
+    private MotorConfigurationType motorType = MotorConfigurationType.getUnspecifiedMotorType();
+    private Direction direction = Direction.FORWARD;
+    private Direction mounting = Direction.FORWARD;
+    private ZeroPowerBehavior zeroPowerBehavior = ZeroPowerBehavior.FLOAT;
+    private RunMode mode = RunMode.RUN_WITHOUT_ENCODER;
+    private double power = 0.0;
+    private int targetPosition = 0;
+    private int position = 0;
+
+    private double maxCountsPerSecond = DEFAULT_MAX_COUNTS_PER_SECOND;
+    private double lagSeconds = DEFAULT_LAG_SECONDS;
+    private double velocity = 0.0;          // counts per second, as seen through the direction
+    private double exactPosition = 0.0;
+
+    public SimDcMotor(SimHub _hub, String _name) {
+        hub = _hub;
+        name = _name;
+        hub.addPhysics(this);
+    }
+
+    /**
+     * Move the encoder, as seen through the motor's direction.
+     */
+    public void setCurrentPosition(int _position) {
+        position = _position;
+        exactPosition = _position;
+    }
+
+    /**
+     * @param _maxCountsPerSecond Encoder speed at full power
+     * @param _lagSeconds         Time constant for the speed to follow the power
+     */
+    public void setResponse(double _maxCountsPerSecond, double _lagSeconds) {
+        maxCountsPerSecond = _maxCountsPerSecond;
+        lagSeconds = _lagSeconds;
+    }
+
+    /**
+     * @return encoder counts per second, as seen through the motor's direction
+     */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * @return counts per second the shaft actually turns, ignoring the direction setting
+     */
+    public double getShaftVelocity() {
+        return direction == Direction.REVERSE ? -velocity : velocity;
+    }
+
+    /**
+     * @param _mounting REVERSE if the motor is mirrored, so that the OpMode must
+     *                  reverse it for positive power to roll its wheel forward
+     */
+    public void setMounting(Direction _mounting) {
+        mounting = _mounting;
+    }
+
+    public Direction getMounting() {
+        return mounting;
+    }
+
+    /**
+     * @return counts per second the wheel rolls forward, from the shaft and the mounting
+     */
+    public double getWheelVelocity() {
+        return mounting == Direction.REVERSE ? -getShaftVelocity() : getShaftVelocity();
+    }
+
+    @Override
+    public NanoClock getClock() {
+        return hub;
+    }
+
+    @Override
+    public void step(double dt) {
+        double command = 0.0;
+        if (mode == RunMode.RUN_TO_POSITION) {
+            final double error = targetPosition - exactPosition;
+            if (Math.abs(error) > BUSY_TOLERANCE) {
+                command = Math.signum(error) * Math.abs(power) * Math.min(1.0, Math.abs(error) / RUN_TO_POSITION_RAMP);
+            }
+        } else if (mode != RunMode.STOP_AND_RESET_ENCODER) {
+            command = power;
+        }
+        velocity += (command * maxCountsPerSecond - velocity) * Math.min(1.0, dt / lagSeconds);
+        exactPosition += velocity * dt;
+        position = (int) Math.round(exactPosition);
+    }
+
+    @Override
+    public MotorConfigurationType getMotorType() {
+        return motorType;
+    }
+
+    @Override
+    public void setMotorType(MotorConfigurationType _motorType) {
+        motorType = _motorType;
+    }
+
+    @Override
+    public DcMotorController getController() {
+        return null;
+    }
+
+    @Override
+    public int getPortNumber() {
+        return 0;
+    }
+
+    @Override
+    public void setZeroPowerBehavior(ZeroPowerBehavior _zeroPowerBehavior) {
+        hub.transaction();
+        zeroPowerBehavior = _zeroPowerBehavior;
+    }
+
+    @Override
+    public ZeroPowerBehavior getZeroPowerBehavior() {
+        return zeroPowerBehavior;
+    }
+
+    @Override
+    @Deprecated
+    public void setPowerFloat() {
+        setZeroPowerBehavior(ZeroPowerBehavior.FLOAT);
+        setPower(0.0);
+    }
+
+    @Override
+    public boolean getPowerFloat() {
+        return zeroPowerBehavior == ZeroPowerBehavior.FLOAT && power == 0.0;
+    }
+
+    @Override
+    public void setTargetPosition(int position) {
+        hub.transaction();
+        targetPosition = position;
+    }
+
+    @Override
+    public int getTargetPosition() {
+        hub.transaction();
+        return targetPosition;
+    }
+
+    @Override
+    public boolean isBusy() {
+        hub.transaction();
+        return mode == RunMode.RUN_TO_POSITION && power != 0.0
+                && Math.abs(targetPosition - position) > BUSY_TOLERANCE;
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        hub.transaction();
+        return position;
+    }
+
+    @Override
+    public void setMode(RunMode _mode) {
+        hub.transaction();
+        if (_mode == RunMode.STOP_AND_RESET_ENCODER) {
+            position = 0;
+            exactPosition = 0.0;
+            targetPosition = 0;
+            power = 0.0;
+        }
+        mode = _mode;
+    }
+
+    @Override
+    public RunMode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void setDirection(Direction _direction) {
+        direction = _direction;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public void setPower(double _power) {
+        hub.transaction();
+        power = Math.max(-1.0, Math.min(1.0, _power));
+    }
+
+    @Override
+    public double getPower() {
+        return power;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Motor";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "sim:" + name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        direction = Direction.FORWARD;
+    }
+
+    @Override
+    public void close() {
+        power = 0.0;
+    }
+}
@@ -0,0 +1,51 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+/**
+ * Gamepad a test script can drive.
+ * <p>
+ * The SDK's Gamepad is a plain bag of public fields, so a simulated driver just
+ * sets them; these helpers set several at once and return to neutral.
+ * Stick y is negative when pushed forward, as on a real controller.
+ */
+public class SimGamepad extends Gamepad {
+
+    public SimGamepad setLeftStick(double x, double y) {
+        left_stick_x = (float) x;
+        left_stick_y = (float) y;
+        return this;
+    }
+
+    public SimGamepad setRightStick(double x, double y) {
+        right_stick_x = (float) x;
+        right_stick_y = (float) y;
+        return this;
+    }
+
+    public SimGamepad setTriggers(double left, double right) {
+        left_trigger = (float) left;
+        right_trigger = (float) right;
+        return this;
+    }
+
+    /**
+     * Let go of every stick, trigger and button.
+     */
+    public SimGamepad release() {
+        setLeftStick(0.0, 0.0);
+        setRightStick(0.0, 0.0);
+        setTriggers(0.0, 0.0);
+        dpad_up = false;
+        dpad_down = false;
+        dpad_left = false;
+        dpad_right = false;
+        a = false;
+        b = false;
+        x = false;
+        y = false;
+        left_bumper = false;
+        right_bumper = false;
+        return this;
+    }
+}
@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+/**
+ * {@link HardwareMap} populated with simulated devices that share one {@link SimHub}.
+ * <p>
+ * Hand it to {@link Robot} or any other code that looks devices up by name, then
+ * read {@link SimHub#getTransactions()} to see how many hub reads and writes a
+ * control cycle costs.
+ */
+public class SimHardwareMap extends HardwareMap {
+    private final SimHub hub;
+
+    public SimHardwareMap() {
+        this(new SimHub());
+    }
+
+    public SimHardwareMap(SimHub _hub) {
+        super(null);
+        hub = _hub;
+    }
+
+    /**
+     * @return a map with the four drive motors (lf, lr, rf, rr) and the imu
+     *         that {@link Robot} expects, rf and rr mounted mirrored as Robot reverses them
+     */
+    public static SimHardwareMap driveBase() {
+        return driveBase(false);
+    }
+
+    /**
+     * @param leftMirrored True for a drive base whose lf and lr are mirrored, as
+     *                     the autos that reverse lf and lr expect; false for rf and rr
+     * @return a map with the four drive motors (lf, lr, rf, rr) and the imu
+     */
+    public static SimHardwareMap driveBase(boolean leftMirrored) {
+        final DcMotorSimple.Direction left = leftMirrored ? DcMotorSimple.Direction.REVERSE : DcMotorSimple.Direction.FORWARD;
+        final DcMotorSimple.Direction right = leftMirrored ? DcMotorSimple.Direction.FORWARD : DcMotorSimple.Direction.REVERSE;
+        SimHardwareMap map = new SimHardwareMap();
+        map.addMotor("lf").setMounting(left);
+        map.addMotor("lr").setMounting(left);
+        map.addMotor("rf").setMounting(right);
+        map.addMotor("rr").setMounting(right);
+        map.addImu("imu");
+        return map;
+    }
+
+    public SimDcMotor addMotor(String name) {
+        SimDcMotor motor = new SimDcMotor(hub, name);
+        dcMotor.put(name, motor);
+        put(name, motor);
+        return motor;
+    }
+
+    public SimServo addServo(String name) {
+        SimServo servo = new SimServo(hub, name);
+        this.servo.put(name, servo);
+        put(name, servo);
+        return servo;
+    }
+
+    public SimImu addImu(String name) {
+        SimImu imu = new SimImu(hub, name);
+        put(name, imu);
+        return imu;
+    }
+
+    public SimDcMotor getMotor(String name) {
+        return (SimDcMotor) dcMotor.get(name);
+    }
+
+    public SimServo getServo(String name) {
+        return (SimServo) servo.get(name);
+    }
+
+    public SimImu getImu(String name) {
+        return get(SimImu.class, name);
+    }
+
+    public SimHub getHub() {
+        return hub;
+    }
+}
@@ -0,0 +1,104 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for an expansion hub that counts the transactions made against the
+ * simulated devices attached to it, and keeps the simulation's time.
+ * <p>
+ * Every call that would cross the hub's serial link on a real robot
+ * (encoder reads, busy checks, power/mode writes, IMU reads) adds one. Each
+ * transaction also costs a fixed slice of simulated time, which is what a
+ * control cycle mostly costs on the robot, and the registered physics are
+ * stepped to catch up. Code that times itself through this hub's
+ * {@link NanoClock} therefore sees realistic cycle times while running as fast as
+ * the host can go.
+ * <p>
+ * Transactions come from the OpMode thread and from background readers such as
+ * {@link AsyncImuReader} at once. The clock and the count are atomic, so reading
+ * them never waits, and the physics are stepped by one thread at a time.
+ */
+public class SimHub implements NanoClock {
+    /** Simulated cost of one hub transaction. */
+    public static final long DEFAULT_NANOS_PER_TRANSACTION = 2000000L;
+    /** Physics step. */
+    public static final long STEP_NANOS = 1000000L;
+
+    /** Something that moves with simulated time. */
+    public interface Physics {
+        /**
+         * @param dt Seconds to advance
+         */
+        void step(double dt);
+    }
+
+    private final ArrayList<Physics> physics = new ArrayList<Physics>();
+    private final AtomicLong transactions = new AtomicLong();
+    private volatile long nanosPerTransaction = DEFAULT_NANOS_PER_TRANSACTION;
+    private final AtomicLong nanos = new AtomicLong();
+    private long steppedNanos = 0;
+
+    void transaction() {
+        transactions.incrementAndGet();
+        advanceNanos(nanosPerTransaction);
+    }
+
+    /**
+     * @return transactions since construction or the last {@link #resetTransactions()}
+     */
+    public long getTransactions() {
+        return transactions.get();
+    }
+
+    public void resetTransactions() {
+        transactions.set(0);
+    }
+
+    /**
+     * Set how much simulated time a transaction costs; 0 freezes time except
+     * through {@link #advance(double)}.
+     */
+    public void setNanosPerTransaction(long _nanosPerTransaction) {
+        nanosPerTransaction = _nanosPerTransaction;
+    }
+
+    /**
+     * Have something stepped as simulated time passes, in the order registered.
+     */
+    public synchronized void addPhysics(Physics _physics) {
+        physics.add(_physics);
+    }
+
+    /**
+     * Let simulated time pass without any hardware calls, e.g. for a sleep().
+     */
+    public void advance(double seconds) {
+        advanceNanos((long) (seconds * 1e9));
+    }
+
+    /**
+     * @return simulated time since the hub was made
+     */
+    @Override
+    public long nanoTime() {
+        return nanos.get();
+    }
+
+    /**
+     * @return simulated seconds since the hub was made
+     */
+    public double seconds() {
+        return nanoTime() * 1e-9;
+    }
+
+    private synchronized void advanceNanos(long dt) {
+        final long now = nanos.addAndGet(dt);
+        while (now - steppedNanos >= STEP_NANOS) {
+            steppedNanos += STEP_NANOS;
+            for (int i = 0; i < physics.size(); ++i) {
+                physics.get(i).step(STEP_NANOS * 1e-9);
+            }
+        }
+    }
+}
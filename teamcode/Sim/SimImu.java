@@ -0,0 +1,241 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.robotcore.hardware.HardwareDevice;
+
+import org.firstinspires.ftc.robotcore.external.navigation.Acceleration;
+import org.firstinspires.ftc.robotcore.external.navigation.AngularVelocity;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.MagneticFlux;
+import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+import org.firstinspires.ftc.robotcore.external.navigation.Position;
+import org.firstinspires.ftc.robotcore.external.navigation.Quaternion;
+import org.firstinspires.ftc.robotcore.external.navigation.Temperature;
+import org.firstinspires.ftc.robotcore.external.navigation.Velocity;
+
+/**
+ * Fake BNO055 that reports a settable yaw and a level gravity vector.
+ * <p>
+ * Only rotation about the vertical axis is modelled; whatever axes order is
+ * asked for, the heading comes back as the first angle. Orientation, angular
+ * rate and gravity reads each charge one {@link SimHub} transaction.
+ * <p>
+ * Inside this class the simple name AngleUnit is BNO055IMU's own enum, so the
+ * navigation AngleUnit is spelled out in full.
+ */
+public class SimImu implements BNO055IMU, HardwareDevice, NanoClock.Source {
+    private static final double GRAVITY = 9.80665;
+
+    private final SimHub hub;
+    private final String name;
+
+    private Parameters parameters = new Parameters();
+    private double heading = 0.0;       // radians, CCW positive
+    private double headingRate = 0.0;   // radians per second
+
+    public SimImu(SimHub _hub, String _name) {
+        hub = _hub;
+        name = _name;
+    }
+
+    /**
+     * @param _heading yaw in radians, CCW positive
+     * @param _headingRate yaw rate in radians per second
+     */
+    public void setHeading(double _heading, double _headingRate) {
+        heading = _heading;
+        headingRate = _headingRate;
+    }
+
+    public double getHeading() {
+        return heading;
+    }
+
+    @Override
+    public NanoClock getClock() {
+        return hub;
+    }
+
+    @Override
+    public boolean initialize(Parameters _parameters) {
+        hub.transaction();
+        parameters = _parameters;
+        return true;
+    }
+
+    @Override
+    public Parameters getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public Orientation getAngularOrientation() {
+        return getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX,
+                parameters.angleUnit == AngleUnit.DEGREES
+                        ? org.firstinspires.ftc.robotcore.external.navigation.AngleUnit.DEGREES
+                        : org.firstinspires.ftc.robotcore.external.navigation.AngleUnit.RADIANS);
+    }
+
+    @Override
+    public Orientation getAngularOrientation(AxesReference reference, AxesOrder order,
+                                             org.firstinspires.ftc.robotcore.external.navigation.AngleUnit angleUnit) {
+        hub.transaction();
+        return new Orientation(reference, order, angleUnit,
+                (float) angleUnit.fromRadians(heading), 0.0f, 0.0f, hub.nanoTime());
+    }
+
+    @Override
+    public Acceleration getOverallAcceleration() {
+        return getGravity();
+    }
+
+    @Override
+    public AngularVelocity getAngularVelocity() {
+        hub.transaction();
+        return new AngularVelocity(org.firstinspires.ftc.robotcore.external.navigation.AngleUnit.RADIANS, 0.0f, 0.0f, (float) headingRate, hub.nanoTime());
+    }
+
+    @Override
+    public Acceleration getLinearAcceleration() {
+        hub.transaction();
+        return new Acceleration(DistanceUnit.METER, 0.0, 0.0, 0.0, hub.nanoTime());
+    }
+
+    @Override
+    public Acceleration getGravity() {
+        hub.transaction();
+        return new Acceleration(DistanceUnit.METER, 0.0, 0.0, GRAVITY, hub.nanoTime());
+    }
+
+    @Override
+    public Temperature getTemperature() {
+        return new Temperature();
+    }
+
+    @Override
+    public MagneticFlux getMagneticFieldStrength() {
+        return new MagneticFlux();
+    }
+
+    @Override
+    public Quaternion getQuaternionOrientation() {
+        hub.transaction();
+        return new Quaternion((float) Math.cos(heading / 2.0), 0.0f, 0.0f, (float) Math.sin(heading / 2.0),
+                hub.nanoTime());
+    }
+
+    @Override
+    public Position getPosition() {
+        return new Position();
+    }
+
+    @Override
+    public Velocity getVelocity() {
+        return new Velocity();
+    }
+
+    @Override
+    public Acceleration getAcceleration() {
+        return new Acceleration();
+    }
+
+    @Override
+    public void startAccelerationIntegration(Position initialPosition, Velocity initialVelocity, int msPollInterval) {
+    }
+
+    @Override
+    public void stopAccelerationIntegration() {
+    }
+
+    @Override
+    public SystemStatus getSystemStatus() {
+        return SystemStatus.RUNNING_FUSION;
+    }
+
+    @Override
+    public SystemError getSystemError() {
+        return SystemError.NO_ERROR;
+    }
+
+    @Override
+    public CalibrationStatus getCalibrationStatus() {
+        return new CalibrationStatus(0xFF);
+    }
+
+    @Override
+    public boolean isSystemCalibrated() {
+        return true;
+    }
+
+    @Override
+    public boolean isGyroCalibrated() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccelerometerCalibrated() {
+        return true;
+    }
+
+    @Override
+    public boolean isMagnetometerCalibrated() {
+        return true;
+    }
+
+    @Override
+    public CalibrationData readCalibrationData() {
+        return new CalibrationData();
+    }
+
+    @Override
+    public void writeCalibrationData(CalibrationData data) {
+    }
+
+    @Override
+    public byte read8(Register register) {
+        return 0;
+    }
+
+    @Override
+    public byte[] read(Register register, int cb) {
+        return new byte[cb];
+    }
+
+    @Override
+    public void write8(Register register, int bVal) {
+    }
+
+    @Override
+    public void write(Register register, byte[] data) {
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated BNO055";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "sim:" + name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
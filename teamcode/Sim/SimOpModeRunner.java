@@ -0,0 +1,132 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+
+/**
+ * Runs an OpMode against a {@link SimHardwareMap} on simulated time.
+ * <p>
+ * The runner plays the part of the robot controller: it hands the OpMode the
+ * map and two {@link SimGamepad}s, then calls init(), init_loop(), start(),
+ * loop() and stop() in order. Each call costs whatever hub transactions the
+ * OpMode makes plus a small fixed overhead for the event loop, so a run goes
+ * as fast as the host allows while cycle times still reflect the hardware.
+ * <p>
+ * A LinearOpMode runs on its own thread inside the SDK, so the runner only
+ * watches it: simulated time moves with its hardware calls, and anything it
+ * times with sleep() or ElapsedTime stays on the wall clock. Moves made through
+ * {@link MotionEngine} use the hub's clock and run at full speed.
+ */
+public class SimOpModeRunner {
+    /** Event loop and driver station cost of one OpMode cycle. */
+    public static final double CYCLE_OVERHEAD_SECONDS = 0.0005;
+
+    private final OpMode opMode;
+    private final SimHub hub;
+    private final boolean linear;
+    private final SimGamepad gamepad1 = new SimGamepad();
+    private final SimGamepad gamepad2 = new SimGamepad();
+
+    private long cycles = 0;
+    private long cycleNanos = 0;
+    private long maxCycleNanos = 0;
+    private long wallNanos = 0;
+
+    public SimOpModeRunner(OpMode _opMode, SimHardwareMap map) {
+        opMode = _opMode;
+        hub = map.getHub();
+        linear = opMode instanceof LinearOpMode;
+        opMode.hardwareMap = map;
+        opMode.gamepad1 = gamepad1;
+        opMode.gamepad2 = gamepad2;
+    }
+
+    public SimGamepad getGamepad1() {
+        return gamepad1;
+    }
+
+    public SimGamepad getGamepad2() {
+        return gamepad2;
+    }
+
+    /**
+     * Press INIT and leave the OpMode in init for a number of cycles.
+     */
+    public void init(int initLoops) {
+        opMode.init();
+        for (int i = 0; i < initLoops; ++i) {
+            opMode.init_loop();
+            hub.advance(CYCLE_OVERHEAD_SECONDS);
+        }
+    }
+
+    /**
+     * Press START.
+     */
+    public void start() {
+        opMode.start();
+    }
+
+    /**
+     * Run the OpMode's loop for a stretch of simulated time.
+     * <p>
+     * A LinearOpMode is given at most the same stretch of wall time, since
+     * its sleeps cannot be hurried.
+     */
+    public void runFor(double seconds) {
+        final long wallStart = System.nanoTime();
+        final long end = hub.nanoTime() + (long) (seconds * 1e9);
+        while (hub.nanoTime() < end) {
+            final long before = hub.nanoTime();
+            opMode.loop();
+            if (linear) {
+                if (System.nanoTime() - wallStart > (long) (seconds * 1e9)) {
+                    break;
+                }
+                Thread.yield();
+                continue;
+            }
+            hub.advance(CYCLE_OVERHEAD_SECONDS);
+            final long cycle = hub.nanoTime() - before;
+            ++cycles;
+            cycleNanos += cycle;
+            maxCycleNanos = Math.max(maxCycleNanos, cycle);
+        }
+        wallNanos += System.nanoTime() - wallStart;
+    }
+
+    /**
+     * Press STOP.
+     */
+    public void stop() {
+        opMode.stop();
+    }
+
+    /**
+     * @return loop() calls timed so far; always 0 for a LinearOpMode
+     */
+    public long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return mean simulated loop() time in milliseconds
+     */
+    public double getMeanCycleMs() {
+        return cycles == 0 ? 0.0 : cycleNanos * 1e-6 / cycles;
+    }
+
+    /**
+     * @return longest simulated loop() time in milliseconds
+     */
+    public double getMaxCycleMs() {
+        return maxCycleNanos * 1e-6;
+    }
+
+    /**
+     * @return how many times faster than real time runFor() has gone
+     */
+    public double getSpeedup() {
+        return wallNanos == 0 ? 0.0 : hub.nanoTime() / (double) wallNanos;
+    }
+}
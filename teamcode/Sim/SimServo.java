@@ -0,0 +1,153 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Servo;
+import com.qualcomm.robotcore.hardware.ServoController;
+
+/**
+ * Fake {@link Servo} that takes time to get where it is told.
+ * <p>
+ * getPosition() returns the last command, as on the robot. The horn itself moves
+ * towards the command at a fixed rate as simulated time passes; read it with
+ * {@link #getActualPosition()}. Direction and scaleRange() behave as in the SDK.
+ */
+public class SimServo implements Servo, SimHub.Physics {
+    /** Full travel (0 to 1) in about half a second, like a standard servo unloaded. */
+    public static final double DEFAULT_POSITIONS_PER_SECOND = 2.0;
+
+    private final SimHub hub;
+    private final String name;
+
+    private Direction direction = Direction.FORWARD;
+    private double minPosition = 0.0;
+    private double maxPosition = 1.0;
+    private double positionsPerSecond = DEFAULT_POSITIONS_PER_SECOND;
+    private double commanded = 0.0;     // scaled and direction-adjusted, as sent to the controller
+    private double actual = 0.0;
+    private boolean enabled = false;    // a servo does not move until first commanded
+
+    public SimServo(SimHub _hub, String _name) {
+        hub = _hub;
+        name = _name;
+        hub.addPhysics(this);
+    }
+
+    /**
+     * @param _positionsPerSecond Servo travel per second, 1.0 being the full range
+     */
+    public void setSpeed(double _positionsPerSecond) {
+        positionsPerSecond = _positionsPerSecond;
+    }
+
+    /**
+     * @return where the horn really is, in the same units as getPosition()
+     */
+    public double getActualPosition() {
+        return unscale(actual);
+    }
+
+    /**
+     * @return true once the horn has reached the last command
+     */
+    public boolean isAtTarget() {
+        return actual == commanded;
+    }
+
+    @Override
+    public void step(double dt) {
+        if (!enabled) {
+            return;
+        }
+        final double travel = positionsPerSecond * dt;
+        if (Math.abs(commanded - actual) <= travel) {
+            actual = commanded;
+        } else {
+            actual += Math.signum(commanded - actual) * travel;
+        }
+    }
+
+    @Override
+    public ServoController getController() {
+        return null;
+    }
+
+    @Override
+    public int getPortNumber() {
+        return 0;
+    }
+
+    @Override
+    public void setDirection(Direction _direction) {
+        direction = _direction;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public void setPosition(double position) {
+        hub.transaction();
+        position = Math.max(0.0, Math.min(1.0, position));
+        if (direction == Direction.REVERSE) {
+            position = 1.0 - position;
+        }
+        commanded = minPosition + position * (maxPosition - minPosition);
+        if (!enabled) {
+            // Where a freshly powered servo happens to be is unknown; start it there.
+            actual = commanded;
+            enabled = true;
+        }
+    }
+
+    @Override
+    public double getPosition() {
+        return unscale(commanded);
+    }
+
+    @Override
+    public void scaleRange(double min, double max) {
+        if (min < 0.0 || max > 1.0 || min >= max) {
+            throw new IllegalArgumentException("scaleRange(" + min + ", " + max + ")");
+        }
+        minPosition = min;
+        maxPosition = max;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Servo";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "sim:" + name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        direction = Direction.FORWARD;
+        minPosition = 0.0;
+        maxPosition = 1.0;
+    }
+
+    @Override
+    public void close() {
+        enabled = false;
+    }
+
+    private double unscale(double raw) {
+        final double position = (raw - minPosition) / (maxPosition - minPosition);
+        return direction == Direction.REVERSE ? 1.0 - position : position;
+    }
+}
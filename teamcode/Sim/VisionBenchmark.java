@@ -0,0 +1,281 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Runs a {@link SampleDetector} over recorded camera frames and scores the
+ * sampling decision the autos would have made from them.
+ * <p>
+ * A dataset is a directory of runs, one directory per run, each holding the
+ * frames of one sampling attempt as PPM files (played in name order) and a
+ * {@value #RUN_FILE} with the truth:
+ * <pre>
+ *     gold=CENTER
+ *     fps=30
+ * </pre>
+ * Each run is played as the robot sees it. Frames arrive at the recorded rate;
+ * while the detector is busy with one, those that arrive are dropped, as the
+ * camera only keeps the latest. Every reading goes into a {@link SamplingVoter}
+ * and the run ends the way FlowyCrater's sampling ends: decided at
+ * {@link SamplingVoter#DEFAULT_THRESHOLD}, or after {@link #SAMPLE_SECONDS}
+ * with the leader if it has reached {@link #SAMPLE_FALLBACK}, or UNKNOWN.
+ * <p>
+ * The report gives accuracy, time to decision and the time the detector spent
+ * per frame. That time is measured on this machine, on the benchmark's only
+ * thread, so it compares detectors with each other; the phone is several
+ * times slower. Name several detectors to compare them over the same runs; with
+ * none, {@link MineralBlobDetector} runs.
+ * <pre>
+ *     java ... org.firstinspires.ftc.teamcode.VisionBenchmark dataset/ MineralBlobDetector DogeCvSampleDetector
+ * </pre>
+ */
+public class VisionBenchmark {
+    public static final String RUN_FILE = "run.properties";
+    public static final double DEFAULT_FPS = 30.0;
+    /** Sampling time the autos allow after START. */
+    public static final double SAMPLE_SECONDS = 3.0;
+    /** Probability the autos accept once the time is up. */
+    public static final double SAMPLE_FALLBACK = 0.6;
+
+    private final SampleDetector detector;
+    private final StepClock clock = new StepClock();
+    private final SamplingVoter voter;
+    private double sampleSeconds = SAMPLE_SECONDS;
+    private long[] frameNanos = new long[256];
+    private int frameCount = 0;
+
+    /**
+     * @param _detector The detector under test
+     */
+    public VisionBenchmark(SampleDetector _detector) {
+        detector = _detector;
+        voter = new SamplingVoter("Gold Mineral", clock);
+    }
+
+    /**
+     * @param seconds Sampling time before the fallback decision
+     */
+    public void setSampleSeconds(double seconds) {
+        sampleSeconds = seconds;
+    }
+
+    /**
+     * How one run went.
+     */
+    public static class Result {
+        public String name;
+        public TrajectoryCache.Gold truth;
+        /** What the auto would have driven, UNKNOWN if it fell back to its safe plan. */
+        public TrajectoryCache.Gold decision;
+        /** True if the decision reached the full threshold rather than the fallback. */
+        public boolean confident;
+        /** Seconds from the first frame to the decision, or to the end of sampling. */
+        public double seconds;
+        public int framesProcessed;
+        public int framesDropped;
+
+        public boolean isCorrect() {
+            return decision == truth;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-24s %-7s %-7s %s %5.2fs %3d frames %3d dropped",
+                                 name, truth, decision,
+                                 isCorrect() ? (confident ? "ok  " : "ok? ") : "MISS",
+                                 seconds, framesProcessed, framesDropped);
+        }
+    }
+
+    /**
+     * Run every run in a dataset, or the dataset itself if it is a single run.
+     */
+    public List<Result> runAll(File dataset) throws IOException {
+        final List<Result> results = new ArrayList<Result>();
+        if (new File(dataset, RUN_FILE).isFile()) {
+            results.add(run(dataset));
+            return results;
+        }
+        final File[] runs = dataset.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isDirectory() && new File(f, RUN_FILE).isFile();
+            }
+        });
+        if (runs == null || runs.length == 0) {
+            throw new IOException("No runs in " + dataset);
+        }
+        Arrays.sort(runs);
+        for (File run : runs) {
+            results.add(run(run));
+        }
+        return results;
+    }
+
+    /**
+     * Play one run through the detector and the voter.
+     */
+    public Result run(File dir) throws IOException {
+        final Properties info = new Properties();
+        final InputStream in = new FileInputStream(new File(dir, RUN_FILE));
+        try {
+            info.load(in);
+        } finally {
+            in.close();
+        }
+        final Result result = new Result();
+        result.name = dir.getName();
+        try {
+            result.truth = TrajectoryCache.Gold.valueOf(info.getProperty("gold", "").trim().toUpperCase(Locale.US));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(dir + ": gold must be LEFT, CENTER or RIGHT");
+        }
+        final double fps = Double.parseDouble(info.getProperty("fps", Double.toString(DEFAULT_FPS)));
+        final File[] frames = dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isFile() && f.getName().toLowerCase(Locale.US).endsWith(".ppm");
+            }
+        });
+        if (frames == null || frames.length == 0) {
+            throw new IOException("No frames in " + dir);
+        }
+        Arrays.sort(frames);
+
+        detector.reset();
+        clock.set(0);
+        voter.reset();
+        final long periodNanos = (long) (1e9 / fps);
+        final long limitNanos = (long) (sampleSeconds * 1e9);
+        long busyUntil = 0;
+        TrajectoryCache.Gold decision = TrajectoryCache.Gold.UNKNOWN;
+        for (int i = 0; i < frames.length; ++i) {
+            final long arrival = i * periodNanos;
+            if (arrival >= limitNanos) {
+                break;
+            }
+            if (arrival < busyUntil) {
+                ++result.framesDropped;
+                continue;
+            }
+            final RgbFrame frame = RgbFrame.readPpm(frames[i]);
+            final long start = System.nanoTime();
+            final TrajectoryCache.Gold vote = detector.detect(frame);
+            final double weight = detector.getWeight();
+            final long elapsed = System.nanoTime() - start;
+            addFrameTime(elapsed);
+            ++result.framesProcessed;
+
+            busyUntil = arrival + elapsed;
+            clock.set(busyUntil);
+            voter.addVote(vote, weight);
+            decision = voter.getDecision();
+            if (decision != TrajectoryCache.Gold.UNKNOWN) {
+                break;
+            }
+        }
+        result.confident = decision != TrajectoryCache.Gold.UNKNOWN;
+        if (result.confident) {
+            result.seconds = busyUntil * 1e-9;
+        } else {
+            decision = voter.getDecision(SAMPLE_FALLBACK);
+            result.seconds = Math.min(sampleSeconds, frames.length * periodNanos * 1e-9);
+        }
+        result.decision = decision;
+        return result;
+    }
+
+    private void addFrameTime(long nanos) {
+        if (frameCount == frameNanos.length) {
+            frameNanos = Arrays.copyOf(frameNanos, 2 * frameNanos.length);
+        }
+        frameNanos[frameCount++] = nanos;
+    }
+
+    /**
+     * @return one line per run and a summary
+     */
+    public String report(List<Result> results) {
+        final StringBuilder out = new StringBuilder();
+        out.append(detector.getName()).append('\n');
+        int correct = 0;
+        int confident = 0;
+        int unknown = 0;
+        double totalSeconds = 0.0;
+        double maxSeconds = 0.0;
+        for (Result r : results) {
+            out.append(r).append('\n');
+            correct += r.isCorrect() ? 1 : 0;
+            confident += r.confident ? 1 : 0;
+            unknown += r.decision == TrajectoryCache.Gold.UNKNOWN ? 1 : 0;
+            totalSeconds += r.seconds;
+            maxSeconds = Math.max(maxSeconds, r.seconds);
+        }
+        final int runs = results.size();
+        out.append(String.format(Locale.US, "Accuracy %d/%d (%.0f%%), %d at full confidence, %d UNKNOWN%n",
+                                 correct, runs, 100.0 * correct / runs, confident, unknown));
+        out.append(String.format(Locale.US, "Time to decision %.2fs mean, %.2fs max%n",
+                                 totalSeconds / runs, maxSeconds));
+        if (frameCount > 0) {
+            final long[] sorted = Arrays.copyOf(frameNanos, frameCount);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long n : sorted) {
+                total += n;
+            }
+            out.append(String.format(Locale.US, "Frame time %.2fms mean, %.2fms p95, %.2fms max over %d frames%n",
+                                     total * 1e-6 / frameCount,
+                                     sorted[(int) (0.95 * (frameCount - 1))] * 1e-6,
+                                     sorted[frameCount - 1] * 1e-6, frameCount));
+        }
+        return out.toString();
+    }
+
+    /**
+     * @param args Dataset directory, then class names of {@link SampleDetector}s with
+     *             no-argument constructors, simple names for those in this package
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: VisionBenchmark <dataset dir> [detector class...]");
+            System.exit(2);
+        }
+        final File dataset = new File(args[0]);
+        final String[] names = args.length > 1
+                ? Arrays.copyOfRange(args, 1, args.length)
+                : new String[] {MineralBlobDetector.class.getName()};
+        for (String name : names) {
+            if (name.indexOf('.') < 0) {
+                name = VisionBenchmark.class.getPackage().getName() + "." + name;
+            }
+            final SampleDetector detector = (SampleDetector) Class.forName(name).getConstructor().newInstance();
+            final VisionBenchmark benchmark = new VisionBenchmark(detector);
+            System.out.println(benchmark.report(benchmark.runAll(dataset)));
+        }
+    }
+
+    /**
+     * Time that stands still until the benchmark moves it.
+     */
+    private static class StepClock implements NanoClock {
+        private long now = 0;
+
+        void set(long nanos) {
+            now = nanos;
+        }
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+}
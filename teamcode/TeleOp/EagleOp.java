@@ -14,6 +14,9 @@ public class EagleOp extends LinearOpMode{
 
     private ElapsedTime runtime = new ElapsedTime();
 
+    // Scratch for the drive mix, reused every loop
+    private final double[] wheels = new double[4];
+
     private DcMotor lf = null;
     private DcMotor lr = null;
     private DcMotor rf = null;
@@ -70,13 +73,13 @@ public class EagleOp extends LinearOpMode{
         //boolean rightBumper = gamepad1.right_bumper;
 
         //New Drive Program
-        double LJ = Math.hypot(gamepad1.left_stick_x, gamepad1.left_stick_y);
-        double rightX = -gamepad1.right_stick_x;
-        double angle = Math.atan2(gamepad1.left_stick_y, -gamepad1.left_stick_x) - Math.PI/4;
-        final double vOne = LJ * Math.cos(angle)+rightX;
-        final double vTwo = LJ * Math.sin(angle)-rightX;
-        final double vThree = LJ * Math.sin(angle)+rightX;
-        final double vFour = LJ * Math.cos(angle)-rightX;
+        MecanumKinematics.powers(gamepad1.left_stick_y * MecanumKinematics.STICK_SCALE,
+                                  -gamepad1.left_stick_x * MecanumKinematics.STICK_SCALE,
+                                  gamepad1.right_stick_x, wheels);
+        final double vOne = wheels[MecanumKinematics.LF];
+        final double vTwo = wheels[MecanumKinematics.RF];
+        final double vThree = wheels[MecanumKinematics.LR];
+        final double vFour = wheels[MecanumKinematics.RR];
         lf.setPower(vOne);
         rf.setPower(vTwo);
         lr.setPower(vThree);
@@ -0,0 +1,108 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.Servo;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Measures how fast each bucket and marker servo swings, for {@link ServoModel}.
+ * Run it once with the robot assembled, since the load sets the speed.
+ * <p>
+ * The selected servo swings back and forth between its two working positions,
+ * reversing every period. Shorten the period until the servo turns back before
+ * reaching the ends, then lengthen it until it just reaches them again: the
+ * period is then its travel time. This needs no reaction time from the driver.
+ * <ul>
+ * <li>dpad left/right: pick the servo</li>
+ * <li>dpad up/down: lengthen/shorten the period</li>
+ * <li>A: keep the speed for this servo</li>
+ * <li>X: write everything kept to the settings file</li>
+ * </ul>
+ */
+@TeleOp(name="Servo Calibration", group="Pushbot")
+public class ServoCalibrationOp extends LinearOpMode {
+    // Servo, then the two positions the autos use it between.
+    private static final String[] NAMES = {"AngleL", "AngleR", "Marker"};
+    private static final double[][] SWING = {{0.24, 1.0}, {0.86, 0.15}, {0.1, 0.95}};
+
+    private static final double PERIOD_STEP = 0.02;
+    private static final double MIN_PERIOD = 0.1;
+
+    @Override
+    public void runOpMode() {
+        final ServoCalibration calibration = ServoCalibration.load();
+        final Servo[] servos = new Servo[NAMES.length];
+        final double[] periods = new double[NAMES.length];
+        for (int i = 0; i < NAMES.length; ++i) {
+            servos[i] = hardwareMap.get(Servo.class, NAMES[i]);
+            periods[i] = Math.abs(SWING[i][1] - SWING[i][0]) * ServoModel.DEFAULT_RANGE_DEGREES
+                    / calibration.getDegreesPerSecond(NAMES[i]);
+        }
+
+        telemetry.addData("Status", "Ready to calibrate");
+        telemetry.update();
+        waitForStart();
+
+        int selected = 0;
+        int end = 0;
+        long lastSwing = System.nanoTime();
+        boolean lastLeft = false, lastRight = false, lastUp = false, lastDown = false, lastA = false, lastX = false;
+        String status = "";
+
+        while (opModeIsActive()) {
+            final long now = System.nanoTime();
+
+            if (gamepad1.dpad_right && !lastRight) {
+                selected = (selected + 1) % NAMES.length;
+            }
+            if (gamepad1.dpad_left && !lastLeft) {
+                selected = (selected + NAMES.length - 1) % NAMES.length;
+            }
+            if (gamepad1.dpad_up && !lastUp) {
+                periods[selected] += PERIOD_STEP;
+            }
+            if (gamepad1.dpad_down && !lastDown) {
+                periods[selected] = Math.max(MIN_PERIOD, periods[selected] - PERIOD_STEP);
+            }
+            final double degrees = Math.abs(SWING[selected][1] - SWING[selected][0])
+                    * ServoModel.DEFAULT_RANGE_DEGREES;
+            final double rate = degrees / periods[selected];
+            if (gamepad1.a && !lastA) {
+                calibration.setDegreesPerSecond(NAMES[selected], rate);
+                status = String.format(Locale.US, "Kept %s at %.0f deg/s", NAMES[selected], rate);
+            }
+            if (gamepad1.x && !lastX) {
+                try {
+                    calibration.save();
+                    status = "Saved " + ServoCalibration.FILE_NAME;
+                } catch (IOException e) {
+                    status = "Save failed: " + e.getMessage();
+                }
+            }
+            lastLeft = gamepad1.dpad_left;
+            lastRight = gamepad1.dpad_right;
+            lastUp = gamepad1.dpad_up;
+            lastDown = gamepad1.dpad_down;
+            lastA = gamepad1.a;
+            lastX = gamepad1.x;
+
+            if (now - lastSwing >= (long) (periods[selected] * 1e9)) {
+                end = 1 - end;
+                servos[selected].setPosition(SWING[selected][end]);
+                lastSwing = now;
+            }
+
+            telemetry.addData("Servo", NAMES[selected]);
+            telemetry.addData("Period", "%.2f s", periods[selected]);
+            telemetry.addData("Speed", "%.0f deg/s (kept %.0f%s)", rate,
+                              calibration.getDegreesPerSecond(NAMES[selected]),
+                              calibration.isCalibrated(NAMES[selected]) ? "" : ", default");
+            telemetry.addData("Status", status);
+            telemetry.update();
+            idle();
+        }
+    }
+}
@@ -12,6 +12,16 @@ import com.qualcomm.robotcore.hardware.DcMotor;
 public class TaylorSq extends LinearOpMode{
 
     private ElapsedTime runtime = new ElapsedTime();
+
+    // Flip arm positions in encoder counts, and its position loop
+    static final int    FLIP_DOWN     = 0;
+    static final int    FLIP_UP       = -223;
+    static final double FLIP_KP       = 0.01;    // Power per count of error
+    static final double FLIP_KD       = 0.0004;  // Power per count per second
+    static final double FLIP_KSTATIC  = 0.03;    // Power that just gets the arm moving
+
+    // Scratch for the drive mix, reused every loop
+    private final double[] wheels = new double[4];
     private Controller gamepad;
 
     // Drive
@@ -24,6 +34,8 @@ public class TaylorSq extends LinearOpMode{
     private DcMotor Lift = null;
     private DcMotor Slide = null;
     private DcMotor Flip = null;
+    private final PIDFController flipController = new PIDFController(FLIP_KP, 0.0, FLIP_KD);
+    private boolean flipActive = false;
     private DcMotor inTake = null;
 
     // Servo
@@ -60,6 +72,12 @@ public class TaylorSq extends LinearOpMode{
         Flip.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
         Slide.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
 
+        // Up is negative: at most 0.3 power going up and 0.1 coming down, as RUN_TO_POSITION had
+        flipController.setFeedforward(0.0, 0.0, FLIP_KSTATIC);
+        flipController.setOutputLimits(-0.3, 0.1);
+        flipController.setDerivativeFilter(0.05);
+        flipController.setTolerance(3, Double.POSITIVE_INFINITY);
+
         waitForStart();
         runtime.reset();
 
@@ -73,13 +91,13 @@ public class TaylorSq extends LinearOpMode{
             boolean RBumper1 = gamepad1.right_bumper;
 
             // Drive reverse
-        double LJ = Math.hypot(gamepad1.left_stick_x, gamepad1.left_stick_y);
-        double rightX = -gamepad1.right_stick_x;
-        double angle = Math.atan2(gamepad1.left_stick_y, -gamepad1.left_stick_x) - Math.PI/4;
-        final double vOne = LJ * Math.cos(angle)+rightX;
-        final double vTwo = LJ * Math.sin(angle)-rightX;
-        final double vThree = LJ * Math.sin(angle)+rightX;
-        final double vFour = LJ * Math.cos(angle)-rightX;
+        MecanumKinematics.powers(gamepad1.left_stick_y * MecanumKinematics.STICK_SCALE,
+                                  -gamepad1.left_stick_x * MecanumKinematics.STICK_SCALE,
+                                  gamepad1.right_stick_x, wheels);
+        final double vOne = wheels[MecanumKinematics.LF];
+        final double vTwo = wheels[MecanumKinematics.RF];
+        final double vThree = wheels[MecanumKinematics.LR];
+        final double vFour = wheels[MecanumKinematics.RR];
 
             lf.setPower(vOne);
             rf.setPower(vTwo);
@@ -122,15 +140,17 @@ public class TaylorSq extends LinearOpMode{
 
             if (LBumper2) {
                 // Flip Down
-                Flip.setTargetPosition(0);
-                Flip.setPower(0.1);
-                Flip.setMode(DcMotor.RunMode.RUN_TO_POSITION); }
+                flipController.setTarget(FLIP_DOWN);
+                flipActive = true; }
 
             if (RBumper2) {
                 // Flip Up
-                Flip.setTargetPosition(-223);
-                Flip.setPower(-0.3);
-                Flip.setMode(DcMotor.RunMode.RUN_TO_POSITION); }
+                flipController.setTarget(FLIP_UP);
+                flipActive = true; }
+
+            // Hold the flip where it was last sent
+            if (flipActive) {
+                Flip.setPower(flipController.update(Flip.getCurrentPosition())); }
 
             // Bucket Down
             if (gamepad2.x) {
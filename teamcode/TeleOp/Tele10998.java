@@ -13,6 +13,9 @@ public class Tele10998 extends LinearOpMode{
 
     private ElapsedTime runtime = new ElapsedTime();
 
+    // Scratch for the drive mix, reused every loop
+    private final double[] wheels = new double[4];
+
     // Drive
     private DcMotor lf = null;
     private DcMotor lr = null;
@@ -72,13 +75,13 @@ public class Tele10998 extends LinearOpMode{
         boolean LBumper = gamepad2.left_bumper;
         boolean RBumper = gamepad2.right_bumper;
 
-        double LJ = Math.hypot(gamepad1.left_stick_x, gamepad1.left_stick_y);
-        double rightX = -gamepad1.right_stick_x;
-        double angle = Math.atan2(gamepad1.left_stick_y, -gamepad1.left_stick_x) - Math.PI/4;
-        final double vOne = LJ * Math.cos(angle)+rightX;
-        final double vTwo = LJ * Math.sin(angle)-rightX;
-        final double vThree = LJ * Math.sin(angle)+rightX;
-        final double vFour = LJ * Math.cos(angle)-rightX;
+        MecanumKinematics.powers(gamepad1.left_stick_y * MecanumKinematics.STICK_SCALE,
+                                  -gamepad1.left_stick_x * MecanumKinematics.STICK_SCALE,
+                                  gamepad1.right_stick_x, wheels);
+        final double vOne = wheels[MecanumKinematics.LF];
+        final double vTwo = wheels[MecanumKinematics.RF];
+        final double vThree = wheels[MecanumKinematics.LR];
+        final double vFour = wheels[MecanumKinematics.RR];
 
 
         boolean AngleUp = false;
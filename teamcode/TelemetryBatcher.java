@@ -0,0 +1,213 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Sends telemetry at a fixed rate instead of on every loop.
+ * <p>
+ * Lines are declared once with {@link #add}, which keeps the caption and format.
+ * The loop then stores raw numbers in the returned {@link Line}s, which costs no
+ * formatting or allocation, and calls {@link #update()} every cycle. Only when the
+ * send period has passed are the lines formatted, handed to the SDK telemetry and
+ * sent, so the control loop runs at full rate while the driver station still
+ * sees values at most one period old.
+ * <p>
+ * The batcher owns telemetry.update() for the loop it serves; anything else
+ * that loop wants to show should be a Line too.
+ */
+public class TelemetryBatcher {
+    /** Rate the driver station is refreshed at by default; it draws at about 4 Hz anyway. */
+    public static final double DEFAULT_HZ = 4.0;
+
+    private final Telemetry telemetry;
+    private final NanoClock clock;
+    private final long periodNanos;
+    private final ArrayList<Line> lines = new ArrayList<Line>();
+
+    private long lastSendNanos = 0;
+    private boolean sent = false;
+
+    public TelemetryBatcher(Telemetry _telemetry) {
+        this(_telemetry, DEFAULT_HZ, NanoClock.SYSTEM);
+    }
+
+    /**
+     * @param _telemetry The OpMode's telemetry
+     * @param maxHz      Most sends per second
+     * @param _clock     Time source for the send period
+     */
+    public TelemetryBatcher(Telemetry _telemetry, double maxHz, NanoClock _clock) {
+        telemetry = _telemetry;
+        clock = _clock;
+        periodNanos = (long) (1e9 / maxHz);
+    }
+
+    /**
+     * Declare a line of numbers.
+     *
+     * @param caption Left-hand side
+     * @param format  String.format() pattern for the values; use %d patterns with
+     *                {@link Line#setInt} and any other with {@link Line#set}
+     */
+    public Line add(String caption, String format) {
+        Line line = new Line(caption, format, null);
+        lines.add(line);
+        return line;
+    }
+
+    /**
+     * Declare a line whose text is only worked out when it is sent.
+     */
+    public Line add(String caption, Func<?> value) {
+        Line line = new Line(caption, null, value);
+        lines.add(line);
+        return line;
+    }
+
+    /**
+     * Declare the loop rate line of a {@link LoopTimer}.
+     */
+    public Line add(final LoopTimer loopTimer) {
+        return add("Loop", new Func<String>() {
+            @Override
+            public String value() {
+                return loopTimer.format();
+            }
+        });
+    }
+
+    /**
+     * Send if the period has passed. Call once per loop.
+     *
+     * @return true if telemetry was sent this call
+     */
+    public boolean update() {
+        final long now = clock.nanoTime();
+        if (sent && now - lastSendNanos < periodNanos) {
+            return false;
+        }
+        send();
+        lastSendNanos = now;
+        sent = true;
+        return true;
+    }
+
+    /**
+     * Send right away, e.g. before a long blocking call.
+     */
+    public void send() {
+        for (int i = 0; i < lines.size(); ++i) {
+            final Line line = lines.get(i);
+            if (line.visible) {
+                telemetry.addData(line.caption, line.text());
+            }
+        }
+        telemetry.update();
+    }
+
+    /**
+     * One caption and its latest value, kept as primitives until sent.
+     */
+    public static class Line {
+        private static final int MAX_VALUES = 4;
+
+        private final String caption;
+        private final String format;
+        private final Func<?> func;
+        private final double[] doubles = new double[MAX_VALUES];
+        private final int[] ints = new int[MAX_VALUES];
+        private final Object[][] args = new Object[MAX_VALUES + 1][];
+        private int count = 0;
+        private boolean integer = false;
+        private String string = null;
+        private boolean visible = true;
+
+        private Line(String _caption, String _format, Func<?> _func) {
+            caption = _caption;
+            format = _format;
+            func = _func;
+            for (int i = 0; i <= MAX_VALUES; ++i) {
+                args[i] = new Object[i];
+            }
+        }
+
+        public void set(double a) {
+            doubles[0] = a;
+            setCount(1, false);
+        }
+
+        public void set(double a, double b) {
+            doubles[0] = a;
+            doubles[1] = b;
+            setCount(2, false);
+        }
+
+        public void set(double a, double b, double c) {
+            doubles[0] = a;
+            doubles[1] = b;
+            doubles[2] = c;
+            setCount(3, false);
+        }
+
+        public void set(double a, double b, double c, double d) {
+            doubles[0] = a;
+            doubles[1] = b;
+            doubles[2] = c;
+            doubles[3] = d;
+            setCount(4, false);
+        }
+
+        public void setInt(int a) {
+            ints[0] = a;
+            setCount(1, true);
+        }
+
+        public void setInt(int a, int b) {
+            ints[0] = a;
+            ints[1] = b;
+            setCount(2, true);
+        }
+
+        /**
+         * Show fixed text instead of formatted numbers.
+         */
+        public void set(String text) {
+            string = text;
+        }
+
+        /**
+         * Hide or show the line without forgetting it.
+         */
+        public void setVisible(boolean _visible) {
+            visible = _visible;
+        }
+
+        private void setCount(int _count, boolean _integer) {
+            count = _count;
+            integer = _integer;
+            string = null;
+        }
+
+        private String text() {
+            if (func != null) {
+                return String.valueOf(func.value());
+            }
+            if (string != null || format == null) {
+                return string == null ? "" : string;
+            }
+            if (count == 0) {
+                // Nothing set yet; the format would be missing its arguments.
+                return "";
+            }
+            final Object[] a = args[count];
+            for (int i = 0; i < count; ++i) {
+                a[i] = integer ? (Object) ints[i] : (Object) doubles[i];
+            }
+            return String.format(Locale.US, format, a);
+        }
+    }
+}
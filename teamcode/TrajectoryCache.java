@@ -0,0 +1,355 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Servo;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The autonomous paths for every start position and sampling result, built and
+ * checked during init so that after START picking a path is a table lookup.
+ * <p>
+ * The table can be written to a small binary file on the controller and read
+ * back. {@link #load} builds the table afresh every time, which is cheap, and
+ * compares it with the file byte for byte, so a path edited without bumping the
+ * version can never be shadowed by a stale file. The file is only rewritten
+ * when it differs. The version number marks the file layout.
+ */
+public class TrajectoryCache {
+    /** Which side of the lander the robot starts on. */
+    public enum Start { CRATER, DEPOT }
+
+    /** Where the sampling step saw the gold mineral. */
+    public enum Gold { LEFT, CENTER, RIGHT, UNKNOWN }
+
+    /** Builds the paths when there is no usable file. */
+    public interface Factory {
+        TrajectoryCache build();
+    }
+
+    private static final int MAGIC = 0x54524A43; // "TRJC"
+    private static final double MAX_INCHES = 72.0;
+    private static final double MAX_SECONDS = 30.0;
+
+    private final int version;
+    private final Plan[][] plans = new Plan[Start.values().length][Gold.values().length];
+
+    public TrajectoryCache(int _version) {
+        version = _version;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void put(Start start, Gold gold, Plan plan) {
+        plans[start.ordinal()][gold.ordinal()] = plan;
+    }
+
+    /**
+     * @return the path for a start position and sampling result, or null if none was built
+     */
+    public Plan get(Start start, Gold gold) {
+        return plans[start.ordinal()][gold.ordinal()];
+    }
+
+    /**
+     * Check every path that was built.
+     *
+     * @param servoCount Number of servo slots the OpMode maps
+     * @throws IllegalStateException naming the first bad step
+     */
+    public void validate(int servoCount) {
+        for (Start start : Start.values()) {
+            for (Gold gold : Gold.values()) {
+                final Plan plan = get(start, gold);
+                if (plan != null) {
+                    plan.validate(start + "/" + gold, servoCount);
+                }
+            }
+        }
+    }
+
+    public void write(File file) throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(toBytes());
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return the table exactly as {@link #write} stores it
+     */
+    public byte[] toBytes() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(version);
+            for (Plan[] byGold : plans) {
+                for (Plan plan : byGold) {
+                    if (plan == null) {
+                        out.writeShort(-1);
+                    } else {
+                        plan.write(out);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // A ByteArrayOutputStream does not throw.
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the cache stored in a file, or null if the file is from another version
+     */
+    public static TrajectoryCache read(File file, int version) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != version) {
+                return null;
+            }
+            TrajectoryCache cache = new TrajectoryCache(version);
+            for (Start start : Start.values()) {
+                for (Gold gold : Gold.values()) {
+                    cache.put(start, gold, Plan.read(in));
+                }
+            }
+            return cache;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Build and validate the cache, and save it to a file unless the file
+     * already holds exactly the same table.
+     *
+     * @param version Layout version of the file
+     */
+    public static TrajectoryCache load(File file, int version, int servoCount, Factory factory) {
+        final TrajectoryCache cache = factory.build();
+        cache.validate(servoCount);
+        final byte[] bytes = cache.toBytes();
+        if (file.exists() && file.length() == bytes.length) {
+            try {
+                if (Arrays.equals(bytes, readBytes(file, bytes.length))) {
+                    return cache;
+                }
+            } catch (IOException e) {
+                // Fall through and rewrite.
+            }
+        }
+        try {
+            cache.write(file);
+        } catch (IOException e) {
+            // Still usable from memory; the file is rewritten next time.
+        }
+        return cache;
+    }
+
+    private static byte[] readBytes(File file, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return bytes;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * One path: a fixed list of steps stored in flat primitive arrays.
+     */
+    public static class Plan {
+        public static final byte DRIVE = 0;
+        public static final byte SERVO = 1;
+        public static final byte PAUSE = 2;
+
+        /** Values per step: DRIVE uses all six, SERVO slot/position/settle, PAUSE seconds. */
+        private static final int STRIDE = 6;
+
+        private final byte[] kinds;
+        private final float[] values;
+
+        private Plan(byte[] _kinds, float[] _values) {
+            kinds = _kinds;
+            values = _values;
+        }
+
+        public int size() {
+            return kinds.length;
+        }
+
+        public byte kind(int step) {
+            return kinds[step];
+        }
+
+        /**
+         * @return value i of a step; see {@link Builder} for the layout of each kind
+         */
+        public double value(int step, int i) {
+            return values[step * STRIDE + i];
+        }
+
+        /**
+         * Queue one step on a MotionEngine. Run the engine until the drive channel
+         * is idle before queueing the next step to keep the steps in order; servo
+         * steps queue up on their own channel and may still be moving.
+         *
+         * @param servos The OpMode's servos, indexed by slot
+         */
+        public void queue(int step, MotionEngine motion, Servo[] servos) {
+            switch (kinds[step]) {
+                case DRIVE:
+                    motion.drive(value(step, 0), value(step, 1), value(step, 2),
+                                 value(step, 3), value(step, 4), value(step, 5));
+                    break;
+                case SERVO:
+                    motion.servo(servos[(int) value(step, 0)], value(step, 1), value(step, 2));
+                    break;
+                case PAUSE:
+                    motion.pause(value(step, 0));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void validate(String name, int servoCount) {
+            for (int step = 0; step < kinds.length; ++step) {
+                for (int i = 0; i < STRIDE; ++i) {
+                    if (Float.isNaN(values[step * STRIDE + i]) || Float.isInfinite(values[step * STRIDE + i])) {
+                        throw new IllegalStateException(name + " step " + step + " is not a number");
+                    }
+                }
+                switch (kinds[step]) {
+                    case DRIVE:
+                        if (value(step, 0) <= 0.0 || value(step, 0) > 1.0) {
+                            throw new IllegalStateException(name + " step " + step + " speed out of range");
+                        }
+                        for (int i = 1; i <= 4; ++i) {
+                            if (Math.abs(value(step, i)) > MAX_INCHES) {
+                                throw new IllegalStateException(name + " step " + step + " is too long");
+                            }
+                        }
+                        if (value(step, 5) <= 0.0 || value(step, 5) > MAX_SECONDS) {
+                            throw new IllegalStateException(name + " step " + step + " timeout out of range");
+                        }
+                        break;
+                    case SERVO:
+                        if (value(step, 0) < 0 || value(step, 0) >= servoCount) {
+                            throw new IllegalStateException(name + " step " + step + " has no such servo");
+                        }
+                        if (value(step, 1) < 0.0 || value(step, 1) > 1.0) {
+                            throw new IllegalStateException(name + " step " + step + " servo position out of range");
+                        }
+                        if (value(step, 2) < 0.0 || value(step, 2) > MAX_SECONDS) {
+                            throw new IllegalStateException(name + " step " + step + " settle time out of range");
+                        }
+                        break;
+                    case PAUSE:
+                        if (value(step, 0) < 0.0 || value(step, 0) > MAX_SECONDS) {
+                            throw new IllegalStateException(name + " step " + step + " pause out of range");
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException(name + " step " + step + " has unknown kind " + kinds[step]);
+                }
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeShort(kinds.length);
+            out.write(kinds);
+            for (float value : values) {
+                out.writeFloat(value);
+            }
+        }
+
+        static Plan read(DataInputStream in) throws IOException {
+            final int size = in.readShort();
+            if (size < 0) {
+                return null;
+            }
+            byte[] kinds = new byte[size];
+            in.readFully(kinds);
+            float[] values = new float[size * STRIDE];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = in.readFloat();
+            }
+            return new Plan(kinds, values);
+        }
+
+        /**
+         * Collects steps for a plan in the order they run.
+         */
+        public static class Builder {
+            private byte[] kinds = new byte[16];
+            private float[] values = new float[16 * STRIDE];
+            private int size = 0;
+
+            /**
+             * Values: speed, lf, lr, rf, rr inches, timeout seconds.
+             */
+            public Builder drive(double speed, double lf, double lr, double rf, double rr, double timeoutS) {
+                return add(DRIVE, speed, lf, lr, rf, rr, timeoutS);
+            }
+
+            /**
+             * Values: servo slot, position, seconds to hold before the next step.
+             */
+            public Builder servo(int slot, double position, double settleS) {
+                return add(SERVO, slot, position, settleS, 0, 0, 0);
+            }
+
+            /**
+             * Values: seconds.
+             */
+            public Builder pause(double seconds) {
+                return add(PAUSE, seconds, 0, 0, 0, 0, 0);
+            }
+
+            public Plan build() {
+                byte[] k = new byte[size];
+                float[] v = new float[size * STRIDE];
+                System.arraycopy(kinds, 0, k, 0, size);
+                System.arraycopy(values, 0, v, 0, size * STRIDE);
+                return new Plan(k, v);
+            }
+
+            private Builder add(byte kind, double a, double b, double c, double d, double e, double f) {
+                if (size == kinds.length) {
+                    byte[] k = new byte[size * 2];
+                    float[] v = new float[size * 2 * STRIDE];
+                    System.arraycopy(kinds, 0, k, 0, size);
+                    System.arraycopy(values, 0, v, 0, size * STRIDE);
+                    kinds = k;
+                    values = v;
+                }
+                kinds[size] = kind;
+                final int base = size * STRIDE;
+                values[base] = (float) a;
+                values[base + 1] = (float) b;
+                values[base + 2] = (float) c;
+                values[base + 3] = (float) d;
+                values[base + 4] = (float) e;
+                values[base + 5] = (float) f;
+                ++size;
+                return this;
+            }
+        }
+    }
+}
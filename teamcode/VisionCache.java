@@ -0,0 +1,251 @@
+package org.firstinspires.ftc.teamcode;
+
+/**
+ * Remembers what the camera last saw of the sample minerals, and where the
+ * robot was when it saw it, so the detector only runs when the answer could
+ * have changed.
+ * <p>
+ * Until the robot has moved more than {@link #setTolerance maxInches} or turned
+ * more than maxRadians from the pose of the reading, the cached answer is the
+ * answer, and the detector is paused. Once the pose has moved on, the next
+ * question resumes the detector; the first frames it finishes after that
+ * become the new reading, tagged with the pose at that moment, and the
+ * detector pauses again.
+ * <p>
+ * The detector's own rate follows demand: full rate while a question is waiting
+ * for a fresh reading, throttled by {@link #THROTTLED_DIVISOR} if {@link #update()}
+ * is called with nobody asking, and paused while the cache is valid. The
+ * camera keeps running throughout, so resuming costs nothing.
+ * <p>
+ * Call {@link #update()} once per loop while waiting for a reading, e.g. through
+ * {@link Conditions#visionCached}; the getters call it too.
+ * <p>
+ * {@link #setLive} hands the detector back at full rate for something that
+ * steers on every frame, such as {@link GoldAlignServo}.
+ */
+public class VisionCache {
+    /**
+     * A detector that runs on its own camera thread and can be slowed or
+     * paused without stopping the camera, e.g. {@link RoiGoldAlignDetector}.
+     */
+    public interface Detector {
+        boolean isFound();
+
+        boolean getAligned();
+
+        double getXPosition();
+
+        /**
+         * @return frames fully processed so far
+         */
+        int getProcessedFrames();
+
+        void setPaused(boolean paused);
+
+        void setFrameDivisor(int divisor);
+    }
+
+    public static final double DEFAULT_MAX_INCHES = 2.0;
+    public static final double DEFAULT_MAX_RADIANS = Math.toRadians(5.0);
+    /** Frames slowed to one in this many while nothing is waiting for a reading. */
+    public static final int THROTTLED_DIVISOR = 10;
+    /** Frames the detector must finish after resuming before its reading counts. */
+    static final int FRESH_FRAMES = 2;
+    /** How long after a question the detector stays at full rate. */
+    static final double DEMAND_SECONDS = 0.5;
+
+    private final Detector detector;
+    private final PoseTracker poseTracker;
+    private final NanoClock clock;
+    private final int fullRateDivisor;
+
+    private double maxInches = DEFAULT_MAX_INCHES;
+    private double maxRadians = DEFAULT_MAX_RADIANS;
+
+    private boolean valid = false;
+    private boolean found = false;
+    private boolean aligned = false;
+    private double xPosition = 0.0;
+    private final Pose capturePose = new Pose();
+    private long captureNanos = 0;
+
+    private boolean paused = false;
+    private int divisor;
+    private int resumeFrames = 0;
+    private long demandNanos;
+    private int readings = 0;
+    private boolean live = false;
+
+    /**
+     * @param _detector        The detector; the cache takes over pausing and throttling it
+     * @param _poseTracker     Tracker the robot's moves are integrated into
+     * @param _clock           Time source for demand and reading ages
+     * @param _fullRateDivisor Frame divisor to use when a reading is wanted now
+     */
+    public VisionCache(Detector _detector, PoseTracker _poseTracker, NanoClock _clock, int _fullRateDivisor) {
+        detector = _detector;
+        poseTracker = _poseTracker;
+        clock = _clock;
+        fullRateDivisor = _fullRateDivisor;
+        divisor = _fullRateDivisor;
+        demandNanos = clock.nanoTime();
+        detector.setFrameDivisor(divisor);
+        detector.setPaused(false);
+        resumeFrames = detector.getProcessedFrames();
+    }
+
+    /**
+     * @param _maxInches  Travel after which a reading is stale
+     * @param _maxRadians Turn after which a reading is stale
+     */
+    public void setTolerance(double _maxInches, double _maxRadians) {
+        maxInches = _maxInches;
+        maxRadians = _maxRadians;
+    }
+
+    /**
+     * Drop the cached reading, e.g. after the minerals have been disturbed.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Run the detector on every frame at full rate, and leave it alone, until
+     * set back. The cached reading is dropped either way, since the robot will
+     * move while live.
+     *
+     * @param _live True to run the detector live, false to go back to caching
+     */
+    public void setLive(boolean _live) {
+        live = _live;
+        valid = false;
+        if (live) {
+            pause(false);
+            setDivisor(fullRateDivisor);
+        } else {
+            pause(true);
+        }
+    }
+
+    public boolean isLive() {
+        return live;
+    }
+
+    /**
+     * Check the pose, and run the detector just enough to keep a valid reading.
+     * Does nothing while {@link #setLive live}.
+     */
+    public void update() {
+        if (live) {
+            return;
+        }
+        final long now = clock.nanoTime();
+        if (valid && moved()) {
+            valid = false;
+        }
+        if (valid) {
+            pause(true);
+            return;
+        }
+        if (paused) {
+            pause(false);
+        }
+        final boolean wanted = (now - demandNanos) * 1e-9 < DEMAND_SECONDS;
+        setDivisor(wanted ? fullRateDivisor : THROTTLED_DIVISOR);
+        if (detector.getProcessedFrames() - resumeFrames >= FRESH_FRAMES) {
+            found = detector.isFound();
+            aligned = found && detector.getAligned();
+            xPosition = detector.getXPosition();
+            capturePose.copyFrom(poseTracker.getPose());
+            captureNanos = now;
+            valid = true;
+            ++readings;
+            pause(true);
+        }
+    }
+
+    private boolean moved() {
+        final Pose pose = poseTracker.getPose();
+        return pose.distanceTo(capturePose) > maxInches
+                || Math.abs(Pose.wrapAngle(pose.heading - capturePose.heading)) > maxRadians;
+    }
+
+    private void pause(boolean pause) {
+        if (pause != paused) {
+            paused = pause;
+            detector.setPaused(pause);
+            if (!pause) {
+                resumeFrames = detector.getProcessedFrames();
+            }
+        }
+    }
+
+    private void setDivisor(int _divisor) {
+        if (_divisor != divisor) {
+            divisor = _divisor;
+            detector.setFrameDivisor(divisor);
+        }
+    }
+
+    private void ask() {
+        demandNanos = clock.nanoTime();
+        update();
+    }
+
+    /**
+     * @return true if the cached reading still holds for the robot's pose
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return whether gold was found, as of the cached reading, or live while there is none
+     */
+    public boolean isFound() {
+        ask();
+        return valid ? found : detector.isFound();
+    }
+
+    /**
+     * @return whether the gold was aligned, as of the cached reading, or live while there is none
+     */
+    public boolean getAligned() {
+        ask();
+        return valid ? aligned : detector.getAligned();
+    }
+
+    /**
+     * @return the gold's x position, as of the cached reading, or live while there is none
+     */
+    public double getXPosition() {
+        ask();
+        return valid ? xPosition : detector.getXPosition();
+    }
+
+    /**
+     * @return where the robot was for the cached reading (the same instance every call)
+     */
+    public Pose getCapturePose() {
+        return capturePose;
+    }
+
+    /**
+     * @return seconds since the cached reading was taken
+     */
+    public double getAgeSeconds() {
+        return (clock.nanoTime() - captureNanos) * 1e-9;
+    }
+
+    public boolean isDetectorPaused() {
+        return paused;
+    }
+
+    /**
+     * @return readings taken since construction, i.e. how often the detector had to run
+     */
+    public int getReadingCount() {
+        return readings;
+    }
+}
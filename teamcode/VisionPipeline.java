@@ -0,0 +1,318 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs vision on threads of its own so the OpMode never waits for it.
+ * <p>
+ * Capture, an optional filter and detection each get a thread, joined by
+ * {@link FrameRing}s that drop the oldest frame when full. A slow stage
+ * therefore sees fewer, newer frames instead of falling behind, and the camera
+ * is never held up. Each detection is published as an immutable {@link Result}
+ * through a single volatile reference; {@link #getResult()} just reads it, so a
+ * control loop can call it every cycle.
+ * <p>
+ * Frame buffers are recycled, so after the first few frames the pipeline
+ * allocates nothing but the small Result objects.
+ * <p>
+ * So far this is groundwork: the only OpMode that runs it is
+ * {@link MineralBlobCam}, which measures it. The autos still read their
+ * detectors directly, and none will move over before
+ * {@link MineralBlobDetector} has been benchmarked against DogeCV.
+ * <p>
+ * Call {@link #stop()} when the OpMode ends, or the threads keep running.
+ */
+public class VisionPipeline {
+    /**
+     * Where frames come from, e.g. {@link VuforiaFrameSource}. Called only on
+     * the capture thread.
+     */
+    public interface FrameSource {
+        /**
+         * Wait for the next camera frame.
+         *
+         * @param reuse A frame whose buffer may be filled, or null
+         * @return the frame, reuse itself if it was the right size
+         */
+        RgbFrame grab(RgbFrame reuse) throws InterruptedException;
+    }
+
+    /**
+     * Work done on a frame before detection, in place, on its own thread.
+     */
+    public interface FrameFilter {
+        void apply(RgbFrame frame);
+    }
+
+    /**
+     * One detection. Never changes once published, so it can be read from any thread.
+     */
+    public static final class Result {
+        /** Counts up by one for every result; 0 before the first. */
+        public final long sequence;
+        public final TrajectoryCache.Gold reading;
+        /** Vote weight the detector gave the reading, 0 to 1. */
+        public final double weight;
+        /** When the frame was captured, from the pipeline's clock. */
+        public final long captureNanos;
+        /** When the result was published. */
+        public final long publishNanos;
+        /** Time spent in the detector. */
+        public final long detectNanos;
+
+        Result(long _sequence, TrajectoryCache.Gold _reading, double _weight,
+               long _captureNanos, long _publishNanos, long _detectNanos) {
+            sequence = _sequence;
+            reading = _reading;
+            weight = _weight;
+            captureNanos = _captureNanos;
+            publishNanos = _publishNanos;
+            detectNanos = _detectNanos;
+        }
+
+        /**
+         * @return seconds from capture to publication
+         */
+        public double getLatencySeconds() {
+            return (publishNanos - captureNanos) * 1e-9;
+        }
+
+        /**
+         * @return seconds between capture and a time from the same clock
+         */
+        public double ageSeconds(long nowNanos) {
+            return (nowNanos - captureNanos) * 1e-9;
+        }
+    }
+
+    private static final Result NONE = new Result(0, TrajectoryCache.Gold.UNKNOWN, 0.0, 0, 0, 0);
+
+    private final FrameSource source;
+    private final FrameFilter filter;
+    private final SampleDetector detector;
+    private final NanoClock clock;
+    private final FrameRing captured;
+    private final FrameRing filtered;
+    private final ArrayDeque<RgbFrame> pool = new ArrayDeque<RgbFrame>();
+
+    private volatile Result result = NONE;
+    private volatile long capturedFrames = 0;
+    private final AtomicLong errors = new AtomicLong();
+    private volatile RuntimeException lastError = null;
+    private volatile boolean running = false;
+    private Thread[] threads = new Thread[0];
+
+    /**
+     * @param _source   Camera frames
+     * @param _filter   Work before detection, or null for none
+     * @param _detector Reads each frame; used only on the detection thread
+     * @param capacity  Frames each ring holds; 1 always works on the newest
+     */
+    public VisionPipeline(FrameSource _source, FrameFilter _filter, SampleDetector _detector, int capacity) {
+        this(_source, _filter, _detector, capacity, NanoClock.SYSTEM);
+    }
+
+    public VisionPipeline(FrameSource _source, FrameFilter _filter, SampleDetector _detector, int capacity,
+                          NanoClock _clock) {
+        source = _source;
+        filter = _filter;
+        detector = _detector;
+        clock = _clock;
+        captured = new FrameRing(capacity);
+        filtered = filter == null ? captured : new FrameRing(capacity);
+    }
+
+    /**
+     * Start the threads. Does nothing if already running.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (threads == null) {
+            throw new IllegalStateException("VisionPipeline has been stopped");
+        }
+        running = true;
+        detector.reset();
+        final Thread capture = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                capture();
+            }
+        }, "VisionCapture");
+        final Thread detect = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                detect();
+            }
+        }, "VisionDetect");
+        if (filter == null) {
+            threads = new Thread[] {capture, detect};
+        } else {
+            final Thread filterThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    filter();
+                }
+            }, "VisionFilter");
+            threads = new Thread[] {capture, filterThread, detect};
+        }
+        for (Thread t : threads) {
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /**
+     * Stop the threads and wait for them to finish. The last result stays
+     * readable; the pipeline cannot be started again.
+     */
+    public synchronized void stop() {
+        running = false;
+        captured.close();
+        filtered.close();
+        if (threads == null) {
+            return;
+        }
+        for (Thread t : threads) {
+            t.interrupt();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the newest result, never null; its sequence is 0 before the first detection
+     */
+    public Result getResult() {
+        return result;
+    }
+
+    public NanoClock getClock() {
+        return clock;
+    }
+
+    public long getCapturedFrames() {
+        return capturedFrames;
+    }
+
+    /**
+     * @return frames pushed out of a ring before the next stage got to them
+     */
+    public long getDroppedFrames() {
+        return captured.getDropped() + (filtered == captured ? 0 : filtered.getDropped());
+    }
+
+    /**
+     * @return offers that found an earlier frame still waiting for the next stage
+     */
+    public long getBackpressure() {
+        return captured.getBackpressure() + (filtered == captured ? 0 : filtered.getBackpressure());
+    }
+
+    /**
+     * @return frames the filter or detector threw on; they are skipped
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public RuntimeException getLastError() {
+        return lastError;
+    }
+
+    private void capture() {
+        try {
+            while (running) {
+                final RgbFrame reuse = borrow();
+                final RgbFrame frame = source.grab(reuse);
+                if (frame == null) {
+                    recycle(reuse);
+                    continue;
+                }
+                frame.timestampNanos = clock.nanoTime();
+                ++capturedFrames;
+                recycle(captured.offer(frame));
+            }
+        } catch (InterruptedException e) {
+            // Stopping.
+        }
+    }
+
+    private void filter() {
+        try {
+            while (running) {
+                final RgbFrame frame = captured.take();
+                if (frame == null) {
+                    return;
+                }
+                try {
+                    filter.apply(frame);
+                } catch (RuntimeException e) {
+                    fail(e);
+                    recycle(frame);
+                    continue;
+                }
+                recycle(filtered.offer(frame));
+            }
+        } catch (InterruptedException e) {
+            // Stopping.
+        }
+    }
+
+    private void detect() {
+        long sequence = 0;
+        try {
+            while (running) {
+                final RgbFrame frame = filtered.take();
+                if (frame == null) {
+                    return;
+                }
+                try {
+                    final long start = clock.nanoTime();
+                    final TrajectoryCache.Gold reading = detector.detect(frame);
+                    final double weight = detector.getWeight();
+                    final long now = clock.nanoTime();
+                    result = new Result(++sequence, reading, weight, frame.timestampNanos, now, now - start);
+                } catch (RuntimeException e) {
+                    fail(e);
+                } finally {
+                    recycle(frame);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopping.
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        lastError = e;
+        errors.incrementAndGet();
+    }
+
+    private RgbFrame borrow() {
+        synchronized (pool) {
+            return pool.poll();
+        }
+    }
+
+    private void recycle(RgbFrame frame) {
+        if (frame != null) {
+            synchronized (pool) {
+                pool.push(frame);
+            }
+        }
+    }
+}
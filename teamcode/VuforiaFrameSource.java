@@ -0,0 +1,80 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.vuforia.Image;
+import com.vuforia.PIXEL_FORMAT;
+import com.vuforia.Vuforia;
+
+import org.firstinspires.ftc.robotcore.external.navigation.VuforiaLocalizer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Camera frames from Vuforia for a {@link VisionPipeline}.
+ * <p>
+ * Vuforia is asked for an RGB565 copy of every frame and keeps only the newest
+ * in its queue, so a frame taken here is never older than one camera period.
+ * Each is converted to RGB, keeping every {@code decimation}th pixel each way
+ * so the converted frame is small from the start. The same Vuforia instance can
+ * go on feeding TFOD.
+ */
+public class VuforiaFrameSource implements VisionPipeline.FrameSource {
+    private final BlockingQueue<VuforiaLocalizer.CloseableFrame> queue;
+    private final int decimation;
+
+    /**
+     * @param vuforia     A running Vuforia instance
+     * @param _decimation Keep one pixel in this many each way; 1 for full size
+     */
+    public VuforiaFrameSource(VuforiaLocalizer vuforia, int _decimation) {
+        if (_decimation < 1) {
+            throw new IllegalArgumentException("Decimation must be at least 1");
+        }
+        decimation = _decimation;
+        Vuforia.setFrameFormat(PIXEL_FORMAT.RGB565, true);
+        vuforia.setFrameQueueCapacity(1);
+        queue = vuforia.getFrameQueue();
+    }
+
+    @Override
+    public RgbFrame grab(RgbFrame reuse) throws InterruptedException {
+        final VuforiaLocalizer.CloseableFrame frame = queue.take();
+        try {
+            for (int i = 0; i < frame.getNumImages(); ++i) {
+                final Image image = frame.getImage(i);
+                if (image.getFormat() == PIXEL_FORMAT.RGB565) {
+                    return convert(image, reuse);
+                }
+            }
+            return null;
+        } finally {
+            frame.close();
+        }
+    }
+
+    private RgbFrame convert(Image image, RgbFrame reuse) {
+        final int width = image.getWidth() / decimation;
+        final int height = image.getHeight() / decimation;
+        final RgbFrame out = reuse != null && reuse.width == width && reuse.height == height
+                ? reuse : new RgbFrame(width, height);
+        final ByteBuffer pixels = image.getPixels();
+        final int stride = image.getStride();
+        final byte[] rgb = out.pixels;
+        int p = 0;
+        for (int y = 0; y < height; ++y) {
+            final int row = y * decimation * stride;
+            for (int x = 0; x < width; ++x) {
+                // Little-endian 16 bit: rrrrrggg gggbbbbb.
+                final int i = row + 2 * x * decimation;
+                final int v = (pixels.get(i) & 0xff) | (pixels.get(i + 1) & 0xff) << 8;
+                final int r = (v >> 11) & 0x1f;
+                final int g = (v >> 5) & 0x3f;
+                final int b = v & 0x1f;
+                rgb[p++] = (byte) (r << 3 | r >> 2);
+                rgb[p++] = (byte) (g << 2 | g >> 4);
+                rgb[p++] = (byte) (b << 3 | b >> 2);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,91 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.util.RobotLog;
+
+/**
+ * Waits in a LinearOpMode until a {@link Condition} holds, in place of a fixed
+ * sleep().
+ * <p>
+ * Every wait has a timeout, so a sensor that never reports cannot stall the
+ * script. Each wait is logged with how long it took against the sleep it
+ * replaced, and the running total is kept, so the time won (or, on a timeout,
+ * lost) shows up in the robot log after every run.
+ */
+public class Waiter {
+    private static final String TAG = "Waiter";
+
+    private final LinearOpMode opMode;
+    private final NanoClock clock;
+    private final Runnable poll;
+
+    private double savedSeconds = 0.0;
+    private int waits = 0;
+    private int timeouts = 0;
+
+    /**
+     * @param _opMode The OpMode whose thread waits
+     * @param _clock  Time source for the timeouts
+     * @param _poll   Run once per loop before the condition is checked, to
+     *                refresh what it reads, e.g. MotionEngine.update(); may be null
+     */
+    public Waiter(LinearOpMode _opMode, NanoClock _clock, Runnable _poll) {
+        opMode = _opMode;
+        clock = _clock;
+        poll = _poll;
+    }
+
+    /**
+     * Wait until the condition holds, the timeout runs out or the OpMode stops.
+     *
+     * @param label          Name for the log
+     * @param condition      What to wait for
+     * @param timeoutS       Longest to wait
+     * @param replacedSleepS The fixed sleep this wait stands in for, for the log
+     * @return true if the condition was met, false on timeout or stop
+     */
+    public boolean waitUntil(String label, Condition condition, double timeoutS, double replacedSleepS) {
+        final long start = clock.nanoTime();
+        final long deadline = start + (long) (timeoutS * 1e9);
+        boolean met = false;
+        while (opMode.opModeIsActive()) {
+            if (poll != null) {
+                poll.run();
+            }
+            if (condition.isMet()) {
+                met = true;
+                break;
+            }
+            if (clock.nanoTime() >= deadline) {
+                break;
+            }
+            opMode.idle();
+        }
+        final double waited = (clock.nanoTime() - start) * 1e-9;
+        final double saved = replacedSleepS - waited;
+        savedSeconds += saved;
+        ++waits;
+        if (!met) {
+            ++timeouts;
+        }
+        RobotLog.ii(TAG, "%s: %s after %.0f ms, saved %.0f ms on sleep(%.0f), %.2f s so far",
+                    label, met ? "met" : "timed out", waited * 1e3, saved * 1e3, replacedSleepS * 1e3,
+                    savedSeconds);
+        return met;
+    }
+
+    /**
+     * @return total time saved against the replaced sleeps, negative if the waits took longer
+     */
+    public double getSavedSeconds() {
+        return savedSeconds;
+    }
+
+    public int getWaitCount() {
+        return waits;
+    }
+
+    public int getTimeoutCount() {
+        return timeouts;
+    }
+}